@@ -0,0 +1,19 @@
+package javalab.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**Limits of the bulk create and update endpoints, bound from {@code bulk.*} properties.*/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "bulk")
+public class BulkProperties {
+    /**Largest number of items one bulk request may carry.*/
+    private int maxItems = 10000;
+    /**Entities written between two flushes; a multiple of {@code hibernate.jdbc.batch_size}
+     * keeps the JDBC batches full and the persistence context small.*/
+    private int flushSize = 1000;
+}
@@ -1,13 +1,15 @@
 package javalab.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties(CacheProperties.class)
 public class CacheConfig {
 
     @Bean
-    public CacheHolder cacheHolder() {
-        return new CacheHolder();
+    public CacheHolder cacheHolder(CacheProperties cacheProperties) {
+        return new CacheHolder(cacheProperties);
     }
-}
\ No newline at end of file
+}
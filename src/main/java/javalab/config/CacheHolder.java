@@ -1,20 +1,60 @@
 package javalab.config;
 
-import javalab.model.Author;
-import javalab.model.Book;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javalab.dto.AuthorDto;
+import javalab.dto.BookDto;
 import javalab.model.Log;
 import javalab.utility.Cache;
+import javalab.utility.Weigher;
 import lombok.Getter;
 
 @Getter
 public class CacheHolder {
-    private final Cache<Long, Author> authorCache;
-    private final Cache<Long, Book> bookCache;
+    /**Rough per-object overhead in bytes of a cached value: headers, boxed id, references.*/
+    private static final long ENTRY_OVERHEAD = 64;
+
+    private final Cache<Long, AuthorDto> authorCache;
+    private final Cache<Long, BookDto> bookCache;
     private final Cache<Long, Log> logFileCache;
+    /**All caches by name, for monitoring.*/
+    private final Map<String, Cache<Long, ?>> caches;
+
+    CacheHolder(CacheProperties properties) {
+        this.authorCache = create(properties.getAuthors(),
+                (id, author) -> ENTRY_OVERHEAD + sizeOf(author.getName())
+                        + sizeOf(author.getBooks()));
+        this.bookCache = create(properties.getBooks(),
+                (id, book) -> ENTRY_OVERHEAD + sizeOf(book.getTitle())
+                        + sizeOf(book.getAuthors()));
+        this.logFileCache = create(properties.getLogs(),
+                (id, log) -> ENTRY_OVERHEAD + sizeOf(log.getDate()));
+
+        Map<String, Cache<Long, ?>> named = new LinkedHashMap<>();
+        named.put("authorCache", authorCache);
+        named.put("bookCache", bookCache);
+        named.put("logFileCache", logFileCache);
+        this.caches = Collections.unmodifiableMap(named);
+    }
+
+    private static <V> Cache<Long, V> create(CacheProperties.Spec spec,
+                                             Weigher<Long, V> weigher) {
+        return new Cache<>(spec.getMaxSize(), spec.getTimeToLive(),
+                spec.getMaxWeight().toBytes(), weigher);
+    }
+
+    /**Approximate heap size of a string, assuming two bytes per character.*/
+    private static long sizeOf(String value) {
+        return value == null ? 0 : 2L * value.length();
+    }
 
-    CacheHolder() {
-        this.authorCache = new Cache<>(16);
-        this.bookCache = new Cache<>(16);
-        this.logFileCache = new Cache<>(1);
+    private static long sizeOf(List<String> values) {
+        long size = ENTRY_OVERHEAD;
+        for (String value : values) {
+            size += ENTRY_OVERHEAD / 4 + sizeOf(value);
+        }
+        return size;
     }
-}
\ No newline at end of file
+}
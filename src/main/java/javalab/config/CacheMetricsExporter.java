@@ -0,0 +1,125 @@
+package javalab.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javalab.utility.Cache;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**Registers an MXBean {@code javalab:type=Cache,name=<cache>} for every cache in {@link CacheHolder}.*/
+@Component
+public class CacheMetricsExporter {
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final CacheHolder cacheHolder;
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private final List<ObjectName> registered = new ArrayList<>();
+
+    @Autowired
+    public CacheMetricsExporter(CacheHolder cacheHolder) {
+        this.cacheHolder = cacheHolder;
+    }
+
+    @PostConstruct
+    public void register() {
+        cacheHolder.getCaches().forEach((name, cache) -> {
+            try {
+                ObjectName objectName = new ObjectName("javalab:type=Cache,name=" + name);
+                if (mbeanServer.isRegistered(objectName)) {
+                    mbeanServer.unregisterMBean(objectName);
+                }
+                mbeanServer.registerMBean(new CacheMetrics(cache), objectName);
+                registered.add(objectName);
+            } catch (JMException e) {
+                logger.log(Level.WARNING, "Failed to register cache MBean {0}", name);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void unregister() {
+        for (ObjectName objectName : registered) {
+            try {
+                mbeanServer.unregisterMBean(objectName);
+            } catch (JMException e) {
+                logger.log(Level.WARNING, "Failed to unregister cache MBean {0}", objectName);
+            }
+        }
+        registered.clear();
+    }
+
+    private static class CacheMetrics implements CacheMetricsMXBean {
+        private final Cache<?, ?> cache;
+
+        CacheMetrics(Cache<?, ?> cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public long getHits() {
+            return cache.stats().getHits();
+        }
+
+        @Override
+        public long getMisses() {
+            return cache.stats().getMisses();
+        }
+
+        @Override
+        public double getHitRate() {
+            return cache.stats().getHitRate();
+        }
+
+        @Override
+        public long getPuts() {
+            return cache.stats().getPuts();
+        }
+
+        @Override
+        public long getEvictions() {
+            return cache.stats().getEvictions();
+        }
+
+        @Override
+        public long getInvalidations() {
+            return cache.stats().getInvalidations();
+        }
+
+        @Override
+        public long getLoads() {
+            return cache.stats().getLoads();
+        }
+
+        @Override
+        public long getLoadFailures() {
+            return cache.stats().getLoadFailures();
+        }
+
+        @Override
+        public long getDeduplicatedLoads() {
+            return cache.stats().getDeduplicatedLoads();
+        }
+
+        @Override
+        public double getAverageLoadTimeMillis() {
+            return cache.stats().getAverageLoadTimeMillis();
+        }
+
+        @Override
+        public int getSize() {
+            return cache.size();
+        }
+
+        @Override
+        public int getMaxSize() {
+            return cache.getMaxSize();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package javalab.config;
+
+/**JMX view of the statistics of a single cache from {@link CacheHolder}.*/
+public interface CacheMetricsMXBean {
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    long getPuts();
+
+    long getEvictions();
+
+    long getInvalidations();
+
+    long getLoads();
+
+    long getLoadFailures();
+
+    long getDeduplicatedLoads();
+
+    double getAverageLoadTimeMillis();
+
+    int getSize();
+
+    int getMaxSize();
+}
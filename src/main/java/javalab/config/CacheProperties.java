@@ -0,0 +1,28 @@
+package javalab.config;
+
+import java.time.Duration;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**Sizing of the caches in {@link CacheHolder}, bound from {@code cache.*} properties.*/
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+    private Spec authors = new Spec();
+    private Spec books = new Spec();
+    private Spec logs = new Spec();
+
+    @Getter
+    @Setter
+    public static class Spec {
+        /**Maximum number of entries.*/
+        private int maxSize = 16;
+        /**How long an entry is served after it was written. Zero keeps it until evicted.*/
+        private Duration timeToLive = Duration.ZERO;
+        /**Maximum estimated memory taken by the entries. Zero means no limit.*/
+        private DataSize maxWeight = DataSize.ofBytes(0);
+    }
+}
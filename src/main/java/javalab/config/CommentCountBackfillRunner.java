@@ -0,0 +1,28 @@
+package javalab.config;
+
+import javalab.service.CommentCountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**Recounts the comment counters at startup, so a database that predates the columns
+ * starts with correct values. The recount reads every book and user, so it is off by
+ * default and meant to be enabled for one start only.*/
+@Component
+@ConditionalOnProperty(prefix = "comment-counts", name = "backfill-on-startup",
+        havingValue = "true")
+public class CommentCountBackfillRunner implements ApplicationRunner {
+    private final CommentCountService commentCountService;
+
+    @Autowired
+    public CommentCountBackfillRunner(CommentCountService commentCountService) {
+        this.commentCountService = commentCountService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        commentCountService.backfill();
+    }
+}
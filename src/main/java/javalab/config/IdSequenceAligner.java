@@ -0,0 +1,47 @@
+package javalab.config;
+
+import java.util.Map;
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**Moves the id sequences past the ids already in the tables at startup. Ids used to be
+ * identity columns, and the sequences created for them by {@code ddl-auto} start at 1, so
+ * without this the first inserts into an existing database would reuse stored ids.
+ * A sequence that is already ahead is left alone. Runs before the other runners, so an
+ * import from the command line gets fresh ids. PostgreSQL only.*/
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "id-sequences", name = "align-on-startup", havingValue = "true")
+public class IdSequenceAligner implements ApplicationRunner {
+    private static final Logger LOGGER = Logger.getLogger(IdSequenceAligner.class.getName());
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "books", "books_seq",
+            "authors", "authors_seq",
+            "users", "users_seq",
+            "comments", "comments_seq");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public IdSequenceAligner(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        SEQUENCES.forEach((table, sequence) -> {
+            // With allocationSize 50, the next value hands out the 50 ids after this one.
+            Long value = jdbcTemplate.queryForObject("SELECT setval('" + sequence + "', "
+                    + "GREATEST((SELECT COALESCE(MAX(id), 0) FROM " + table + "), "
+                    + "(SELECT last_value FROM " + sequence + ")))", Long.class);
+            LOGGER.info(() -> "Sequence " + sequence + " is at " + value);
+        });
+    }
+}
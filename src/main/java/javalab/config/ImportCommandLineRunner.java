@@ -0,0 +1,54 @@
+package javalab.config;
+
+import java.nio.file.Path;
+import java.util.logging.Logger;
+import javalab.model.ImportJob;
+import javalab.service.ImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+/**Imports the files given as {@code --import=<path>} options and exits, with status 1 if
+ * any file or line failed. The format follows the file extension. Add
+ * {@code --spring.main.web-application-type=none} to skip starting the web server.*/
+@Component
+public class ImportCommandLineRunner implements ApplicationRunner {
+    private static final Logger LOGGER = Logger.getLogger(ImportCommandLineRunner.class.getName());
+    private static final String OPTION = "import";
+
+    private final ImportService importService;
+    private final ConfigurableApplicationContext context;
+
+    @Autowired
+    public ImportCommandLineRunner(ImportService importService,
+                                   ConfigurableApplicationContext context) {
+        this.importService = importService;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        boolean failed = false;
+        for (String value : args.getOptionValues(OPTION)) {
+            Path file = Path.of(value);
+            ImportJob job = importService.importFile(file,
+                    ImportJob.Format.ofFileName(file.getFileName().toString()));
+            for (ImportJob.LineError error : job.getErrors()) {
+                LOGGER.warning(() -> file + ":" + error.getLine() + ": " + error.getMessage());
+            }
+            LOGGER.info(() -> file + ": " + job.getStatus() + ", " + job.getBooksImported()
+                    + " books, " + job.getAuthorsCreated() + " new authors, "
+                    + job.getCommentsImported() + " comments, " + job.getFailedLines()
+                    + " failed lines" + (job.getMessage() == null ? "" : ": " + job.getMessage()));
+            failed |= job.getStatus() != ImportJob.Status.SUCCESS || job.getFailedLines() > 0;
+        }
+        int status = failed ? 1 : 0;
+        System.exit(SpringApplication.exit(context, () -> status));
+    }
+}
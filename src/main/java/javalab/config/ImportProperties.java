@@ -0,0 +1,26 @@
+package javalab.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**Sizing of catalogue imports, bound from {@code import-jobs.*} properties.*/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "import-jobs")
+public class ImportProperties {
+    /**Number of imports running at the same time.*/
+    private int workers = 1;
+    /**Uploaded imports that may wait for a worker; further uploads are answered with 429.*/
+    private int queueCapacity = 4;
+    /**Suggested delay before retrying a rejected upload.*/
+    private long retryAfterSeconds = 30;
+    /**Lines written per transaction.*/
+    private int chunkSize = 1000;
+    /**Failed lines reported per job; further failures are only counted.*/
+    private int maxErrors = 1000;
+    /**Jobs whose status can still be read; the oldest finished ones are forgotten first.*/
+    private int retainedJobs = 100;
+}
@@ -0,0 +1,54 @@
+package javalab.config;
+
+import java.util.logging.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**Gives an existing {@code book_author} table its composite primary key at startup.
+ * Mapped as sets, the links get {@code (book_id, author_id)} as primary key when the table
+ * is created, but {@code ddl-auto=update} does not add keys to a table created back when
+ * they were lists. Duplicate links are dropped first, keeping one of each. The reverse
+ * index on {@code author_id} is created by {@code ddl-auto} itself. PostgreSQL only.*/
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@ConditionalOnProperty(prefix = "join-table-keys", name = "create-on-startup",
+        havingValue = "true")
+public class JoinTableKeyCreator implements ApplicationRunner {
+    private static final Logger LOGGER = Logger.getLogger(JoinTableKeyCreator.class.getName());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public JoinTableKeyCreator(JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Integer keys = jdbcTemplate.queryForObject("SELECT COUNT(*) "
+                + "FROM information_schema.table_constraints WHERE table_name = 'book_author' "
+                + "AND constraint_type = 'PRIMARY KEY'", Integer.class);
+        if (keys == null || keys > 0) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            int duplicates = jdbcTemplate.update("DELETE FROM book_author a "
+                    + "USING book_author b WHERE a.ctid > b.ctid "
+                    + "AND a.book_id = b.book_id AND a.author_id = b.author_id");
+            jdbcTemplate.execute("ALTER TABLE book_author ADD PRIMARY KEY (book_id, author_id)");
+            LOGGER.info(() -> "Added the primary key of book_author, dropping "
+                    + duplicates + " duplicate links");
+        });
+    }
+}
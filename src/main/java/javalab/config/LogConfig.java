@@ -0,0 +1,38 @@
+package javalab.config;
+
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+import java.nio.file.Path;
+import javalab.logger.LogFileIndex;
+import javalab.logger.LogPattern;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class LogConfig {
+    public static final String LOG_FILE_PATH = "logs/app.log";
+    private static final String FILE_APPENDER = "FILE";
+
+    /**Shared by every reader of the log, so the index is maintained once.*/
+    @Bean
+    public LogFileIndex logFileIndex() {
+        return new LogFileIndex(Path.of(LOG_FILE_PATH));
+    }
+
+    /**The pattern the file appender actually writes with, else the one of logback-spring.xml.*/
+    @Bean
+    public LogPattern logPattern() {
+        if (LoggerFactory.getILoggerFactory() instanceof LoggerContext context) {
+            Appender<?> appender = context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)
+                    .getAppender(FILE_APPENDER);
+            if (appender instanceof OutputStreamAppender<?> stream
+                    && stream.getEncoder() instanceof PatternLayoutEncoder encoder) {
+                return LogPattern.compile(encoder.getPattern());
+            }
+        }
+        return LogPattern.compile(LogPattern.DEFAULT);
+    }
+}
@@ -0,0 +1,20 @@
+package javalab.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**Sizing of the log extraction job scheduler, bound from {@code log-jobs.*} properties.*/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "log-jobs")
+public class LogJobProperties {
+    /**Number of jobs extracted at the same time.*/
+    private int workers = 2;
+    /**Jobs that may wait for a worker; further requests are answered with 429.*/
+    private int queueCapacity = 100;
+    /**Suggested delay before retrying a rejected request.*/
+    private long retryAfterSeconds = 5;
+}
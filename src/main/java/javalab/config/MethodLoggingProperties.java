@@ -0,0 +1,30 @@
+package javalab.config;
+
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**What {@code LoggerAspect} logs, bound from {@code method-logging.*} properties.*/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "method-logging")
+public class MethodLoggingProperties {
+    /**java.util.logging level of the call records; nothing is done below it.*/
+    private String level = "INFO";
+    /**Fraction of calls logged, from 0 to 1.*/
+    private double sampleRate = 1.0;
+    /**Fraction of failing calls logged that were not sampled already.*/
+    private double errorSampleRate = 1.0;
+    /**Longest rendering of a result; longer ones are cut.*/
+    private int maxResultLength = 200;
+    /**Elements of a collection result that are rendered.*/
+    private int maxResultElements = 10;
+    /**Package or class name prefixes that are logged.*/
+    private List<String> include = new ArrayList<>(List.of("javalab"));
+    /**Prefixes that are not logged; the longest matching prefix of both lists wins.*/
+    private List<String> exclude = new ArrayList<>();
+}
@@ -0,0 +1,79 @@
+package javalab.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.lang.management.ManagementFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javalab.service.MethodMetricsService;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**Registers the MXBean {@code javalab:type=MethodMetrics} for {@link MethodMetricsService}.*/
+@Component
+public class MethodMetricsExporter {
+    private static final String OBJECT_NAME = "javalab:type=MethodMetrics";
+
+    private final Logger logger = Logger.getLogger(getClass().getName());
+    private final MethodMetricsService methodMetricsService;
+    private final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+    private ObjectName registered;
+
+    @Autowired
+    public MethodMetricsExporter(MethodMetricsService methodMetricsService) {
+        this.methodMetricsService = methodMetricsService;
+    }
+
+    @PostConstruct
+    public void register() {
+        try {
+            ObjectName objectName = new ObjectName(OBJECT_NAME);
+            if (mbeanServer.isRegistered(objectName)) {
+                mbeanServer.unregisterMBean(objectName);
+            }
+            mbeanServer.registerMBean(new MethodMetrics(methodMetricsService), objectName);
+            registered = objectName;
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Failed to register MBean {0}", OBJECT_NAME);
+        }
+    }
+
+    @PreDestroy
+    public void unregister() {
+        if (registered == null) {
+            return;
+        }
+        try {
+            mbeanServer.unregisterMBean(registered);
+        } catch (JMException e) {
+            logger.log(Level.WARNING, "Failed to unregister MBean {0}", registered);
+        }
+        registered = null;
+    }
+
+    private static class MethodMetrics implements MethodMetricsMXBean {
+        private final MethodMetricsService service;
+
+        MethodMetrics(MethodMetricsService service) {
+            this.service = service;
+        }
+
+        @Override
+        public String[] getSlowestMethods() {
+            return service.getSlowestMethods();
+        }
+
+        @Override
+        public int getMethodCount() {
+            return service.getMethodCount();
+        }
+
+        @Override
+        public void reset() {
+            service.reset();
+        }
+    }
+}
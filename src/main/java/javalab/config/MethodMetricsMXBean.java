@@ -0,0 +1,13 @@
+package javalab.config;
+
+/**JMX view of the method latencies of {@link javalab.service.MethodMetricsService}.*/
+public interface MethodMetricsMXBean {
+    /**Slowest methods by p99, one line each.*/
+    String[] getSlowestMethods();
+
+    /**Number of methods called so far.*/
+    int getMethodCount();
+
+    /**Clears all histograms and error counts.*/
+    void reset();
+}
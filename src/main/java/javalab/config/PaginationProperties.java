@@ -0,0 +1,20 @@
+package javalab.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**Limits of the listing endpoints, bound from {@code pagination.*} properties.*/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "pagination")
+public class PaginationProperties {
+    /**Page size used when a request does not specify one.*/
+    private int defaultPageSize = 50;
+    /**Largest page size a request may ask for.*/
+    private int maxPageSize = 500;
+    /**Maximum number of rows returned by the unpaged {@code /all} endpoints.*/
+    private int maxUnpagedResults = 1000;
+}
@@ -0,0 +1,53 @@
+package javalab.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.Map;
+import javalab.service.VisitAnalyticsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**Feeds every request to a controller into {@link VisitAnalyticsService}. Endpoints are
+ * keyed by their mapping pattern, not the raw path, so the number of keys stays small.*/
+@Component
+public class VisitAnalyticsInterceptor implements HandlerInterceptor {
+    private static final String BOOK_PATTERN = "/books/{id}";
+
+    private final VisitAnalyticsService visitAnalyticsService;
+
+    @Autowired
+    public VisitAnalyticsInterceptor(VisitAnalyticsService visitAnalyticsService) {
+        this.visitAnalyticsService = visitAnalyticsService;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response,
+                             Object handler) {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + pattern;
+        visitAnalyticsService.recordVisit(endpoint, bookId(request, String.valueOf(pattern)));
+        return true;
+    }
+
+    /**The id of {@code /books/{id}} and of the paths below it, such as its comments.*/
+    private static Long bookId(HttpServletRequest request, String pattern) {
+        if (!pattern.startsWith(BOOK_PATTERN)) {
+            return null;
+        }
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        if (variables instanceof Map<?, ?> map && map.get("id") instanceof String id) {
+            try {
+                return Long.valueOf(id);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,23 @@
+package javalab.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**Sizes of the visit analytics, bound from {@code visit-analytics.*} properties.
+ * Memory depends only on these, not on traffic.*/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "visit-analytics")
+public class VisitAnalyticsProperties {
+    /**Minutes with a count of their own, the current one included.*/
+    private int minutes = 60;
+    /**Hours with a count of their own, the current one included.*/
+    private int hours = 24;
+    /**Keys tracked by each top list; also the largest top list that can be asked for.*/
+    private int topCapacity = 200;
+    /**Visits waiting to be added to the top lists; visits beyond it are dropped.*/
+    private int queueSize = 16384;
+}
@@ -0,0 +1,19 @@
+package javalab.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**Limits of the visit counters, bound from {@code visit-counters.*} properties.
+ * The flush interval is read by the scheduler as {@code visit-counters.flush-interval}.*/
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "visit-counters")
+public class VisitCounterProperties {
+    /**Distinct counters kept; requests for new ones beyond it are rejected.*/
+    private int maxKeys = 10_000;
+    /**At most the length of the {@code visit_counters} key column.*/
+    private int maxKeyLength = 100;
+}
@@ -0,0 +1,21 @@
+package javalab.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    private final VisitAnalyticsInterceptor visitAnalyticsInterceptor;
+
+    @Autowired
+    public WebConfig(VisitAnalyticsInterceptor visitAnalyticsInterceptor) {
+        this.visitAnalyticsInterceptor = visitAnalyticsInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(visitAnalyticsInterceptor);
+    }
+}
@@ -2,12 +2,19 @@ package javalab.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Optional;
+import javalab.dto.AuthorDto;
+import javalab.dto.BookLinksDto;
+import javalab.dto.PageDto;
 import javalab.model.Author;
 import javalab.service.AuthorService;
-import javalab.utility.Resource;
+import javalab.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,8 +23,10 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/author")
@@ -27,22 +36,42 @@ import org.springframework.web.bind.annotation.RestController;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final ExportService exportService;
 
     @Autowired
-    public AuthorController(AuthorService authorService) {
+    public AuthorController(AuthorService authorService, ExportService exportService) {
         this.authorService = authorService;
+        this.exportService = exportService;
     }
 
     @GetMapping("/all")
-    @Operation(summary = "Get all the authors")
+    @Operation(summary = "Get all the authors",
+            description = "Returns at most pagination.max-unpaged-results authors.")
     public List<Author> getAll() {
         return authorService.getAuthors();
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Get a page of authors ordered by id, starting after the given id")
+    public PageDto<Author> getPage(@RequestParam Optional<Long> after,
+                                   @RequestParam Optional<Integer> size,
+                                   @RequestParam(defaultValue = "asc") String sort) {
+        return authorService.getPage(after, size, sort);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all authors",
+            description = "Streams every author with their book titles, one JSON object per line.")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(exportService::exportAuthors);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get author by id")
-    public Author getById(@PathVariable Long id) {
-        return authorService.getById(id, Resource.LoadMode.DEFAULT);
+    public AuthorDto getById(@PathVariable Long id) {
+        return authorService.getById(id);
     }
 
     @PostMapping
@@ -56,6 +85,27 @@ public class AuthorController {
         return authorService.create(author);
     }
 
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(
+            summary = "Create many authors",
+            description = "Creates all the authors or none of them, in JDBC batches. "
+                    + "Names must be unique among the authors and the stored ones."
+    )
+    public List<Author> createAuthors(@Valid @RequestBody List<Author> authors) {
+        return authorService.createAll(authors);
+    }
+
+    @PutMapping("/bulk")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(
+            summary = "Update many authors",
+            description = "Updates all the authors or none of them; every author needs its ID."
+    )
+    public List<Author> updateAuthors(@Valid @RequestBody List<Author> authors) {
+        return authorService.updateAll(authors);
+    }
+
     @PostMapping("/{authorId}/books/{bookId}")
     @ResponseStatus(HttpStatus.ACCEPTED)
     @Operation(
@@ -68,6 +118,40 @@ public class AuthorController {
         return authorService.addBookToAuthor(authorId, bookId);
     }
 
+    @PostMapping("/{authorId}/books")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(
+            summary = "Links many books to author.",
+            description = "Links all the books or none of them if one does not exist. "
+                    + "Books the author already has are reported as unchanged."
+    )
+    public BookLinksDto addBooks(@PathVariable Long authorId, @RequestBody List<Long> bookIds) {
+        return authorService.linkBooks(authorId, bookIds);
+    }
+
+    @PutMapping("/{authorId}/books")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(
+            summary = "Replaces the books of author.",
+            description = "Links and unlinks books so the author has exactly the given ones. "
+                    + "Only the links that differ are written."
+    )
+    public BookLinksDto replaceBooks(@PathVariable Long authorId,
+                                     @RequestBody List<Long> bookIds) {
+        return authorService.replaceBooks(authorId, bookIds);
+    }
+
+    @DeleteMapping("/{authorId}/books")
+    @Operation(
+            summary = "Deletes many books from author.",
+            description = "Unlinks the given books; books the author does not have are "
+                    + "reported as unchanged."
+    )
+    public BookLinksDto deleteBooks(@PathVariable Long authorId,
+                                    @RequestBody List<Long> bookIds) {
+        return authorService.unlinkBooks(authorId, bookIds);
+    }
+
     @DeleteMapping("/{authorId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Deletes author by id.")
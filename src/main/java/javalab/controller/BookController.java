@@ -5,11 +5,15 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Optional;
+import javalab.dto.BookDto;
+import javalab.dto.PageDto;
 import javalab.model.Book;
 import javalab.service.BookService;
-import javalab.utility.Resource;
+import javalab.service.ExportService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +25,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/books")
@@ -29,16 +34,18 @@ import org.springframework.web.bind.annotation.RestController;
 public class BookController {
 
     private final BookService bookService;
+    private final ExportService exportService;
 
     @Autowired
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, ExportService exportService) {
         this.bookService = bookService;
+        this.exportService = exportService;
     }
 
     @GetMapping("/all")
     @Operation(
             summary = "Get all books",
-            description = "Retrieves a list of all books. "
+            description = "Retrieves a list of all books, at most pagination.max-unpaged-results. "
                     + "You can filter books by author or minimum comment count."
     )
     public List<Book> getAll(
@@ -48,13 +55,35 @@ public class BookController {
         return bookService.getBookByFilter(author, commentCountMin);
     }
 
+    @GetMapping("/page")
+    @Operation(
+            summary = "Get a page of books",
+            description = "Retrieves up to size books ordered by ID, starting after the given ID. "
+                    + "Pass the returned next value as after to get the following page."
+    )
+    public PageDto<Book> getPage(
+            @RequestParam(value = "after", required = false) Optional<Long> after,
+            @RequestParam(value = "size", required = false) Optional<Integer> size,
+            @RequestParam(value = "sort", defaultValue = "asc") String sort) {
+        return bookService.getPage(after, size, sort);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all books",
+            description = "Streams every book with its author names, one JSON object per line.")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(exportService::exportBooks);
+    }
+
     @GetMapping("/{id}")
     @Operation(
             summary = "Get a book by ID",
             description = "Retrieves a book by it's ID."
     )
-    public Book getById(@PathVariable Long id) {
-        return bookService.getById(id, Resource.LoadMode.DEFAULT);
+    public BookDto getById(@PathVariable Long id) {
+        return bookService.getById(id);
     }
 
     @PostMapping
@@ -67,6 +96,27 @@ public class BookController {
         return bookService.create(book);
     }
 
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(
+            summary = "Create many books",
+            description = "Creates all the books or none of them, in JDBC batches. "
+                    + "Titles must be unique among the books and the stored ones."
+    )
+    public List<Book> createBooks(@Valid @RequestBody List<Book> books) {
+        return bookService.createAll(books);
+    }
+
+    @PutMapping("/bulk")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(
+            summary = "Update many books",
+            description = "Updates all the books or none of them; every book needs its ID."
+    )
+    public List<Book> updateBooks(@Valid @RequestBody List<Book> books) {
+        return bookService.updateAll(books);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete book by ID")
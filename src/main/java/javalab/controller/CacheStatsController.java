@@ -0,0 +1,46 @@
+package javalab.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javalab.config.CacheHolder;
+import javalab.exception.NotFoundException;
+import javalab.utility.Cache;
+import javalab.utility.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/cache")
+@Tag(name = "Cache controller", description = "Hit, miss and eviction statistics of the caches")
+public class CacheStatsController {
+
+    private final CacheHolder cacheHolder;
+
+    @Autowired
+    public CacheStatsController(CacheHolder cacheHolder) {
+        this.cacheHolder = cacheHolder;
+    }
+
+    @GetMapping
+    @Operation(summary = "Get statistics of all caches")
+    public Map<String, CacheStats> getAll() {
+        Map<String, CacheStats> map = new LinkedHashMap<>();
+        cacheHolder.getCaches().forEach((name, cache) -> map.put(name, cache.stats()));
+        return map;
+    }
+
+    @GetMapping("/{name}")
+    @Operation(summary = "Get statistics of a cache by name")
+    public CacheStats getByName(@PathVariable String name) {
+        Cache<Long, ?> cache = cacheHolder.getCaches().get(name);
+        if (cache == null) {
+            throw new NotFoundException("Cache not found: " + name);
+        }
+        return cache.stats();
+    }
+}
@@ -4,7 +4,9 @@ import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.util.List;
+import java.util.Optional;
 import javalab.dto.CommentDto;
+import javalab.dto.PageDto;
 import javalab.model.Comment;
 import javalab.service.CommentService;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -17,6 +19,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -36,12 +39,26 @@ public class CommentController {
     @GetMapping
     @Operation(
             summary = "Get all comments for a book",
-            description = "Retrieves a list of all comments of a given existing book."
+            description = "Retrieves the comments of a given existing book, "
+                    + "at most pagination.max-unpaged-results."
     )
     public List<CommentDto> getByBook(@PathVariable Long id) {
         return commentService.getAllComments(id);
     }
 
+    @GetMapping("/page")
+    @Operation(
+            summary = "Get a page of comments for a book",
+            description = "Comments ordered by id, read in one query. "
+                    + "Pass the returned next value as after to get the following page."
+    )
+    public PageDto<CommentDto> getPage(@PathVariable Long id,
+                                       @RequestParam Optional<Long> after,
+                                       @RequestParam Optional<Integer> size,
+                                       @RequestParam(defaultValue = "asc") String sort) {
+        return commentService.getPage(id, after, size, sort);
+    }
+
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(
@@ -57,14 +74,13 @@ public class CommentController {
     @PostMapping("/bulk")
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(
-            summary = "Create a new comment",
-            description = "Creates comments for an existing book. "
-                    + "Shall contain texts and user ids"
+            summary = "Create many comments",
+            description = "Creates all the comments for an existing book or none of them, "
+                    + "in JDBC batches. Shall contain texts and user ids"
     )
     public List<Comment> createInBulk(@PathVariable Long id,
                                 @Valid @RequestBody List<CommentDto> comments) {
-        return comments.stream().map(commentDto
-                -> commentService.create(id, commentDto)).toList();
+        return commentService.createAll(id, comments);
     }
 
     @DeleteMapping("/{commentId}")
@@ -0,0 +1,39 @@
+package javalab.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import java.util.Map;
+import javalab.dto.CommentCountMismatchDto;
+import javalab.service.CommentCountService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/comment-counts")
+@Tag(name = "Comment count controller",
+        description = "Checks and repairs the stored comment counters of books and users")
+public class CommentCountController {
+
+    private final CommentCountService commentCountService;
+
+    @Autowired
+    public CommentCountController(CommentCountService commentCountService) {
+        this.commentCountService = commentCountService;
+    }
+
+    @GetMapping("/check")
+    @Operation(summary = "List the counters that differ from the number of comments")
+    public List<CommentCountMismatchDto> check() {
+        return commentCountService.check();
+    }
+
+    @PostMapping("/backfill")
+    @Operation(summary = "Recount every counter from the comments table")
+    public Map<String, Integer> backfill() {
+        return Map.of("fixed", commentCountService.backfill());
+    }
+}
@@ -0,0 +1,63 @@
+package javalab.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import javalab.exception.BadRequestException;
+import javalab.model.ImportJob;
+import javalab.service.ImportService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/import")
+@Tag(name = "Import controller", description = "Imports catalogue files of books with their "
+        + "authors and comments")
+public class ImportController {
+    private static final String TEXT_CSV = "text/csv";
+
+    private final ImportService importService;
+
+    @Autowired
+    public ImportController(ImportService importService) {
+        this.importService = importService;
+    }
+
+    /**Answers 429 with a Retry-After header when the import queue is full.*/
+    @PostMapping(value = "/books", consumes = {TEXT_CSV, MediaType.APPLICATION_NDJSON_VALUE})
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(
+            summary = "Import books",
+            description = "Stores the body and imports it in the background. Send NDJSON lines "
+                    + "shaped like book exports, optionally with comments of userId and text, "
+                    + "or CSV with the columns title, pages and authors (names separated by |). "
+                    + "Returns the job to poll."
+    )
+    public ImportJob importBooks(HttpServletRequest request) {
+        ImportJob.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.APPLICATION_NDJSON)
+                ? ImportJob.Format.NDJSON : ImportJob.Format.CSV;
+        try {
+            return importService.submit(request.getInputStream(), format);
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read the upload");
+        }
+    }
+
+    @GetMapping("/{id}")
+    @Operation(
+            summary = "Get an import job",
+            description = "Progress and counters of an import, with the first failed lines."
+    )
+    public ImportJob getJob(@PathVariable Long id) {
+        return importService.find(id);
+    }
+}
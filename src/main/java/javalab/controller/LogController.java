@@ -1,12 +1,19 @@
 package javalab.controller;
 
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import javalab.model.Log;
+import javalab.service.LogSearchService;
 import javalab.service.LogService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,22 +21,34 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @Tag(name = "Log controller")
 @RequestMapping("/logs")
 public class LogController {
     private final LogService logService;
+    private final LogSearchService logSearchService;
 
     @Autowired
-    public LogController(LogService logService) {
+    public LogController(LogService logService, LogSearchService logSearchService) {
         this.logService = logService;
+        this.logSearchService = logSearchService;
     }
 
+    /**Answers 429 with a Retry-After header when the job queue is full.*/
     @PostMapping("/generate")
-    public Log generateLog(@RequestParam String date) {
-        return logService.generateLogs(date);
+    public Log generateLog(@RequestParam String date,
+                           @RequestParam(defaultValue = "0") int priority) {
+        return logService.generateLogs(date, priority);
+    }
+
+    @PostMapping("/cancel/{id}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void cancel(@PathVariable Long id) {
+        logService.cancel(id);
     }
 
     @GetMapping("/status/{id}")
@@ -38,15 +57,39 @@ public class LogController {
         map.put("id", id.toString());
         map.put("status", logService.getLogStatus(id));
         map.put("logDate", logService.getLogDate(id));
+        map.put("progress", String.valueOf(logService.getLogProgress(id)));
+        map.put("queuePosition", String.valueOf(logService.getQueuePosition(id)));
         return ResponseEntity.ok(map);
     }
 
+    /**Streams the extract from disk; Range requests get 206 with just the asked bytes.*/
     @GetMapping("/download/{id}")
-    public ResponseEntity<String> downloadLog(@PathVariable Long id) {
+    public ResponseEntity<Resource> downloadLog(@PathVariable Long id) {
+        Resource file = new FileSystemResource(logService.getLogFile(id));
         return ResponseEntity.ok()
                 .contentType(MediaType.TEXT_PLAIN)
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         "attachment; filename=\"logs-" + logService.getLogDate(id) + ".txt\"")
-                .body(logService.getLogBody(id));
+                .body(file);
+    }
+
+    /**Streams matching entries in file order as plain text, stack traces included.
+     * {@code level} is a minimum level and {@code logger} a prefix of the written name.*/
+    @GetMapping("/search")
+    public ResponseEntity<StreamingResponseBody> search(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            Optional<LocalDateTime> from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            Optional<LocalDateTime> to,
+            @RequestParam Optional<String> level,
+            @RequestParam Optional<String> logger,
+            @RequestParam Optional<String> text,
+            @RequestParam Optional<String> regex,
+            @RequestParam Optional<Integer> limit) {
+        LogSearchService.Filter filter = logSearchService.filter(from, to, level, logger, text,
+                regex, limit);
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_PLAIN)
+                .body(out -> logSearchService.search(filter, out));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,44 @@
+package javalab.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import javalab.dto.MethodLatencyDto;
+import javalab.service.MethodMetricsService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/metrics")
+@Tag(name = "Metrics controller", description = "Latency of application methods")
+public class MetricsController {
+
+    private final MethodMetricsService methodMetricsService;
+
+    @Autowired
+    public MetricsController(MethodMetricsService methodMetricsService) {
+        this.methodMetricsService = methodMetricsService;
+    }
+
+    @GetMapping("/methods")
+    @Operation(summary = "Methods by latency",
+            description = "Sort by p50, p99, p999, max, mean, count or errors, highest first")
+    public List<MethodLatencyDto> getMethods(
+            @RequestParam(defaultValue = "p99") String sort,
+            @RequestParam(defaultValue = "50") int limit) {
+        return methodMetricsService.getLatencies(sort, limit);
+    }
+
+    @DeleteMapping("/methods")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Operation(summary = "Clear the method histograms")
+    public void reset() {
+        methodMetricsService.reset();
+    }
+}
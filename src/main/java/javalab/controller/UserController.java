@@ -7,11 +7,14 @@ import jakarta.validation.Valid;
 import java.util.List;
 import java.util.Optional;
 import javalab.dto.CommentDto;
-import javalab.mapper.CommentMapper;
+import javalab.dto.PageDto;
 import javalab.model.User;
+import javalab.service.ExportService;
 import javalab.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -23,6 +26,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/user")
@@ -31,20 +35,38 @@ import org.springframework.web.bind.annotation.RestController;
 public class UserController {
 
     private final UserService userService;
-    private final CommentMapper commentMapper;
+    private final ExportService exportService;
 
     @Autowired
-    public UserController(UserService userService, CommentMapper commentMapper) {
+    public UserController(UserService userService, ExportService exportService) {
         this.userService = userService;
-        this.commentMapper = commentMapper;
+        this.exportService = exportService;
     }
 
     @GetMapping("/all")
-    @Operation(summary = "Get all users")
+    @Operation(summary = "Get all users",
+            description = "Returns at most pagination.max-unpaged-results users.")
     public List<User> getAll(@RequestParam Optional<Long> commentCountMin) {
         return userService.getUsers(commentCountMin);
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Get a page of users ordered by id, starting after the given id")
+    public PageDto<User> getPage(@RequestParam Optional<Long> after,
+                                 @RequestParam Optional<Integer> size,
+                                 @RequestParam(defaultValue = "asc") String sort) {
+        return userService.getPage(after, size, sort);
+    }
+
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Export all users",
+            description = "Streams every user with their comments, one JSON object per line.")
+    public ResponseEntity<StreamingResponseBody> export() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(exportService::exportUsers);
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get user by id")
     public User getById(@PathVariable Long id) {
@@ -58,6 +80,20 @@ public class UserController {
         return userService.create(user);
     }
 
+    @PostMapping("/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    @Operation(summary = "Create many users in JDBC batches")
+    public List<User> createAll(@Valid @RequestBody List<User> users) {
+        return userService.createAll(users);
+    }
+
+    @PutMapping("/bulk")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Update many users, each identified by its ID")
+    public List<User> updateAll(@Valid @RequestBody List<User> users) {
+        return userService.updateAll(users);
+    }
+
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Delete user by ID")
@@ -73,10 +109,20 @@ public class UserController {
     }
 
     @GetMapping("/{id}/comments")
-    @Operation(summary = "Get user by id")
+    @Operation(summary = "Get comments of user",
+            description = "Returns at most pagination.max-unpaged-results comments.")
     public List<CommentDto> getComments(@PathVariable Long id) {
-        return userService.getUserComments(id).stream()
-                .map(commentMapper::toDto)
-                .toList();
+        return userService.getUserComments(id);
+    }
+
+    @GetMapping("/{id}/comments/page")
+    @Operation(summary = "Get a page of comments of user ordered by id",
+            description = "Reads the page in one query. Pass the returned next value as after "
+                    + "to get the following page.")
+    public PageDto<CommentDto> getCommentPage(@PathVariable Long id,
+                                              @RequestParam Optional<Long> after,
+                                              @RequestParam Optional<Integer> size,
+                                              @RequestParam(defaultValue = "asc") String sort) {
+        return userService.getCommentPage(id, after, size, sort);
     }
 }
\ No newline at end of file
@@ -1,14 +1,20 @@
 package javalab.controller;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import javalab.dto.HeavyHitterDto;
+import javalab.dto.PeriodCountDto;
 import javalab.logger.NoLogging;
+import javalab.service.VisitAnalyticsService;
 import javalab.service.VisitCounterService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
@@ -16,10 +22,13 @@ import org.springframework.web.bind.annotation.RestController;
 public class VisitCounterController {
 
     VisitCounterService visitCounterService;
+    VisitAnalyticsService visitAnalyticsService;
 
     @Autowired
-    public VisitCounterController(VisitCounterService visitCounterService) {
+    public VisitCounterController(VisitCounterService visitCounterService,
+                                  VisitAnalyticsService visitAnalyticsService) {
         this.visitCounterService = visitCounterService;
+        this.visitAnalyticsService = visitAnalyticsService;
     }
 
     @PostMapping
@@ -35,4 +44,44 @@ public class VisitCounterController {
         map.put("visit count", visitCounterService.getCount());
         return map;
     }
-}
\ No newline at end of file
+
+    @PostMapping("/{key}")
+    @NoLogging
+    public ResponseEntity<Void> increment(@PathVariable String key) {
+        visitCounterService.increment(key);
+        return ResponseEntity.ok().build();
+    }
+
+    @GetMapping("/{key}")
+    public Map<String, Long> getCounter(@PathVariable String key) {
+        Map<String, Long> map = new HashMap<>();
+        map.put("visit count", visitCounterService.getCount(key));
+        return map;
+    }
+
+    @GetMapping("/" + VisitCounterService.ALL_KEY)
+    public Map<String, Long> getCounters() {
+        return visitCounterService.getCounts();
+    }
+
+    @GetMapping("/windows/minutes")
+    public List<PeriodCountDto> getMinuteCounts() {
+        return visitAnalyticsService.getMinuteCounts();
+    }
+
+    @GetMapping("/windows/hours")
+    public List<PeriodCountDto> getHourCounts() {
+        return visitAnalyticsService.getHourCounts();
+    }
+
+    @GetMapping("/top/endpoints")
+    public List<HeavyHitterDto> getTopEndpoints(
+            @RequestParam(defaultValue = "10") int limit) {
+        return visitAnalyticsService.getTopEndpoints(limit);
+    }
+
+    @GetMapping("/top/books")
+    public List<HeavyHitterDto> getTopBooks(@RequestParam(defaultValue = "10") int limit) {
+        return visitAnalyticsService.getTopBooks(limit);
+    }
+}
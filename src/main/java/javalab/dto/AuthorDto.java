@@ -0,0 +1,20 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.Getter;
+
+/**Immutable read model of an author; also the value stored in the author cache.*/
+@Getter
+@Schema(description = "DTO model of the author")
+public class AuthorDto {
+    private final Long id;
+    private final String name;
+    private final List<String> books;
+
+    public AuthorDto(Long id, String name, List<String> books) {
+        this.id = id;
+        this.name = name;
+        this.books = List.copyOf(books);
+    }
+}
@@ -1,20 +1,22 @@
 package javalab.dto;
 
 import io.swagger.v3.oas.annotations.media.Schema;
-import java.util.ArrayList;
 import java.util.List;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
 
-@Setter
+/**Immutable read model of a book; also the value stored in the book cache.*/
 @Getter
-@NoArgsConstructor
-@AllArgsConstructor
-@Schema(description = "DTO model of the user")
+@Schema(description = "DTO model of the book")
 public class BookDto {
-    private Long id;
-    private String title;   
-    List<String> authors = new ArrayList<>();
+    private final Long id;
+    private final String title;
+    private final int pages;
+    private final List<String> authors;
+
+    public BookDto(Long id, String title, int pages, List<String> authors) {
+        this.id = id;
+        this.title = title;
+        this.pages = pages;
+        this.authors = List.copyOf(authors);
+    }
 }
@@ -0,0 +1,23 @@
+package javalab.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**One line of an NDJSON catalogue import. Book exports are valid imports; their ids are
+ * ignored.*/
+@Setter
+@Getter
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+@Schema(description = "A book to import with the names of its authors and its comments")
+public class BookImportDto {
+    private String title;
+    private int pages;
+    private List<String> authors = new ArrayList<>();
+    private List<CommentDto> comments = new ArrayList<>();
+}
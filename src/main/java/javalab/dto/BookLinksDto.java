@@ -0,0 +1,20 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Links between an author and books changed by one request")
+public class BookLinksDto {
+    @Schema(description = "Identifier of the author", example = "1")
+    private final Long authorId;
+    @Schema(description = "Books linked to the author by the request")
+    private final List<Long> linked;
+    @Schema(description = "Books unlinked from the author by the request")
+    private final List<Long> unlinked;
+    @Schema(description = "Requested books that were already linked or unlinked as requested")
+    private final List<Long> unchanged;
+}
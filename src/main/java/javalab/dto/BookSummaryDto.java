@@ -0,0 +1,19 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**Book of a listed comment, without its authors; get the book for them.*/
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Book a comment belongs to")
+public class BookSummaryDto {
+    private Long id;
+    private String title;
+    private int pages;
+}
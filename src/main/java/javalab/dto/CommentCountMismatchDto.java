@@ -0,0 +1,16 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "A stored comment counter that differs from the number of comments")
+public class CommentCountMismatchDto {
+    @Schema(description = "Table of the counter", example = "books")
+    private final String table;
+    private final Long id;
+    private final long stored;
+    private final long actual;
+}
@@ -1,5 +1,6 @@
 package javalab.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -25,5 +26,16 @@ public class CommentDto {
     @Size(min = 1, max = 255, message = "Text must be between 1 and 255 characters")
     private String text;
 
-    private BookDto book;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private BookSummaryDto book;
+
+    /**Row of the listing queries.*/
+    public CommentDto(Long id, String text, Long userId, String userName,
+                      Long bookId, String bookTitle, int bookPages) {
+        this.id = id;
+        this.text = text;
+        this.userId = userId;
+        this.user = userId == null ? null : new UserDto(userId, userName);
+        this.book = new BookSummaryDto(bookId, bookTitle, bookPages);
+    }
 }
@@ -0,0 +1,17 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "A frequently requested key and its estimated number of requests")
+public class HeavyHitterDto {
+    @Schema(example = "GET /books/{id}")
+    private final String key;
+    @Schema(description = "Estimated requests; never below the true number")
+    private final long count;
+    @Schema(description = "How much the estimate may exceed the true number")
+    private final long error;
+}
@@ -0,0 +1,21 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Latency of a method since start or the last reset, in microseconds")
+public class MethodLatencyDto {
+    @Schema(example = "BookService.getById(Long)")
+    private final String method;
+    private final long count;
+    @Schema(description = "Calls that ended with an exception")
+    private final long errors;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+}
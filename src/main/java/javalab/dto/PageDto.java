@@ -0,0 +1,17 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Page of a keyset-paginated listing")
+public class PageDto<T> {
+    private final List<T> items;
+
+    @Schema(description = "Pass as 'after' to get the next page; null on the last page",
+            example = "42")
+    private final Long next;
+}
@@ -0,0 +1,15 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+@Schema(description = "Visits within one minute or hour")
+public class PeriodCountDto {
+    @Schema(description = "Start of the period, server time", example = "2025-03-10T14:05:00")
+    private final LocalDateTime start;
+    private final long count;
+}
@@ -0,0 +1,29 @@
+package javalab.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**A user with their comments, as written by {@code GET /user/export}.*/
+@Getter
+@Schema(description = "Exported user with their comments")
+public class UserExportDto {
+    private final Long id;
+    private final String name;
+    private final List<Comment> comments;
+
+    public UserExportDto(Long id, String name, List<Comment> comments) {
+        this.id = id;
+        this.name = name;
+        this.comments = List.copyOf(comments);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Comment {
+        private final Long id;
+        private final Long bookId;
+        private final String text;
+    }
+}
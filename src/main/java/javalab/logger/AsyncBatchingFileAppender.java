@@ -0,0 +1,242 @@
+package javalab.logger;
+
+import ch.qos.logback.core.recovery.ResilientFileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import javalab.utility.RingBuffer;
+import lombok.Getter;
+import lombok.Setter;
+
+/**File appender that takes disk I/O off the logging threads.
+ *
+ * <p>Events are encoded on the calling thread and their bytes are put into a bounded
+ * {@link RingBuffer}. A single writer thread drains the buffer and writes everything
+ * available with one {@link FileChannel} write per batch. What happens when the buffer is
+ * full is set by {@code discardPolicy}; dropped events are counted. Retention of the parent
+ * appender keeps working, since each batch is written under the stream lock to the channel
+ * of the currently open file.</p>
+ *
+ * <p>Writing to the channel bypasses the recovery of {@link ResilientFileOutputStream}. When
+ * a channel write fails, the failure is reported to the stream, and batches go through
+ * {@code stream.write} until the stream has reopened the file. As with the stock file
+ * appender, the failed batch and those written before the reopen are lost.</p>*/
+public class AsyncBatchingFileAppender<E> extends SingleFileWithRetentionAppender<E> {
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**What {@code append} does when the ring buffer is full.*/
+    public enum DiscardPolicy {
+        /**Wait for the writer; nothing is lost, the caller is slowed down to disk speed.*/
+        BLOCK,
+        /**Drop the event being appended.*/
+        DROP_NEWEST,
+        /**Drop the oldest buffered event to make room.*/
+        DROP_OLDEST
+    }
+
+    /**Events the buffer holds; rounded up to a power of two.*/
+    @Setter
+    private int queueSize = 8192;
+    /**Upper bound of one channel write; larger events are written on their own.*/
+    @Setter
+    private int batchBytes = 256 * 1024;
+    /**How long {@code stop} waits for the writer to drain the buffer.*/
+    @Setter
+    private int maxFlushTimeMillis = 1000;
+    @Setter
+    @Getter
+    private DiscardPolicy discardPolicy = DiscardPolicy.BLOCK;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private RingBuffer<byte[]> buffer;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+    /**Channel whose write failed; batches go through the stream until it reopens the file.
+     * Guarded by the stream lock.*/
+    private FileChannel failedChannel;
+
+    @Override
+    public void start() {
+        buffer = new RingBuffer<>(queueSize);
+        running = true;
+        super.start();
+        if (!isStarted()) {
+            running = false;
+            return;
+        }
+        writer = new Thread(this::drain, "log-writer-" + getName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            super.stop();
+            return;
+        }
+        running = false;
+        Thread thread = writer;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(maxFlushTimeMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            addWarn("Writer did not drain " + buffer.size() + " events within "
+                    + maxFlushTimeMillis + " ms");
+        }
+        if (dropped.sum() > 0) {
+            addWarn("Dropped " + dropped.sum() + " of " + appended.sum()
+                    + " events because the buffer was full");
+        }
+        super.stop();
+    }
+
+    /**Encodes on the caller thread and hands the bytes to the writer.*/
+    @Override
+    protected void writeOut(E event) {
+        byte[] bytes = getEncoder().encode(event);
+        appended.increment();
+        if (!buffer.offer(bytes)) {
+            enqueueFull(bytes);
+        }
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void enqueueFull(byte[] bytes) {
+        switch (discardPolicy) {
+            case DROP_NEWEST -> dropped.increment();
+            case DROP_OLDEST -> {
+                // Another producer may take the freed slot first; then this event goes.
+                if (buffer.poll() != null) {
+                    dropped.increment();
+                }
+                if (!buffer.offer(bytes)) {
+                    dropped.increment();
+                }
+            }
+            case BLOCK -> {
+                while (!buffer.offer(bytes)) {
+                    if (!running) {
+                        dropped.increment();
+                        return;
+                    }
+                    LockSupport.unpark(writer);
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        ByteBuffer batch = ByteBuffer.allocateDirect(batchBytes);
+        byte[] pending = null;
+        while (true) {
+            boolean stopping = !running;
+            if (pending == null) {
+                pending = buffer.poll();
+            }
+            if (pending == null) {
+                if (stopping) {
+                    return;
+                }
+                writerParked = true;
+                // Re-check after publishing the flag, so a concurrent offer is not missed.
+                if (buffer.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+                continue;
+            }
+            batch.clear();
+            while (pending != null && pending.length <= batch.remaining()) {
+                batch.put(pending);
+                pending = buffer.poll();
+            }
+            if (batch.position() == 0) {
+                // An event bigger than a whole batch.
+                write(ByteBuffer.wrap(pending));
+                pending = null;
+            } else {
+                batch.flip();
+                write(batch);
+            }
+        }
+    }
+
+    private void write(ByteBuffer bytes) {
+        streamWriteLock.lock();
+        try {
+            OutputStream stream = getOutputStream();
+            if (stream instanceof ResilientFileOutputStream file) {
+                writeToFile(file, bytes);
+            } else if (stream != null) {
+                stream.write(copy(bytes));
+                stream.flush();
+            }
+            batches.increment();
+        } catch (IOException e) {
+            addError("Failed to write log batch", e);
+        } finally {
+            streamWriteLock.unlock();
+        }
+    }
+
+    private void writeToFile(ResilientFileOutputStream file, ByteBuffer bytes)
+            throws IOException {
+        FileChannel channel = file.getChannel();
+        if (channel == null || channel == failedChannel) {
+            // Not flushed: a flush of the empty buffer would count as a recovery.
+            file.write(copy(bytes));
+            return;
+        }
+        if (failedChannel != null) {
+            failedChannel = null;
+            // Reports the recovery.
+            file.flush();
+        }
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            failedChannel = channel;
+            file.postIOFailure(e);
+        }
+    }
+
+    private static byte[] copy(ByteBuffer bytes) {
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(copy);
+        return copy;
+    }
+
+    public long getAppendedCount() {
+        return appended.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getBatchCount() {
+        return batches.sum();
+    }
+
+    public int getQueuedCount() {
+        return buffer == null ? 0 : buffer.size();
+    }
+}
@@ -0,0 +1,316 @@
+package javalab.logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**Maps every hour of a time-ordered log file to the byte offset of its first line, so a
+ * date or hour range is read from its own bytes instead of a scan of the whole file.
+ *
+ * <p>The index is kept in a sidecar file next to the log and extended on every
+ * {@link #refresh()} by scanning only the bytes appended since the last one. It is rebuilt
+ * when the log got shorter or its first bytes changed, e.g. after retention rewrote it.
+ * Lines must start with {@code yyyy-MM-dd HH}; other lines (stack traces) belong to the
+ * hour of the line before them.</p>*/
+public class LogFileIndex {
+    private static final Logger LOGGER = Logger.getLogger(LogFileIndex.class.getName());
+    private static final String SIDECAR_SUFFIX = ".idx";
+    private static final String HEADER = "# log index v1";
+    private static final int HEAD_BYTES = 64;
+    private static final int SCAN_BUFFER = 1 << 20;
+    /**Length of {@code yyyy-MM-dd HH}.*/
+    private static final int HOUR_PREFIX = 13;
+
+    private final Path logFile;
+    private final Path sidecar;
+
+    /**Hour as {@code yyyyMMddHH} to the offset of its first line; keys only ever grow.*/
+    private TreeMap<Long, Long> hours = new TreeMap<>();
+    /**Bytes indexed so far; always the start of a line.*/
+    private long indexedLength;
+    private byte[] head = new byte[0];
+    private boolean loaded;
+
+    public LogFileIndex(Path logFile) {
+        this.logFile = logFile;
+        this.sidecar = logFile.resolveSibling(logFile.getFileName() + SIDECAR_SUFFIX);
+    }
+
+    /**Indexes the lines appended since the last call; returns the indexed length.*/
+    public synchronized long refresh() throws IOException {
+        if (!loaded) {
+            load();
+            loaded = true;
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            byte[] currentHead = readHead(channel, size);
+            if (size < indexedLength || !startsWith(currentHead, head)) {
+                LOGGER.info(() -> "Rebuilding log index of " + logFile);
+                hours = new TreeMap<>();
+                indexedLength = 0;
+            }
+            head = currentHead;
+            if (size > indexedLength) {
+                long before = indexedLength;
+                scan(channel, size);
+                if (indexedLength != before) {
+                    store();
+                }
+            }
+            return indexedLength;
+        }
+    }
+
+    /**Byte range {@code [start, end)} holding every line of the date.*/
+    public long[] range(LocalDate date) throws IOException {
+        return range(date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+    }
+
+    /**Byte range {@code [start, end)} holding every line from {@code from} inclusive to
+     * {@code to} exclusive, both truncated to the hour; may be empty.*/
+    public synchronized long[] range(LocalDateTime from, LocalDateTime to) throws IOException {
+        refresh();
+        long start = offsetOfFirstHourFrom(hourKey(from));
+        long end = offsetOfFirstHourFrom(hourKey(to));
+        return new long[]{start, Math.max(start, end)};
+    }
+
+    /**Offset of the first line of the hour of {@code time} or of a later hour; the indexed
+     * length if there is none.*/
+    public synchronized long offsetOf(LocalDateTime time) throws IOException {
+        refresh();
+        return offsetOfFirstHourFrom(hourKey(time));
+    }
+
+    /**Lines of the date, read from their byte range only.*/
+    public List<String> readLines(LocalDate date) throws IOException {
+        long[] range = range(date);
+        String prefix = date.toString();
+        List<String> lines = new ArrayList<>();
+        forEachLine(range[0], range[1], (line, end) -> {
+            if (line.startsWith(prefix)) {
+                lines.add(line);
+            }
+            return true;
+        });
+        return lines;
+    }
+
+    /**Receives the lines of a byte range in file order.*/
+    @FunctionalInterface
+    public interface LineConsumer {
+        /**{@code end} is the offset just past the line; returns false to stop reading.*/
+        boolean accept(String line, long end) throws IOException;
+    }
+
+    /**Reads the lines of {@code [start, end)} in chunks of positioned reads, so memory does
+     * not depend on the size of the range. Returns false if the consumer stopped early.*/
+    public boolean forEachLine(long start, long end, LineConsumer consumer) throws IOException {
+        int capacity = (int) Math.min(SCAN_BUFFER, Math.max(1, end - start));
+        ByteBuffer buffer = ByteBuffer.allocate(capacity);
+        byte[] bytes = buffer.array();
+        ByteArrayOutputStream longLine = new ByteArrayOutputStream();
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            long position = start;
+            while (position < end) {
+                buffer.clear();
+                buffer.limit((int) Math.min(bytes.length, end - position));
+                int read = channel.read(buffer, position);
+                if (read <= 0) {
+                    break;
+                }
+                int lineStart = 0;
+                for (int i = 0; i < read; i++) {
+                    if (bytes[i] == '\n') {
+                        String line = decode(longLine, bytes, lineStart, i);
+                        if (!consumer.accept(line, position + i + 1)) {
+                            return false;
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                // The rest of a line continues in the next chunk.
+                longLine.write(bytes, lineStart, read - lineStart);
+                position += read;
+            }
+            if (longLine.size() > 0) {
+                return consumer.accept(decode(longLine, bytes, 0, 0), position);
+            }
+        }
+        return true;
+    }
+
+    private static String decode(ByteArrayOutputStream carried, byte[] bytes, int from, int to) {
+        if (carried.size() == 0) {
+            return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+        carried.write(bytes, from, to - from);
+        String line = carried.toString(StandardCharsets.UTF_8);
+        carried.reset();
+        return line;
+    }
+
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    public synchronized long getIndexedLength() {
+        return indexedLength;
+    }
+
+    public synchronized int getHourCount() {
+        return hours.size();
+    }
+
+    private long offsetOfFirstHourFrom(long hourKey) {
+        Map.Entry<Long, Long> entry = hours.ceilingEntry(hourKey);
+        return entry == null ? indexedLength : entry.getValue();
+    }
+
+    private void scan(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER);
+        byte[] bytes = buffer.array();
+        long position = indexedLength;
+        // True while inside a line longer than the buffer, whose head was already seen.
+        boolean midLine = false;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            int lineStart = 0;
+            for (int i = 0; i < read; i++) {
+                if (bytes[i] == '\n') {
+                    if (!midLine) {
+                        indexLine(bytes, lineStart, i - lineStart, position + lineStart);
+                    }
+                    midLine = false;
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart > 0) {
+                position += lineStart;
+                indexedLength = position;
+            } else if (position + read < size) {
+                if (!midLine) {
+                    indexLine(bytes, 0, read, position);
+                }
+                midLine = true;
+                position += read;
+            } else {
+                // Trailing line still being written; it is indexed by a later refresh.
+                break;
+            }
+        }
+    }
+
+    private void indexLine(byte[] bytes, int offset, int length, long fileOffset) {
+        if (length < HOUR_PREFIX) {
+            return;
+        }
+        long key = 0;
+        for (int i = 0; i < HOUR_PREFIX; i++) {
+            byte b = bytes[offset + i];
+            if (i == 4 || i == 7) {
+                if (b != '-') {
+                    return;
+                }
+            } else if (i == 10) {
+                if (b != ' ') {
+                    return;
+                }
+            } else if (b >= '0' && b <= '9') {
+                key = key * 10 + (b - '0');
+            } else {
+                return;
+            }
+        }
+        if (hours.isEmpty() || key > hours.lastKey()) {
+            hours.put(key, fileOffset);
+        }
+    }
+
+    private static long hourKey(LocalDateTime time) {
+        return ((time.getYear() * 100L + time.getMonthValue()) * 100 + time.getDayOfMonth()) * 100
+                + time.getHour();
+    }
+
+    private static byte[] readHead(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(HEAD_BYTES, size));
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            read = channel.read(buffer, buffer.position());
+        }
+        return Arrays.copyOf(buffer.array(), buffer.position());
+    }
+
+    /**The stored head may be shorter than the current one if the file was tiny back then.*/
+    private static boolean startsWith(byte[] current, byte[] stored) {
+        return current.length >= stored.length
+                && Arrays.equals(current, 0, stored.length, stored, 0, stored.length);
+    }
+
+    private void load() {
+        try (BufferedReader reader = Files.newBufferedReader(sidecar, StandardCharsets.UTF_8)) {
+            if (!HEADER.equals(reader.readLine())) {
+                return;
+            }
+            long length = Long.parseLong(reader.readLine().substring("length=".length()));
+            byte[] storedHead = HexFormat.of()
+                    .parseHex(reader.readLine().substring("head=".length()));
+            TreeMap<Long, Long> storedHours = new TreeMap<>();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int space = line.indexOf(' ');
+                storedHours.put(Long.parseLong(line.substring(0, space)),
+                        Long.parseLong(line.substring(space + 1)));
+            }
+            hours = storedHours;
+            indexedLength = length;
+            head = storedHead;
+        } catch (NoSuchFileException e) {
+            // first run, the index is built from scratch
+        } catch (IOException | RuntimeException e) {
+            LOGGER.log(Level.WARNING, "Ignoring unreadable log index " + sidecar, e);
+        }
+    }
+
+    private void store() {
+        Path temp = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(HEADER + "\nlength=" + indexedLength
+                        + "\nhead=" + HexFormat.of().formatHex(head) + "\n");
+                for (Map.Entry<Long, Long> entry : hours.entrySet()) {
+                    writer.write(entry.getKey() + " " + entry.getValue() + "\n");
+                }
+            }
+            Files.move(temp, sidecar, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The in-memory index stays usable; it is rebuilt on the next start.
+            LOGGER.log(Level.WARNING, "Failed to store log index " + sidecar, e);
+        }
+    }
+}
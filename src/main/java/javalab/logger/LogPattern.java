@@ -0,0 +1,112 @@
+package javalab.logger;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**Parses lines written with a logback pattern layout back into their fields.
+ *
+ * <p>Supports the conversion words for date, level, logger, thread and message; any other
+ * conversion matches lazily and is ignored. Lines that do not match, such as stack trace
+ * lines, are continuations of the entry before them.</p>*/
+public final class LogPattern {
+    /**{@code %d{yyyy-MM-dd HH:mm:ss} [%level] %logger{36} - %msg%n} from logback-spring.xml.*/
+    public static final String DEFAULT = "%d{yyyy-MM-dd HH:mm:ss} [%level] %logger{36} - %msg%n";
+    private static final String ISO8601 = "yyyy-MM-dd HH:mm:ss,SSS";
+    private static final Pattern CONVERSION =
+            Pattern.compile("%-?\\d*(?:\\.-?\\d+)?([a-zA-Z]+)(?:\\{([^}]*)})?");
+
+    private final Pattern regex;
+    private final DateTimeFormatter timeFormat;
+    private final Set<String> groups;
+
+    private LogPattern(Pattern regex, DateTimeFormatter timeFormat, Set<String> groups) {
+        this.regex = regex;
+        this.timeFormat = timeFormat;
+        this.groups = groups;
+    }
+
+    public static LogPattern compile(String layout) {
+        StringBuilder regex = new StringBuilder("^");
+        Set<String> groups = new HashSet<>();
+        DateTimeFormatter timeFormat = null;
+        Matcher matcher = CONVERSION.matcher(layout);
+        int last = 0;
+        while (matcher.find()) {
+            appendLiteral(regex, layout.substring(last, matcher.start()));
+            last = matcher.end();
+            String option = matcher.group(2);
+            switch (matcher.group(1)) {
+                case "d", "date" -> {
+                    if (groups.add("time")) {
+                        timeFormat = DateTimeFormatter.ofPattern(option == null ? ISO8601 : option);
+                        regex.append("(?<time>.+?)");
+                    } else {
+                        regex.append(".+?");
+                    }
+                }
+                case "level", "le", "p" -> regex.append(group(groups, "level", "\\s*", "[A-Z]+"));
+                case "logger", "lo", "c" -> regex.append(group(groups, "logger", "", "\\S+"));
+                case "thread", "t" -> regex.append(group(groups, "thread", "", ".+?"));
+                case "msg", "m", "message" -> regex.append(group(groups, "message", "", ".*"));
+                case "n" -> {
+                    // the line break is not part of the line
+                }
+                default -> regex.append(".*?");
+            }
+        }
+        appendLiteral(regex, layout.substring(last));
+        return new LogPattern(Pattern.compile(regex.append('$').toString()), timeFormat, groups);
+    }
+
+    /**The fields of a first line of an entry, or null for a continuation line.*/
+    public Header parse(String line) {
+        Matcher matcher = regex.matcher(line);
+        if (!matcher.matches()) {
+            return null;
+        }
+        LocalDateTime time = null;
+        if (timeFormat != null) {
+            try {
+                time = LocalDateTime.parse(matcher.group("time"), timeFormat);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return new Header(time, field(matcher, "level"), field(matcher, "logger"),
+                field(matcher, "thread"), field(matcher, "message"));
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Header {
+        private final LocalDateTime time;
+        private final String level;
+        private final String logger;
+        private final String thread;
+        private final String message;
+    }
+
+    private String field(Matcher matcher, String name) {
+        return groups.contains(name) ? matcher.group(name) : null;
+    }
+
+    private static String group(Set<String> groups, String name, String padding, String body) {
+        if (!groups.add(name)) {
+            return padding + body + padding;
+        }
+        return padding + "(?<" + name + ">" + body + ")" + padding;
+    }
+
+    private static void appendLiteral(StringBuilder regex, String literal) {
+        if (!literal.isEmpty()) {
+            regex.append(Pattern.quote(literal));
+        }
+    }
+}
@@ -1,36 +1,178 @@
 package javalab.logger;
 
+import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.aspectj.lang.JoinPoint;
-import org.aspectj.lang.annotation.AfterReturning;
-import org.aspectj.lang.annotation.AfterThrowing;
+import javalab.config.MethodLoggingProperties;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+/**Logs calls of application beans, their results and their exceptions.
+ *
+ * <p>Everything is decided before any work on the call: the logger level first, then
+ * sampling, then the include/exclude rules, resolved once per method and cached. A call
+ * that is sampled off costs a level check and at most one random number. Results are rendered only
+ * when a handler formats the record, cut to {@code maxResultLength}; collections show their
+ * size and first elements, and entities or collections Hibernate has not loaded are shown
+ * as such instead of being loaded.</p>*/
 @Aspect
 @Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
 public class LoggerAspect {
 
     Logger logger = Logger.getLogger(getClass().getName());
 
-    @Before("execution(* javalab..*(..)) && !@annotation(javalab.logger.NoLogging)")
-    public void logBefore(JoinPoint joinPoint) {
-        logger.log(Level.INFO, "Executing: {0}", joinPoint.getSignature().toShortString());
+    private final MethodLoggingProperties properties;
+    private final Level level;
+    private final Map<Method, Target> targets = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LoggerAspect(MethodLoggingProperties properties) {
+        this.properties = properties;
+        this.level = Level.parse(properties.getLevel());
+    }
+
+    /**Public methods of application beans, except logging and configuration ones.*/
+    @Pointcut("execution(public * javalab..*(..)) && !@annotation(javalab.logger.NoLogging)"
+            + " && !within(javalab.logger..*) && !within(javalab.config..*)")
+    public void applicationMethods() {
+        // pointcut signature only
+    }
+
+    @Around("applicationMethods()")
+    public Object log(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (!logger.isLoggable(level)) {
+            return joinPoint.proceed();
+        }
+        boolean sampled = sample(properties.getSampleRate());
+        Target target = null;
+        if (sampled) {
+            target = target(joinPoint);
+            if (!target.included) {
+                return joinPoint.proceed();
+            }
+            logger.log(level, "Executing: {0}", target.name);
+        }
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable error) {
+            if (sampled || sample(properties.getErrorSampleRate())) {
+                Target failed = sampled ? target : target(joinPoint);
+                if (failed.included) {
+                    logger.log(level, "Exception in: {0} with cause: {1}",
+                            new Object[]{failed.name, error.getMessage()});
+                }
+            }
+            throw error;
+        }
+        if (sampled) {
+            logger.log(level, "Executed: {0} with result: {1}",
+                    new Object[]{target.name, new Rendered(result, properties)});
+        }
+        return result;
+    }
+
+    private Target target(ProceedingJoinPoint joinPoint) {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        return targets.computeIfAbsent(method, this::resolve);
+    }
+
+    private static boolean sample(double rate) {
+        return rate >= 1 || rate > 0 && ThreadLocalRandom.current().nextDouble() < rate;
     }
 
-    @AfterReturning(pointcut = "execution(* javalab..*(..)) && "
-            + "!@annotation(javalab.logger.NoLogging)", returning = "result")
-    public void logAfterReturning(JoinPoint joinPoint, Object result) {
-        logger.log(Level.INFO, "Executed: {0} with result: {1}",
-                new Object[]{joinPoint.getSignature().toShortString(), result});
+    private Target resolve(Method method) {
+        String className = method.getDeclaringClass().getName();
+        int included = longestPrefix(properties.getInclude(), className);
+        int excluded = longestPrefix(properties.getExclude(), className);
+        return new Target(included > excluded,
+                method.getDeclaringClass().getSimpleName() + "." + method.getName() + "(..)");
     }
 
-    @AfterThrowing(pointcut = "execution(* javalab..*(..)) &&"
-            + "!@annotation(javalab.logger.NoLogging)", throwing = "error")
-    public void logAfterThrowing(JoinPoint joinPoint, Throwable error) {
-        logger.log(Level.INFO, "Exception in: {0} with cause: {1}",
-                new Object[]{joinPoint.getSignature().toShortString(), error.getMessage()});
+    /**Length of the longest rule matching the class name as a package or class; -1 if none.*/
+    private static int longestPrefix(List<String> rules, String className) {
+        int longest = -1;
+        for (String rule : rules) {
+            boolean matches = className.equals(rule) || className.startsWith(rule)
+                    && (className.charAt(rule.length()) == '.'
+                    || className.charAt(rule.length()) == '$');
+            if (matches && rule.length() > longest) {
+                longest = rule.length();
+            }
+        }
+        return longest;
+    }
+
+    private static class Target {
+        private final boolean included;
+        private final String name;
+
+        Target(boolean included, String name) {
+            this.included = included;
+            this.name = name;
+        }
+    }
+
+    /**Renders the result when the record is formatted, not when it is logged.*/
+    private static class Rendered {
+        private final Object value;
+        private final int maxLength;
+        private final int maxElements;
+
+        Rendered(Object value, MethodLoggingProperties properties) {
+            this.value = value;
+            this.maxLength = properties.getMaxResultLength();
+            this.maxElements = properties.getMaxResultElements();
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            if (value instanceof Collection<?> collection && Hibernate.isInitialized(value)) {
+                out.append(value.getClass().getSimpleName())
+                        .append("(size=").append(collection.size()).append(")[");
+                Iterator<?> elements = collection.iterator();
+                for (int i = 0; elements.hasNext() && out.length() < maxLength; i++) {
+                    if (i == maxElements) {
+                        out.append(", ...");
+                        break;
+                    }
+                    String element = single(elements.next());
+                    out.append(i == 0 ? "" : ", ")
+                            .append(element, 0, Math.min(element.length(), maxLength));
+                }
+                out.append(']');
+            } else {
+                out.append(single(value));
+            }
+            if (out.length() > maxLength) {
+                int length = out.length();
+                out.setLength(maxLength);
+                out.append("... (").append(length).append(" chars)");
+            }
+            return out.toString();
+        }
+
+        private String single(Object element) {
+            if (element != null && !Hibernate.isInitialized(element)) {
+                return element.getClass().getSimpleName() + "(not loaded)";
+            }
+            return String.valueOf(element);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package javalab.logger;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javalab.service.MethodMetricsService;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**Times every method {@link LoggerAspect} covers into a per-method latency histogram.
+ * It runs inside the logging advice, so the time spent logging is not counted.*/
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class MethodMetricsAspect {
+    private final MethodMetricsService methodMetricsService;
+    /**Saves the call through the service proxy once a method is known.*/
+    private final Map<Method, MethodMetricsService.MethodStats> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MethodMetricsAspect(MethodMetricsService methodMetricsService) {
+        this.methodMetricsService = methodMetricsService;
+    }
+
+    @Around("javalab.logger.LoggerAspect.applicationMethods()")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        Method method = ((MethodSignature) joinPoint.getSignature()).getMethod();
+        MethodMetricsService.MethodStats methodStats = stats.get(method);
+        if (methodStats == null) {
+            methodStats = stats.computeIfAbsent(method, methodMetricsService::statsOf);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            methodStats.record(System.nanoTime() - start, failed);
+        }
+    }
+}
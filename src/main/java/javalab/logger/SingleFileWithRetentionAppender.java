@@ -1,53 +1,164 @@
 package javalab.logger;
 
 import ch.qos.logback.core.FileAppender;
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
-import java.util.List;
-import javalab.exception.NotFoundException;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import lombok.Setter;
 
-@Setter
+/**Appends to a single file and drops the entries older than {@code maxHistory} days.
+ *
+ * <p>The log is time-ordered, so old entries are always a prefix of the file. Retention
+ * streams over the file to find the first line that is recent enough and keeps only the
+ * bytes from there on: the kept part is copied to a temporary file without blocking the
+ * application, then the lines appended meanwhile are copied under the stream lock, the
+ * copy replaces the log and the appender reopens it. Memory does not depend on the size of
+ * the log. It runs in the background after start and then once a day.</p>*/
 public class SingleFileWithRetentionAppender<E> extends FileAppender<E> {
+    private static final int SCAN_BUFFER = 1 << 16;
+    /**Length of {@code yyyy-MM-dd}.*/
+    private static final int DATE_LENGTH = 10;
 
-    private static final int MAX_HISTORY = 7; // Хранение логов за 7 дней
+    /**Days to keep; set from {@code <maxHistory>}.*/
+    @Setter
+    private int maxHistory = 7;
+    private ScheduledExecutorService retentionExecutor;
 
     @Override
     public void start() {
         super.start();
-        cleanOldLogs();
+        if (!isStarted()) {
+            return;
+        }
+        retentionExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-retention");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retentionExecutor.scheduleAtFixedRate(this::applyRetention, 0, 1, TimeUnit.DAYS);
     }
 
-    private void cleanOldLogs() {
-        File logFile = new File(getFile());
-        if (!logFile.exists()) {
-            throw new NotFoundException("Log file not found");
+    @Override
+    public void stop() {
+        if (retentionExecutor != null) {
+            retentionExecutor.shutdownNow();
+            retentionExecutor = null;
         }
+        super.stop();
+    }
 
+    /**Drops the entries dated before {@code maxHistory} days ago from the head of the log.*/
+    public synchronized void applyRetention() {
+        Path path = Path.of(getFile());
+        if (!isStarted() || !Files.exists(path)) {
+            return;
+        }
         try {
-            Path path = Paths.get(getFile());
-            List<String> lines = Files.readAllLines(path);
-
-            LocalDate now = LocalDate.now();
-            List<String> filteredLines = lines.stream()
-                    .filter(line -> {
-                        try {
-                            String dateString = line.substring(0, 10); // "yyyy-MM-dd"
-                            LocalDate logDate = LocalDate.parse(dateString);
-                            return ChronoUnit.DAYS.between(logDate, now) <= MAX_HISTORY;
-                        } catch (Exception e) {
-                            return true;
-                        }
-                    })
-                    .toList();
-            Files.write(path, filteredLines);
+            long cutoff = findCutoff(path, LocalDate.now().minusDays(maxHistory));
+            if (cutoff > 0) {
+                dropPrefix(path, cutoff);
+                addInfo("Dropped " + cutoff + " bytes of logs older than " + maxHistory
+                        + " days from " + path);
+            }
         } catch (IOException e) {
             addError("Failed to clean old logs: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    /**Offset of the first line dated {@code keepFrom} or later; 0 if no line is older.
+     * Undated lines, such as stack traces, go with the entry before them.*/
+    private static long findCutoff(Path path, LocalDate keepFrom) throws IOException {
+        byte[] keepKey = keepFrom.toString().getBytes(StandardCharsets.US_ASCII);
+        byte[] buffer = new byte[SCAN_BUFFER];
+        byte[] prefix = new byte[DATE_LENGTH];
+        int filled = 0;
+        boolean atLineStart = true;
+        boolean sawOld = false;
+        long lineStart = 0;
+        long position = 0;
+        try (InputStream in = Files.newInputStream(path)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                for (int i = 0; i < read; i++) {
+                    byte b = buffer[i];
+                    if (b == '\n') {
+                        atLineStart = true;
+                        filled = 0;
+                        lineStart = position + i + 1;
+                    } else if (atLineStart) {
+                        prefix[filled++] = b;
+                        if (filled == DATE_LENGTH) {
+                            atLineStart = false;
+                            // ISO dates compare like their text.
+                            if (isDate(prefix)) {
+                                if (Arrays.compare(prefix, keepKey) >= 0) {
+                                    return sawOld ? lineStart : 0;
+                                }
+                                sawOld = true;
+                            }
+                        }
+                    }
+                }
+                position += read;
+            }
+        }
+        return sawOld ? position : 0;
+    }
+
+    private static boolean isDate(byte[] text) {
+        for (int i = 0; i < DATE_LENGTH; i++) {
+            boolean separator = i == 4 || i == 7;
+            if (separator ? text[i] != '-' : text[i] < '0' || text[i] > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void dropPrefix(Path path, long cutoff) throws IOException {
+        Path temp = path.resolveSibling(path.getFileName() + ".retention");
+        try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ)) {
+            FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            try {
+                long copied = copy(source, cutoff, target);
+                streamWriteLock.lock();
+                try {
+                    getOutputStream().flush();
+                    copy(source, copied, target);
+                    target.close();
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING,
+                            StandardCopyOption.ATOMIC_MOVE);
+                    openFile(getFile());
+                } finally {
+                    streamWriteLock.unlock();
+                }
+            } finally {
+                target.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**Appends the bytes of {@code source} from {@code from} to its current end; returns the
+     * offset copied up to.*/
+    private static long copy(FileChannel source, long from, FileChannel target)
+            throws IOException {
+        long end = source.size();
+        long position = from;
+        while (position < end) {
+            position += source.transferTo(position, end - position, target);
+        }
+        return end;
+    }
+}
@@ -0,0 +1,14 @@
+package javalab.mapper;
+
+import javalab.dto.AuthorDto;
+import javalab.model.Author;
+import javalab.model.Book;
+import org.springframework.stereotype.Component;
+
+@Component
+public class AuthorMapper {
+    public AuthorDto toDto(Author author) {
+        return new AuthorDto(author.getId(), author.getName(),
+                author.getBooks().stream().map(Book::getTitle).sorted().toList());
+    }
+}
@@ -8,10 +8,7 @@ import org.springframework.stereotype.Component;
 @Component
 public class BookMapper {
     public BookDto toDto(Book book) {
-        BookDto bookDto = new BookDto();
-        bookDto.setId(book.getId());
-        bookDto.setTitle(book.getTitle());
-        bookDto.setAuthors(book.getAuthors().stream().map(Author::getName).toList());
-        return bookDto;
+        return new BookDto(book.getId(), book.getTitle(), book.getPages(),
+                book.getAuthors().stream().map(Author::getName).sorted().toList());
     }
-}
\ No newline at end of file
+}
@@ -6,27 +6,15 @@ import javalab.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+/**Builds comments from requests. Listings are read straight into {@link CommentDto} by
+ * {@link javalab.repository.CommentRepository}.*/
 @Component
 public class CommentMapper {
     private final UserService userService;
-    private final UserMapper userMapper;
-    private final BookMapper bookMapper;
 
     @Autowired
-    public CommentMapper(UserService userService, UserMapper userMapper, BookMapper bookMapper) {
+    public CommentMapper(UserService userService) {
         this.userService = userService;
-        this.userMapper = userMapper;
-        this.bookMapper = bookMapper;
-    }
-
-    public CommentDto toDto(Comment comment) {
-        CommentDto commentDto = new CommentDto();
-        commentDto.setId(comment.getId());
-        commentDto.setText(comment.getText());
-        commentDto.setUserId(comment.getUser().getId());
-        commentDto.setUser(userMapper.toDto(comment.getUser()));
-        commentDto.setBook(bookMapper.toDto(comment.getBook()));
-        return commentDto;
     }
 
     public Comment toEntity(CommentDto commentDto) {
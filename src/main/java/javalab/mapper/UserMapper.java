@@ -1,22 +0,0 @@
-package javalab.mapper;
-
-import javalab.dto.UserDto;
-import javalab.model.User;
-import org.springframework.stereotype.Component;
-
-@Component
-public class UserMapper {
-    public UserDto toDto(User user) {
-        UserDto userDto = new UserDto();
-        userDto.setId(user.getId());
-        userDto.setName(user.getName());
-        return userDto;
-    }
-
-    public User toEntity(UserDto userDto) {
-        User user = new User();
-        user.setId(userDto.getId());
-        user.setName(userDto.getName());
-        return user;
-    }
-}
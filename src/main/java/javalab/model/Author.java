@@ -7,18 +7,21 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
 
 @Entity
 @Setter
@@ -26,7 +29,7 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "Model of author")
-@Table(name = "authors")
+@Table(name = "authors", indexes = @Index(name = "idx_authors_name", columnList = "name"))
 public class Author {
 
     @NotBlank(message = "Name shouldn't be empty")
@@ -37,14 +40,15 @@ public class Author {
     private String name;
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "authors_seq")
+    @SequenceGenerator(name = "authors_seq", sequenceName = "authors_seq", allocationSize = 50)
     @Schema(description = "Identifier of the author", example = "1")
     private Long id;
 
     @ManyToMany(mappedBy = "authors", fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"authors", "comments"})
     @Schema(description = "List of the books of the author")
-    private List<Book> books = new ArrayList<>();
+    private Set<Book> books = new HashSet<>();
 
 
     public Author(String name) {
@@ -59,20 +63,21 @@ public class Author {
         books.remove(book);
     }
 
+    // Same identity as Book: by id, with proxies equal to the loaded author.
     @Override
     public boolean equals(Object o) {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
             return false;
         }
         Author that = (Author) o;
-        return  this.id.equals(that.id);
+        return id != null && id.equals(that.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Objects.hashCode(id);
     }
 }
\ No newline at end of file
@@ -1,28 +1,37 @@
 package javalab.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Setter
@@ -30,12 +39,17 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "Model of book")
-@Table(name = "books")
+@Table(name = "books",
+        indexes = {
+            @Index(name = "idx_books_comment_count", columnList = "comment_count"),
+            @Index(name = "idx_books_title", columnList = "title")
+        })
 public class Book {
 
     @Schema(description = "Identifier of the book", example = "1")
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @Schema(description = "Title of a book", example = "Blood, sweat and pixels")
@@ -48,23 +62,31 @@ public class Book {
     @Schema(description = "Number of pages of a book", example = "15")
     private int pages;
 
+    // Written only by the bulk updates of CommentCountService, never from the entity.
+    @Schema(description = "Number of comments on the book", example = "3")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long commentCount;
+
     @Schema(description = "List of authors of the book")
     @ManyToMany(cascade = {CascadeType.PERSIST, CascadeType.MERGE}, fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"books"})
     @JoinTable(
             name = "book_author",
             joinColumns = @JoinColumn(name = "book_id"),
-            inverseJoinColumns = @JoinColumn(name = "author_id")
+            inverseJoinColumns = @JoinColumn(name = "author_id"),
+            indexes = @Index(name = "idx_book_author_author_id", columnList = "author_id")
     )
-    private List<Author> authors = new ArrayList<>();
+    private Set<Author> authors = new HashSet<>();
 
     @OneToMany(mappedBy = "book", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"book", "user"})
     private List<Comment> comments = new ArrayList<>();
 
-    public Book(String title, final List<Author> authors, int pages) {
+    public Book(String title, final Collection<Author> authors, int pages) {
         this.title = title;
-        this.authors = authors;
+        this.authors = new HashSet<>(authors);
         this.pages = pages;
     }
 
@@ -81,20 +103,23 @@ public class Book {
         comments.add(comment);
     }
 
+    // Equal by id, so a lazy proxy equals the loaded book; a book not persisted yet equals
+    // only itself. The hash comes from the id, which is assigned on persist, so a new book
+    // should not be looked up in a set it was added to before it was persisted.
     @Override
     public boolean equals(Object o) {
         if (this == o) {
             return true;
         }
-        if (o == null || getClass() != o.getClass()) {
+        if (o == null || Hibernate.getClassLazy(this) != Hibernate.getClassLazy(o)) {
             return false;
         }
         Book that = (Book) o;
-        return  this.id.equals(that.id);
+        return id != null && id.equals(that.getId());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id);
+        return Objects.hashCode(id);
     }
 }
\ No newline at end of file
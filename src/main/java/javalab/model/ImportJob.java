@@ -0,0 +1,87 @@
+package javalab.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javalab.exception.BadRequestException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+/**A catalogue import. Counters are written by the one thread running the import and read
+ * by status requests, so they are volatile.*/
+@Getter
+@Setter
+public class ImportJob {
+    public enum Status {
+        QUEUED,
+        IN_PROGRESS,
+        SUCCESS,
+        FAILURE,
+    }
+
+    public enum Format {
+        CSV,
+        NDJSON;
+
+        public static Format ofFileName(String name) {
+            String lower = name.toLowerCase();
+            if (lower.endsWith(".csv")) {
+                return CSV;
+            }
+            if (lower.endsWith(".ndjson") || lower.endsWith(".jsonl")) {
+                return NDJSON;
+            }
+            throw new BadRequestException("Import files should end with .csv, .ndjson or .jsonl: "
+                    + name);
+        }
+    }
+
+    private final Long id;
+    private final Format format;
+    private volatile Status status = Status.QUEUED;
+    /**Share of the file's bytes read, in percent.*/
+    private volatile int progress;
+    private volatile long linesRead;
+    private volatile long booksImported;
+    private volatile long authorsCreated;
+    private volatile long commentsImported;
+    private volatile long failedLines;
+    /**Why the whole import failed, if it did.*/
+    private volatile String message;
+    /**The first {@code maxErrors} failed lines with the reason.*/
+    private final List<LineError> errors = new CopyOnWriteArrayList<>();
+    @JsonIgnore
+    private final int maxErrors;
+
+    public ImportJob(Long id, Format format, int maxErrors) {
+        this.id = id;
+        this.format = format;
+        this.maxErrors = maxErrors;
+    }
+
+    public void reject(long line, String reason) {
+        failedLines++;
+        if (errors.size() < maxErrors) {
+            errors.add(new LineError(line, reason));
+        }
+    }
+
+    public void imported(long books, long authors, long comments) {
+        booksImported += books;
+        authorsCreated += authors;
+        commentsImported += comments;
+    }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCESS || status == Status.FAILURE;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class LineError {
+        private final long line;
+        private final String message;
+    }
+}
@@ -1,25 +1,48 @@
 package javalab.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import java.nio.file.Path;
 import lombok.Getter;
 import lombok.Setter;
 
+/**A log extraction job. Once it succeeded its lines are in {@link #file}; only this metadata
+ * is cached. Status and progress are written by the worker and read by status requests, so
+ * they are volatile.*/
 @Getter
 @Setter
 public class Log {
     public enum Status {
+        QUEUED,
         IN_PROGRESS,
         SUCCESS,
         FAILURE,
+        CANCELLED,
     }
 
     private Long id;
-    private Status status;
+    private volatile Status status;
     private String date;
-    private String body;
+    /**Extracted lines; set when the job succeeded.*/
+    @JsonIgnore
+    private Path file;
+    /**Size of the extracted lines in bytes.*/
+    private long size;
+    /**Jobs with a higher priority run first.*/
+    private int priority;
+    /**Share of the date's bytes processed, in percent.*/
+    private volatile int progress;
+    @JsonIgnore
+    private volatile boolean cancelRequested;
 
     public Log(Long id, Status status, String date) {
         this.id = id;
         this.status = status;
         this.date = date;
     }
+
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.SUCCESS || status == Status.FAILURE
+                || status == Status.CANCELLED;
+    }
 }
@@ -1,14 +1,18 @@
 package javalab.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -18,6 +22,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 @Entity
 @Setter
@@ -25,12 +30,14 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Schema(description = "Model of user")
-@Table(name = "users")
+@Table(name = "users",
+        indexes = @Index(name = "idx_users_comment_count", columnList = "comment_count"))
 public class User {
 
     @Schema(description = "Identifier of the user", example = "1")
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Schema(description = "Name of the user", example = "John")
@@ -38,6 +45,13 @@ public class User {
     @Size(min = 1, max = 255, message = "Text must be between 1 and 255 characters")
     private String name;
 
+    // Written only by the bulk updates of CommentCountService, never from the entity.
+    @Schema(description = "Number of comments left by the user", example = "3")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "comment_count", nullable = false, insertable = false, updatable = false)
+    @ColumnDefault("0")
+    private long commentCount;
+
     @Schema(description = "Comment left by the user")
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnoreProperties({"user", "book"})
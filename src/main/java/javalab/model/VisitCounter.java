@@ -0,0 +1,32 @@
+package javalab.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Setter
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Persisted total of a visit counter")
+@Table(name = "visit_counters")
+public class VisitCounter {
+    /**Length of the key column; {@code visit-counters.max-key-length} cannot exceed it.*/
+    public static final int KEY_LENGTH = 100;
+
+    @Schema(description = "Name of the counter", example = "visits")
+    @Id
+    @Column(name = "counter_key", length = KEY_LENGTH)
+    private String key;
+
+    @Schema(description = "Visits counted up to the last flush", example = "42")
+    @Column(nullable = false)
+    private long total;
+}
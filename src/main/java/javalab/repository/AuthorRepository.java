@@ -1,11 +1,47 @@
 package javalab.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import javalab.model.Author;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
     Optional<Author> findByName(String name);
+
+    List<Author> findByNameIn(Collection<String> names);
+
+    @EntityGraph(attributePaths = "books")
+    Optional<Author> findWithBooksById(Long id);
+
+    List<Author> findByIdGreaterThan(Long id, Pageable pageable);
+
+    List<Author> findByIdLessThan(Long id, Pageable pageable);
+
+    /**Initializes the books of already loaded authors in one query.
+     * Only useful inside the transaction that loaded them; the result can be ignored.*/
+    @Query("SELECT DISTINCT a FROM Author a LEFT JOIN FETCH a.books WHERE a.id IN :ids")
+    List<Author> fetchBooksByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**Rows of {@code name, id} of every author. Must be consumed and closed inside a
+     * transaction.*/
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.name, a.id FROM Author a")
+    Stream<Object[]> streamNamesAndIds();
+
+    /**One row per author and book ({@code id, name, bookTitle}), ordered by author id.
+     * Must be consumed and closed inside a transaction.*/
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT a.id, a.name, b.title FROM Author a LEFT JOIN a.books b ORDER BY a.id")
+    Stream<Object[]> streamExportRows();
 }
\ No newline at end of file
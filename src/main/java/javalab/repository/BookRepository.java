@@ -1,27 +1,130 @@
 package javalab.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import javalab.model.Book;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
-    @Query("SELECT b FROM Book b WHERE SIZE(b.comments) >= :commentCount")
-    List<Book> findByCommentCount(@Param("commentCount") Long commentCount);
+    // The listings below never fetch collections, so limits are applied in SQL; the caller
+    // initializes authors and comments of the whole result with the fetch queries.
+    @Query("SELECT b FROM Book b")
+    List<Book> findAllBooks(Pageable pageable);
 
-    @Query("SELECT b FROM Book b JOIN b.authors a WHERE a.name = :authorName")
-    List<Book> findByAuthor(@Param("authorName") String authorName);
+    List<Book> findByIdGreaterThan(Long id, Pageable pageable);
 
-    @Query("SELECT b FROM Book b JOIN b.authors a WHERE a.name = :authorName "
-            + "AND SIZE(b.comments) >= :commentCount")
+    List<Book> findByIdLessThan(Long id, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE b.commentCount >= :commentCount")
+    List<Book> findByCommentCount(@Param("commentCount") Long commentCount, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE :authorName IN (SELECT a.name FROM b.authors a)")
+    List<Book> findByAuthor(@Param("authorName") String authorName, Pageable pageable);
+
+    @Query("SELECT b FROM Book b WHERE :authorName IN (SELECT a.name FROM b.authors a) "
+            + "AND b.commentCount >= :commentCount")
     List<Book> findByAuthorNameAndCommentCount(
             @Param("authorName") String authorName,
-            @Param("commentCount") Long commentCount);
+            @Param("commentCount") Long commentCount,
+            Pageable pageable);
+
+    /**Initializes the authors of already loaded books in one query.
+     * Only useful inside the transaction that loaded them; the result can be ignored.*/
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.authors WHERE b.id IN :ids")
+    List<Book> fetchAuthorsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**Initializes the comments of already loaded books in one query.
+     * Only useful inside the transaction that loaded them; the result can be ignored.*/
+    @Query("SELECT DISTINCT b FROM Book b LEFT JOIN FETCH b.comments WHERE b.id IN :ids")
+    List<Book> fetchCommentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**One row per book and author ({@code id, title, pages, authorName}), ordered by book id.
+     * Must be consumed and closed inside a transaction.*/
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT b.id, b.title, b.pages, a.name FROM Book b LEFT JOIN b.authors a "
+            + "ORDER BY b.id")
+    Stream<Object[]> streamExportRows();
 
     Optional<Book> findByTitle(String title);
-}
\ No newline at end of file
+
+    List<Book> findByTitleIn(Collection<String> titles);
+
+    @Query("SELECT b.title FROM Book b WHERE b.title IN :titles")
+    List<String> findTitlesByTitleIn(@Param("titles") Collection<String> titles);
+
+    @EntityGraph(attributePaths = "authors")
+    Optional<Book> findWithAuthorsById(Long id);
+
+    @Query("SELECT b.id FROM Book b JOIN b.authors a WHERE a.id = :authorId")
+    List<Long> findIdsByAuthorId(@Param("authorId") Long authorId);
+
+    /**Rows of {@code authorId, bookId} for every book of the given authors.*/
+    @Query("SELECT a.id, b.id FROM Book b JOIN b.authors a WHERE a.id IN :authorIds")
+    List<Object[]> findIdsByAuthorIdIn(@Param("authorIds") Collection<Long> authorIds);
+
+    /**Rows of {@code bookId, authorId} for those of the given books that exist; the author id
+     * is null when the book is not linked to the author.*/
+    @Query("SELECT b.id, a.id FROM Book b LEFT JOIN b.authors a ON a.id = :authorId "
+            + "WHERE b.id IN :bookIds")
+    List<Object[]> findLinksToAuthor(@Param("authorId") Long authorId,
+                                     @Param("bookIds") Collection<Long> bookIds);
+
+    /**Inserts the missing {@code book_author} rows between the author and the given books,
+     * without loading either side.*/
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO book_author (book_id, author_id) "
+            + "SELECT b.id, :authorId FROM books b WHERE b.id IN :bookIds AND NOT EXISTS "
+            + "(SELECT 1 FROM book_author l WHERE l.book_id = b.id AND l.author_id = :authorId)",
+            nativeQuery = true)
+    int linkAuthor(@Param("authorId") Long authorId, @Param("bookIds") Collection<Long> bookIds);
+
+    /**Deletes the {@code book_author} rows between the author and the given books.*/
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM book_author WHERE author_id = :authorId AND book_id IN :bookIds",
+            nativeQuery = true)
+    int unlinkAuthor(@Param("authorId") Long authorId, @Param("bookIds") Collection<Long> bookIds);
+
+    /**Deletes every {@code book_author} row of the author. Books already loaded keep the
+     * author in memory, so call it only before deleting the author.*/
+    @Modifying(flushAutomatically = true)
+    @Query(value = "DELETE FROM book_author WHERE author_id = :authorId", nativeQuery = true)
+    int unlinkAuthorFromAll(@Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("UPDATE Book b SET b.commentCount = b.commentCount + :delta WHERE b.id = :id")
+    int addToCommentCount(@Param("id") Long id, @Param("delta") long delta);
+
+    /**Takes the comments of one user off the counters, before those comments are deleted.*/
+    @Modifying
+    @Query("UPDATE Book b SET b.commentCount = b.commentCount "
+            + "- (SELECT COUNT(c) FROM Comment c WHERE c.book = b AND c.user.id = :userId) "
+            + "WHERE b.id IN (SELECT c.book.id FROM Comment c WHERE c.user.id = :userId)")
+    int subtractCommentsOfUser(@Param("userId") Long userId);
+
+    /**Rewrites the counters that differ from the actual number of comments.*/
+    @Modifying
+    @Query("UPDATE Book b SET b.commentCount = (SELECT COUNT(c) FROM Comment c WHERE c.book = b) "
+            + "WHERE b.commentCount <> (SELECT COUNT(c) FROM Comment c WHERE c.book = b)")
+    int recountComments();
+
+    /**Rows of {@code id, storedCount, actualCount} for the counters that are wrong.*/
+    @Query("SELECT b.id, b.commentCount, (SELECT COUNT(c) FROM Comment c WHERE c.book = b) "
+            + "FROM Book b "
+            + "WHERE b.commentCount <> (SELECT COUNT(c) FROM Comment c WHERE c.book = b) "
+            + "ORDER BY b.id")
+    List<Object[]> findCommentCountMismatches(Limit limit);
+}
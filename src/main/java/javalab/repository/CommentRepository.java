@@ -1,8 +1,34 @@
 package javalab.repository;
 
+import java.util.List;
+import javalab.dto.CommentDto;
 import javalab.model.Comment;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface CommentRepository extends JpaRepository<Comment, Long> {}
\ No newline at end of file
+public interface CommentRepository extends JpaRepository<Comment, Long> {
+    // Read model of the listings: one row per comment with the columns of its user and book,
+    // so a page is one join query and no entity is loaded.
+    String DTO_QUERY = "SELECT new javalab.dto.CommentDto(c.id, c.text, u.id, u.name, "
+            + "b.id, b.title, b.pages) FROM Comment c JOIN c.book b LEFT JOIN c.user u ";
+
+    @Query(DTO_QUERY + "WHERE b.id = :bookId AND c.id > :id")
+    List<CommentDto> findDtosByBookIdAndIdGreaterThan(@Param("bookId") Long bookId,
+                                                      @Param("id") Long id, Pageable pageable);
+
+    @Query(DTO_QUERY + "WHERE b.id = :bookId AND c.id < :id")
+    List<CommentDto> findDtosByBookIdAndIdLessThan(@Param("bookId") Long bookId,
+                                                   @Param("id") Long id, Pageable pageable);
+
+    @Query(DTO_QUERY + "WHERE u.id = :userId AND c.id > :id")
+    List<CommentDto> findDtosByUserIdAndIdGreaterThan(@Param("userId") Long userId,
+                                                      @Param("id") Long id, Pageable pageable);
+
+    @Query(DTO_QUERY + "WHERE u.id = :userId AND c.id < :id")
+    List<CommentDto> findDtosByUserIdAndIdLessThan(@Param("userId") Long userId,
+                                                   @Param("id") Long id, Pageable pageable);
+}
@@ -1,9 +1,17 @@
 package javalab.repository;
 
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 import javalab.model.User;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -11,8 +19,52 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
-    @Query(value = "SELECT u.* FROM users u "
-            + "WHERE (SELECT COUNT(c.id) FROM comments c WHERE c.user_id = u.id) "
-            + ">= :commentCountMin", nativeQuery = true)
-    List<User> findByCommentCount(@Param("commentCount") Long commentCount);
-}
\ No newline at end of file
+    @Query("SELECT u FROM User u WHERE u.commentCount >= :commentCount")
+    List<User> findByCommentCount(@Param("commentCount") Long commentCount, Pageable pageable);
+
+    @Query("SELECT u FROM User u")
+    List<User> findAllUsers(Pageable pageable);
+
+    List<User> findByIdGreaterThan(Long id, Pageable pageable);
+
+    List<User> findByIdLessThan(Long id, Pageable pageable);
+
+    @Query("SELECT u.id FROM User u WHERE u.id IN :ids")
+    List<Long> findIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**Initializes the comments of already loaded users in one query.
+     * Only useful inside the transaction that loaded them; the result can be ignored.*/
+    @Query("SELECT DISTINCT u FROM User u LEFT JOIN FETCH u.comments WHERE u.id IN :ids")
+    List<User> fetchCommentsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**One row per user and comment ({@code id, name, commentId, bookId, text}), ordered by
+     * user id. Must be consumed and closed inside a transaction.*/
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT u.id, u.name, c.id, c.book.id, c.text FROM User u LEFT JOIN u.comments c "
+            + "ORDER BY u.id")
+    Stream<Object[]> streamExportRows();
+
+    @Modifying
+    @Query("UPDATE User u SET u.commentCount = u.commentCount + :delta WHERE u.id = :id")
+    int addToCommentCount(@Param("id") Long id, @Param("delta") long delta);
+
+    /**Takes the comments of one book off the counters, before those comments are deleted.*/
+    @Modifying
+    @Query("UPDATE User u SET u.commentCount = u.commentCount "
+            + "- (SELECT COUNT(c) FROM Comment c WHERE c.user = u AND c.book.id = :bookId) "
+            + "WHERE u.id IN (SELECT c.user.id FROM Comment c WHERE c.book.id = :bookId)")
+    int subtractCommentsOfBook(@Param("bookId") Long bookId);
+
+    /**Rewrites the counters that differ from the actual number of comments.*/
+    @Modifying
+    @Query("UPDATE User u SET u.commentCount = (SELECT COUNT(c) FROM Comment c WHERE c.user = u) "
+            + "WHERE u.commentCount <> (SELECT COUNT(c) FROM Comment c WHERE c.user = u)")
+    int recountComments();
+
+    /**Rows of {@code id, storedCount, actualCount} for the counters that are wrong.*/
+    @Query("SELECT u.id, u.commentCount, (SELECT COUNT(c) FROM Comment c WHERE c.user = u) "
+            + "FROM User u "
+            + "WHERE u.commentCount <> (SELECT COUNT(c) FROM Comment c WHERE c.user = u) "
+            + "ORDER BY u.id")
+    List<Object[]> findCommentCountMismatches(Limit limit);
+}
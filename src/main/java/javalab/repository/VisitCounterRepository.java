@@ -0,0 +1,25 @@
+package javalab.repository;
+
+import javalab.model.VisitCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VisitCounterRepository extends JpaRepository<VisitCounter, String> {
+
+    /**Adds in the database, so concurrent flushes cannot lose increments; 0 if the counter
+     * has no row yet.*/
+    @Modifying
+    @Query("UPDATE VisitCounter v SET v.total = v.total + :delta WHERE v.key = :key")
+    int addToTotal(@Param("key") String key, @Param("delta") long delta);
+
+    /**Creates the row of a new counter; 0 if it exists already.*/
+    @Modifying
+    @Query(value = "INSERT INTO visit_counters (counter_key, total) SELECT :key, :total "
+            + "WHERE NOT EXISTS (SELECT 1 FROM visit_counters WHERE counter_key = :key)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("key") String key, @Param("total") long total);
+}
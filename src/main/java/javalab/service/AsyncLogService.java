@@ -1,87 +1,150 @@
 package javalab.service;
 
-import java.io.BufferedReader;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
-import java.util.List;
-import javalab.config.CacheHolder;
+import java.util.function.LongPredicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import javalab.exception.BadRequestException;
 import javalab.exception.InternalException;
-import javalab.exception.NotFoundException;
+import javalab.logger.LogFileIndex;
 import javalab.logger.NoLogging;
 import javalab.model.Log;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+/**Extracts the lines of one date from the application log into a file of their own. Runs on
+ * the workers of {@link LogJobScheduler}. Each instance keeps its extracts in a directory of
+ * its own, so purging never touches the files of another instance on the same host.*/
 @Service
 public class AsyncLogService {
-    static final String LOG_FILE_PATH = "logs/app.log";
+    private static final Logger LOGGER = Logger.getLogger(AsyncLogService.class.getName());
+    private static final String EXTRACT_SUFFIX = ".log";
     private final File logFile;
-    private final CacheHolder cacheHolder;
+    private final LogFileIndex logFileIndex;
+    private final Path extractDir;
     static final DateTimeFormatter LOG_DATE_FORMATTER
             = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
     @Autowired
-    public AsyncLogService(CacheHolder cacheHolder) {
-        this.cacheHolder = cacheHolder;
-        this.logFile = new File(LOG_FILE_PATH);
+    public AsyncLogService(LogFileIndex logFileIndex) throws IOException {
+        this(logFileIndex, Files.createTempDirectory("javalab-log-extracts-"));
     }
 
+    public AsyncLogService(LogFileIndex logFileIndex, Path extractDir) {
+        this.logFile = logFileIndex.getLogFile().toFile();
+        this.logFileIndex = logFileIndex;
+        this.extractDir = extractDir;
+    }
 
-    @SuppressWarnings("checkstyle:CatchParameterName")
-    @Async("taskExecutor")
-    public void createLogs(Long taskId, String date) {
+    /**Writes the job's lines to its extract file and sets its final status; reports progress
+     * while reading and stops early once cancellation is requested.*/
+    @NoLogging
+    public void createLogs(Log log) {
+        if (!logFile.exists()) {
+            LOGGER.warning(() -> "Not found log file at " + logFile.getPath());
+            log.setStatus(Log.Status.FAILURE);
+            return;
+        }
+        LocalDate date = parseDate(log.getDate());
+        String prefix = date.toString();
+        Path extract = extractDir.resolve(log.getId() + "-" + prefix + EXTRACT_SUFFIX);
+        long[] lines = new long[1];
+        boolean completed;
         try {
-            Thread.sleep(10000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            Files.createDirectories(extractDir);
+            long[] range = logFileIndex.range(date);
+            long length = range[1] - range[0];
+            try (BufferedWriter writer = Files.newBufferedWriter(extract, StandardCharsets.UTF_8)) {
+                completed = logFileIndex.forEachLine(range[0], range[1], (line, end) -> {
+                    if (log.isCancelRequested()) {
+                        return false;
+                    }
+                    if (line.startsWith(prefix)) {
+                        writer.write(line);
+                        writer.write('\n');
+                        lines[0]++;
+                    }
+                    log.setProgress((int) ((end - range[0]) * 100 / length));
+                    return true;
+                });
+            }
+        } catch (IOException e) {
+            delete(extract);
+            throw new InternalException("Error filtering logs : " + e.getMessage());
         }
 
-        Log log = new Log(taskId, Log.Status.FAILURE, date);
-        cacheHolder.getLogFileCache().put(taskId, log);
-
-        if (!logFile.exists()) {
-            cacheHolder.getLogFileCache().put(taskId, log);
-            throw new NotFoundException("Not found log file at " + logFile.getPath());
+        if (!completed || lines[0] == 0) {
+            delete(extract);
+            if (completed) {
+                LOGGER.info(() -> "No logs found for " + log.getDate());
+            }
+            log.setStatus(completed ? Log.Status.FAILURE : Log.Status.CANCELLED);
+            return;
         }
+        log.setProgress(100);
+        log.setFile(extract);
+        log.setSize(extract.toFile().length());
+        log.setStatus(Log.Status.SUCCESS);
+    }
 
-        List<String> filteredLogs = filterLogsByDate(logFile, date);
-        if (filteredLogs.isEmpty()) {
-            cacheHolder.getLogFileCache().put(taskId, log);
-            throw new NotFoundException("No logs found for " + date);
+    /**Deletes the extract files of the jobs that {@code keep} rejects.*/
+    public void purgeExtracts(LongPredicate keep) {
+        if (!Files.isDirectory(extractDir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(extractDir,
+                "*" + EXTRACT_SUFFIX)) {
+            for (Path file : files) {
+                long id = jobId(file.getFileName().toString());
+                if (id < 0 || !keep.test(id)) {
+                    delete(file);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to purge log extracts in " + extractDir, e);
         }
+    }
 
-        log.setStatus(Log.Status.SUCCESS);
-        log.setBody(String.join("\n", filteredLogs));
-        cacheHolder.getLogFileCache().put(taskId, log);
+    /**Deletes every extract and the directory, once no job can be downloaded any more.*/
+    @PreDestroy
+    public void close() {
+        purgeExtracts(id -> false);
+        delete(extractDir);
     }
 
-    @NoLogging
-    public List<String> filterLogsByDate(File logFile, String date) {
-        List<String> filteredLogs = new ArrayList<>();
-        LocalDate targetDate;
+    static LocalDate parseDate(String date) {
         try {
-            targetDate = LocalDate.parse(date, LOG_DATE_FORMATTER);
+            return LocalDate.parse(date, LOG_DATE_FORMATTER);
         } catch (DateTimeParseException e) {
             throw new BadRequestException(e.getMessage());
         }
-        try (BufferedReader reader = new BufferedReader(new FileReader(logFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (line.startsWith(targetDate.toString())) {
-                    filteredLogs.add(line);
-                }
-            }
-        } catch (IOException e) {
-            throw new InternalException("Error filtering logs : " + e.getMessage());
+    }
+
+    /**Job id from an extract file name, or -1 for a foreign file.*/
+    private static long jobId(String name) {
+        int dash = name.indexOf('-');
+        try {
+            return dash > 0 ? Long.parseLong(name.substring(0, dash)) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
         }
+    }
 
-        return filteredLogs;
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Failed to delete " + file, e);
+        }
     }
 }
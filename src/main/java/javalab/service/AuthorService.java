@@ -1,38 +1,62 @@
 package javalab.service;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javalab.config.CacheHolder;
+import javalab.dto.AuthorDto;
+import javalab.dto.BookLinksDto;
+import javalab.dto.PageDto;
 import javalab.exception.BadRequestException;
 import javalab.exception.ConflictException;
 import javalab.exception.NotFoundException;
+import javalab.mapper.AuthorMapper;
 import javalab.model.Author;
-import javalab.model.Book;
 import javalab.repository.AuthorRepository;
 import javalab.repository.BookRepository;
-import javalab.utility.Resource;
+import javalab.utility.Tools;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class AuthorService {
     public static final String AUTHOR_ID_NOT_FOUND = "Author id not found: ";
-
-    Logger logger = Logger.getLogger(getClass().getName());
+    /**Ids per IN list when fetching associations of many authors.*/
+    private static final int FETCH_CHUNK_SIZE = 1000;
 
     private final AuthorRepository authorRepository;
     private final BookRepository bookRepository;
+    private final AuthorMapper authorMapper;
     private final CacheHolder cacheHolder;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final PaginationService paginationService;
+    private final BulkService bulkService;
 
     @Autowired
     public AuthorService(AuthorRepository authorRepository,
                          BookRepository bookRepository,
-                         CacheHolder cacheHolder) {
+                         AuthorMapper authorMapper,
+                         CacheHolder cacheHolder,
+                         CacheInvalidationService cacheInvalidationService,
+                         PaginationService paginationService,
+                         BulkService bulkService) {
         this.authorRepository = authorRepository;
         this.bookRepository = bookRepository;
+        this.authorMapper = authorMapper;
         this.cacheHolder = cacheHolder;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.paginationService = paginationService;
+        this.bulkService = bulkService;
     }
 
     public Optional<Long> findAuthorByName(String name) {
@@ -43,28 +67,50 @@ public class AuthorService {
                 .map(Author::getId);
     }
 
-    public Author getById(Long id, Resource.LoadMode mode) {
-        Author author = mode == Resource.LoadMode.DEFAULT
-                ? cacheHolder.getAuthorCache().get(id) : null;
-        if (author == null) {
-            Optional<Author> authorOptional = authorRepository.findById(id);
-            if (authorOptional.isEmpty()) {
-                throw new NotFoundException(AUTHOR_ID_NOT_FOUND + id);
-            }
-            author = authorOptional.get();
-            if (mode == Resource.LoadMode.DIRECT) {
-                cacheHolder.getAuthorCache().remove(id);
-            } else {
-                cacheHolder.getAuthorCache().put(id, author);
-            }
-        } else {
-            logger.log(Level.INFO, "Author {0} was loaded from cache", id.intValue());
-        }
-        return author;
+    /**Returns the read model of an author, served from cache if possible.*/
+    public AuthorDto getById(Long id) {
+        return cacheHolder.getAuthorCache().getOrLoad(id, this::loadSnapshot);
+    }
+
+    /**Loads the managed entity from the db, e.g. for modification. Never cached.*/
+    public Author getEntity(Long id) {
+        return authorRepository.findById(id).orElseThrow(()
+                -> new NotFoundException(AUTHOR_ID_NOT_FOUND + id));
     }
 
+    private AuthorDto loadSnapshot(Long id) {
+        return authorMapper.toDto(authorRepository.findWithBooksById(id).orElseThrow(()
+                -> new NotFoundException(AUTHOR_ID_NOT_FOUND + id)));
+    }
+
+    /**Returns at most {@code pagination.max-unpaged-results} authors.*/
+    @Transactional(readOnly = true)
     public List<Author> getAuthors() {
-        return authorRepository.findAll();
+        List<Author> authors = authorRepository.findByIdGreaterThan(Long.MIN_VALUE,
+                paginationService.unpagedRequest());
+        fetchBooks(authors);
+        return authors;
+    }
+
+    @Transactional(readOnly = true)
+    public PageDto<Author> getPage(Optional<Long> after, Optional<Integer> size, String sort) {
+        Sort.Direction direction = paginationService.direction(sort);
+        int pageSize = paginationService.pageSize(size);
+        long cursor = paginationService.cursor(after, direction);
+        Pageable request = paginationService.request(pageSize, direction);
+        List<Author> authors = direction.isAscending()
+                ? authorRepository.findByIdGreaterThan(cursor, request)
+                : authorRepository.findByIdLessThan(cursor, request);
+        PageDto<Author> page = paginationService.toPage(authors, pageSize, Author::getId);
+        fetchBooks(page.getItems());
+        return page;
+    }
+
+    private void fetchBooks(List<Author> authors) {
+        List<Long> ids = authors.stream().map(Author::getId).toList();
+        for (List<Long> chunk : Tools.partition(ids, FETCH_CHUNK_SIZE)) {
+            authorRepository.fetchBooksByIdIn(chunk);
+        }
     }
 
     public Author create(Author author) {
@@ -79,63 +125,211 @@ public class AuthorService {
         return authorRepository.save(author);
     }
 
-    public Author addBookToAuthor(Long authorId, Long bookId) {
-        Author author = getById(authorId, Resource.LoadMode.DIRECT);
-        Optional<Book> book = bookRepository.findById(bookId);
-        if (book.isEmpty()) {
-            throw new NotFoundException("Book not found");
+    /**Creates all the authors or none of them. Names are checked against each other and
+     * against the stored authors in one query per {@value #FETCH_CHUNK_SIZE} names.*/
+    @Transactional
+    public List<Author> createAll(List<Author> authors) {
+        bulkService.checkSize(authors);
+        Set<String> names = bulkService.uniqueKeys(authors, Author::getName, "Author name");
+        List<String> taken = findByNames(names).stream().map(Author::getName).toList();
+        if (!taken.isEmpty()) {
+            throw new ConflictException("Author names already exist: " + taken);
         }
+        return bulkService.persistAll(authors);
+    }
 
-        if (author.getBooks().contains(book.get())) {
-            throw new ConflictException("Book already exists");
+    /**Updates all the authors or none of them; every author should carry its id.*/
+    @Transactional
+    public List<Author> updateAll(List<Author> authors) {
+        bulkService.checkSize(authors);
+        if (authors.stream().anyMatch(author -> author.getId() == null)) {
+            throw new BadRequestException("Every author should have an id");
+        }
+        Set<Long> ids = bulkService.uniqueKeys(authors, Author::getId, "Author id");
+        Map<Long, String> oldNames = new HashMap<>();
+        for (List<Long> chunk : Tools.partition(List.copyOf(ids), FETCH_CHUNK_SIZE)) {
+            authorRepository.findAllById(chunk)
+                    .forEach(author -> oldNames.put(author.getId(), author.getName()));
+        }
+        for (Long id : ids) {
+            if (!oldNames.containsKey(id)) {
+                throw new NotFoundException(AUTHOR_ID_NOT_FOUND + id);
+            }
+        }
+        bulkService.uniqueKeys(authors, Author::getName, "Author name");
+        Map<String, Long> names = new HashMap<>();
+        authors.forEach(author -> names.put(author.getName(), author.getId()));
+        for (Author existing : findByNames(names.keySet())) {
+            if (!existing.getId().equals(names.get(existing.getName()))) {
+                throw new ConflictException("Author name already exists: " + existing.getName());
+            }
         }
 
-        cacheHolder.getBookCache().remove(bookId);
+        List<Author> saved = bulkService.mergeAll(authors);
+        Set<Long> renamed = saved.stream()
+                .filter(author -> !oldNames.get(author.getId()).equals(author.getName()))
+                .map(Author::getId)
+                .collect(Collectors.toSet());
+        Map<Long, List<Long>> bookIds = new HashMap<>();
+        for (List<Long> chunk : Tools.partition(List.copyOf(renamed), FETCH_CHUNK_SIZE)) {
+            for (Object[] row : bookRepository.findIdsByAuthorIdIn(chunk)) {
+                bookIds.computeIfAbsent((Long) row[0], id -> new ArrayList<>())
+                        .add((Long) row[1]);
+            }
+        }
+        for (Author author : saved) {
+            boolean nameChanged = renamed.contains(author.getId());
+            cacheInvalidationService.authorUpdated(author.getId(), nameChanged,
+                    bookIds.getOrDefault(author.getId(), List.of()));
+        }
+        return saved;
+    }
 
-        author.addBook(book.get());
-        book.get().addAuthor(author);
+    private List<Author> findByNames(Set<String> names) {
+        List<Author> found = new ArrayList<>();
+        for (List<String> chunk : Tools.partition(List.copyOf(names), FETCH_CHUNK_SIZE)) {
+            found.addAll(authorRepository.findByNameIn(chunk));
+        }
+        return found;
+    }
 
-        bookRepository.save(book.get());
-        return authorRepository.save(author);
+    @Transactional
+    public Author addBookToAuthor(Long authorId, Long bookId) {
+        getEntity(authorId);
+        Boolean linked = findLinks(authorId, List.of(bookId)).get(bookId);
+        if (linked == null) {
+            throw new NotFoundException("Book not found");
+        }
+        if (linked) {
+            throw new ConflictException("Book already exists");
+        }
+
+        bookRepository.linkAuthor(authorId, List.of(bookId));
+        cacheInvalidationService.linkChanged(authorId, bookId);
+        return getEntity(authorId);
     }
 
+    @Transactional
     public void deleteBookFromAuthor(Long authorId, Long bookId) {
-        Author author = getById(authorId, Resource.LoadMode.DIRECT);
-        Optional<Book> book = bookRepository.findById(bookId);
-        if (book.isEmpty()) {
+        getEntity(authorId);
+        Boolean linked = findLinks(authorId, List.of(bookId)).get(bookId);
+        if (linked == null) {
             throw new NotFoundException("Book not found");
         }
-
-        if (!author.getBooks().contains(book.get())) {
+        if (!linked) {
             throw new NotFoundException("Author doesn't have book id: " + bookId);
         }
 
-        cacheHolder.getBookCache().remove(bookId);
-        book.get().removeAuthor(author);
-        author.removeBook(book.get());
+        bookRepository.unlinkAuthor(authorId, List.of(bookId));
+        cacheInvalidationService.linkChanged(authorId, bookId);
+    }
+
+    /**Links the author to all the given books, or to none of them if one does not exist.
+     * The existing links are read in one query per {@value #FETCH_CHUNK_SIZE} books and only
+     * the missing rows are inserted; neither the author nor the books are loaded.*/
+    @Transactional
+    public BookLinksDto linkBooks(Long authorId, List<Long> bookIds) {
+        Set<Long> requested = requestedIds(bookIds);
+        getEntity(authorId);
+        Map<Long, Boolean> links = findLinks(authorId, requested);
+        List<Long> missing = requested.stream().filter(id -> !links.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new NotFoundException("Books not found: " + missing);
+        }
+        List<Long> linked = new ArrayList<>();
+        List<Long> unchanged = new ArrayList<>();
+        requested.forEach(id -> (links.get(id) ? unchanged : linked).add(id));
+
+        writeLinks(authorId, linked, List.of());
+        return new BookLinksDto(authorId, linked, List.of(), unchanged);
+    }
+
+    /**Unlinks the author from the given books; books it does not have are left as they are.*/
+    @Transactional
+    public BookLinksDto unlinkBooks(Long authorId, List<Long> bookIds) {
+        Set<Long> requested = requestedIds(bookIds);
+        getEntity(authorId);
+        Map<Long, Boolean> links = findLinks(authorId, requested);
+        List<Long> unlinked = new ArrayList<>();
+        List<Long> unchanged = new ArrayList<>();
+        requested.forEach(id -> (Boolean.TRUE.equals(links.get(id)) ? unlinked : unchanged)
+                .add(id));
+
+        writeLinks(authorId, List.of(), unlinked);
+        return new BookLinksDto(authorId, List.of(), unlinked, unchanged);
+    }
+
+    /**Makes the given books exactly the books of the author; an empty list unlinks all.
+     * The current links are read in one query and only the difference is written.*/
+    @Transactional
+    public BookLinksDto replaceBooks(Long authorId, List<Long> bookIds) {
+        Set<Long> requested = bookIds != null && bookIds.isEmpty()
+                ? Set.of() : requestedIds(bookIds);
+        getEntity(authorId);
+        Set<Long> current = new HashSet<>(bookRepository.findIdsByAuthorId(authorId));
+        List<Long> linked = requested.stream().filter(id -> !current.contains(id)).toList();
+        Map<Long, Boolean> found = findLinks(authorId, linked);
+        List<Long> missing = linked.stream().filter(id -> !found.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new NotFoundException("Books not found: " + missing);
+        }
+        List<Long> unlinked = current.stream().filter(id -> !requested.contains(id))
+                .sorted().toList();
+        List<Long> unchanged = requested.stream().filter(current::contains).toList();
+
+        writeLinks(authorId, linked, unlinked);
+        return new BookLinksDto(authorId, linked, unlinked, unchanged);
+    }
 
-        bookRepository.save(book.get());
-        authorRepository.save(author);
+    private Set<Long> requestedIds(List<Long> bookIds) {
+        bulkService.checkSize(bookIds);
+        return new LinkedHashSet<>(bookIds);
+    }
+
+    /**Whether the author is linked to each of the given books that exist.*/
+    private Map<Long, Boolean> findLinks(Long authorId, Collection<Long> bookIds) {
+        Map<Long, Boolean> links = new HashMap<>();
+        for (List<Long> chunk : Tools.partition(List.copyOf(bookIds), FETCH_CHUNK_SIZE)) {
+            for (Object[] row : bookRepository.findLinksToAuthor(authorId, chunk)) {
+                links.put((Long) row[0], row[1] != null);
+            }
+        }
+        return links;
+    }
+
+    private void writeLinks(Long authorId, List<Long> linked, List<Long> unlinked) {
+        for (List<Long> chunk : Tools.partition(linked, FETCH_CHUNK_SIZE)) {
+            bookRepository.linkAuthor(authorId, chunk);
+        }
+        for (List<Long> chunk : Tools.partition(unlinked, FETCH_CHUNK_SIZE)) {
+            bookRepository.unlinkAuthor(authorId, chunk);
+        }
+        List<Long> changed = new ArrayList<>(linked);
+        changed.addAll(unlinked);
+        cacheInvalidationService.linksChanged(authorId, changed);
     }
 
     public Author update(Long id, Author author) {
-        Author original = getById(id, Resource.LoadMode.DEFAULT);
+        AuthorDto original = getById(id);
         if (authorRepository.findByName(author.getName()).isPresent()
                 && !original.getName().equals(author.getName())) {
             throw new ConflictException("Author name already exists");
         }
         author.setId(id);
-        cacheHolder.getAuthorCache().remove(id);
-        return authorRepository.save(author);
+        Author saved = authorRepository.save(author);
+        boolean nameChanged = !original.getName().equals(saved.getName());
+        cacheInvalidationService.authorUpdated(id, nameChanged,
+                nameChanged ? bookRepository.findIdsByAuthorId(id) : List.of());
+        return saved;
     }
 
+    /**Removes the links of the author with one DELETE instead of loading every book.*/
+    @Transactional
     public void delete(Long id) {
-        Author author = getById(id, Resource.LoadMode.DIRECT);
-        for (Book book : author.getBooks()) {
-            book.removeAuthor(author);
-            bookRepository.save(book);
-            cacheHolder.getBookCache().remove(id);
-        }
+        Author author = getEntity(id);
+        List<Long> bookIds = bookRepository.findIdsByAuthorId(id);
+        bookRepository.unlinkAuthorFromAll(id);
         authorRepository.delete(author);
+        cacheInvalidationService.authorDeleted(id, bookIds);
     }
 }
\ No newline at end of file
@@ -1,74 +1,126 @@
 package javalab.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.logging.Level;
-import java.util.logging.Logger;
+import java.util.Set;
+import java.util.stream.Collectors;
 import javalab.config.CacheHolder;
+import javalab.dto.BookDto;
+import javalab.dto.PageDto;
 import javalab.exception.BadRequestException;
 import javalab.exception.ConflictException;
 import javalab.exception.NotFoundException;
+import javalab.mapper.BookMapper;
 import javalab.model.Author;
 import javalab.model.Book;
 import javalab.repository.BookRepository;
 import javalab.repository.CommentRepository;
-import javalab.utility.Resource;
+import javalab.utility.Tools;
 import org.hibernate.Hibernate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class BookService {
     public static final String BOOK_ID_NOT_FOUND = "Book id not found: ";
-    Logger logger;
+    /**Ids per IN list when fetching associations of many books.*/
+    private static final int FETCH_CHUNK_SIZE = 1000;
 
     private final BookRepository bookRepository;
     private final CommentRepository commentRepository;
+    private final BookMapper bookMapper;
     private final CacheHolder cacheHolder;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final PaginationService paginationService;
+    private final CommentCountService commentCountService;
+    private final BulkService bulkService;
 
     @Autowired
     public BookService(BookRepository bookRepository,
                        CommentRepository commentRepository,
-                       CacheHolder cacheHolder, AuthorService authorService) {
+                       BookMapper bookMapper,
+                       CacheHolder cacheHolder,
+                       CacheInvalidationService cacheInvalidationService,
+                       PaginationService paginationService,
+                       CommentCountService commentCountService,
+                       BulkService bulkService) {
         this.bookRepository = bookRepository;
         this.commentRepository = commentRepository;
+        this.bookMapper = bookMapper;
         this.cacheHolder = cacheHolder;
-        this.logger = Logger.getLogger(this.getClass().getName());
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.paginationService = paginationService;
+        this.commentCountService = commentCountService;
+        this.bulkService = bulkService;
     }
 
-    public List<Book> getBooks() {
-        return bookRepository.findAll();
+    /**Returns the read model of a book, served from cache if possible.*/
+    public BookDto getById(Long id) {
+        return cacheHolder.getBookCache().getOrLoad(id, this::loadSnapshot);
     }
 
-    public Book getById(Long id, Resource.LoadMode mode) {
-        Book book = mode == Resource.LoadMode.DEFAULT ? cacheHolder.getBookCache().get(id) : null;
-        if (book == null) {
-            book = bookRepository.findById(id).orElseThrow(()
-                    -> new NotFoundException(BOOK_ID_NOT_FOUND + id));
-            if (mode == Resource.LoadMode.DIRECT) {
-                cacheHolder.getBookCache().remove(id);
-            } else {
-                cacheHolder.getBookCache().put(id, book);
-            }
-        } else {
-            logger.log(Level.INFO, "Book {0} was loaded from cache", id.intValue());
-        }
+    /**Loads the managed entity from the db, e.g. for modification. Never cached.*/
+    public Book getEntity(Long id) {
+        Book book = bookRepository.findById(id).orElseThrow(()
+                -> new NotFoundException(BOOK_ID_NOT_FOUND + id));
         Hibernate.initialize(book.getAuthors());
         return book;
     }
 
+    private BookDto loadSnapshot(Long id) {
+        return bookMapper.toDto(bookRepository.findWithAuthorsById(id).orElseThrow(()
+                -> new NotFoundException(BOOK_ID_NOT_FOUND + id)));
+    }
+
+    /**Returns the books with their authors and comments initialized in a bounded number of
+     * queries, so serializing them does not trigger a lazy load per book.
+     * At most {@code pagination.max-unpaged-results} books are returned.*/
+    @Transactional(readOnly = true)
     public List<Book> getBookByFilter(Optional<String> author, Optional<Long> commentCountMin) {
+        Pageable limit = paginationService.unpagedRequest();
+        List<Book> books;
         if (author.isPresent() && commentCountMin.isPresent()) {
-            return bookRepository.findByAuthorNameAndCommentCount(author.get(),
-                    commentCountMin.get());
-        }
-        if (author.isPresent()) {
-            return bookRepository.findByAuthor(author.get());
+            books = bookRepository.findByAuthorNameAndCommentCount(author.get(),
+                    commentCountMin.get(), limit);
+        } else if (author.isPresent()) {
+            books = bookRepository.findByAuthor(author.get(), limit);
+        } else if (commentCountMin.isPresent()) {
+            books = bookRepository.findByCommentCount(commentCountMin.get(), limit);
+        } else {
+            books = bookRepository.findAllBooks(limit);
         }
-        if (commentCountMin.isPresent()) {
-            return bookRepository.findByCommentCount(commentCountMin.get());
+        fetchAssociations(books);
+        return books;
+    }
+
+    @Transactional(readOnly = true)
+    public PageDto<Book> getPage(Optional<Long> after, Optional<Integer> size, String sort) {
+        Sort.Direction direction = paginationService.direction(sort);
+        int pageSize = paginationService.pageSize(size);
+        long cursor = paginationService.cursor(after, direction);
+        Pageable request = paginationService.request(pageSize, direction);
+        List<Book> books = direction.isAscending()
+                ? bookRepository.findByIdGreaterThan(cursor, request)
+                : bookRepository.findByIdLessThan(cursor, request);
+        PageDto<Book> page = paginationService.toPage(books, pageSize, Book::getId);
+        fetchAssociations(page.getItems());
+        return page;
+    }
+
+    private void fetchAssociations(List<Book> books) {
+        List<Long> ids = books.stream().map(Book::getId).toList();
+        for (List<Long> chunk : Tools.partition(ids, FETCH_CHUNK_SIZE)) {
+            bookRepository.fetchAuthorsByIdIn(chunk);
+            bookRepository.fetchCommentsByIdIn(chunk);
         }
-        return bookRepository.findAll();
     }
 
     public Book create(Book book) {
@@ -80,32 +132,124 @@ public class BookService {
             throw new ConflictException("Book already exists");
         }
 
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        cacheInvalidationService.bookCreated(authorIds(saved));
+        return saved;
+    }
+
+    /**Creates all the books or none of them. Titles are checked against each other and
+     * against the stored books in one query per {@value #FETCH_CHUNK_SIZE} titles.*/
+    @Transactional
+    public List<Book> createAll(List<Book> books) {
+        bulkService.checkSize(books);
+        Set<String> titles = bulkService.uniqueKeys(books, Book::getTitle, "Book title");
+        List<String> taken = findByTitles(titles).stream().map(Book::getTitle).toList();
+        if (!taken.isEmpty()) {
+            throw new ConflictException("Books already exist: " + taken);
+        }
+
+        List<Book> saved = bulkService.persistAll(books);
+        Set<Long> authorIds = new HashSet<>();
+        saved.forEach(book -> authorIds.addAll(authorIds(book)));
+        cacheInvalidationService.bookCreated(authorIds);
+        return saved;
     }
 
+    @Transactional
     public void delete(Long id) {
-        Book book = getById(id, Resource.LoadMode.DIRECT);
+        Book book = getEntity(id);
+        Set<Long> authorIds = authorIds(book);
 
         for (Author author : book.getAuthors()) {
-            cacheHolder.getAuthorCache().remove(author.getId());
-            author.getBooks().remove(book);
+            // The inverse side writes nothing, so it is not loaded just to be kept in sync.
+            if (Hibernate.isInitialized(author.getBooks())) {
+                author.getBooks().remove(book);
+            }
         }
         if (!book.getComments().isEmpty()) {
+            commentCountService.bookDeleting(id);
             commentRepository.deleteAll(book.getComments());
         }
 
         bookRepository.delete(book);
-        cacheHolder.getBookCache().remove(id);
+        cacheInvalidationService.bookDeleted(id, authorIds);
     }
 
     public Book update(Long id, Book book) {
-        Book original = getById(id, Resource.LoadMode.DIRECT);
+        Book original = getEntity(id);
         if (bookRepository.findByTitle(book.getTitle()).isPresent()
                 && !original.getTitle().equals(book.getTitle())) {
             throw new ConflictException("Book title already exists");
         }
+        String oldTitle = original.getTitle();
+        Set<Long> oldAuthorIds = authorIds(original);
         book.setComments(original.getComments());
+        // The merge copies the count onto the returned entity, although it never writes it.
+        book.setCommentCount(original.getCommentCount());
         book.setId(id);
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        cacheInvalidationService.bookUpdated(id, oldTitle, oldAuthorIds,
+                saved.getTitle(), authorIds(saved));
+        return saved;
+    }
+
+    /**Updates all the books or none of them; every book should carry its id. The stored
+     * books are loaded with their authors in one query per {@value #FETCH_CHUNK_SIZE} ids.*/
+    @Transactional
+    public List<Book> updateAll(List<Book> books) {
+        bulkService.checkSize(books);
+        if (books.stream().anyMatch(book -> book.getId() == null)) {
+            throw new BadRequestException("Every book should have an id");
+        }
+        Set<Long> ids = bulkService.uniqueKeys(books, Book::getId, "Book id");
+        Map<Long, Book> originals = new HashMap<>();
+        for (List<Long> chunk : Tools.partition(List.copyOf(ids), FETCH_CHUNK_SIZE)) {
+            bookRepository.fetchAuthorsByIdIn(chunk)
+                    .forEach(book -> originals.put(book.getId(), book));
+        }
+        for (Long id : ids) {
+            if (!originals.containsKey(id)) {
+                throw new NotFoundException(BOOK_ID_NOT_FOUND + id);
+            }
+        }
+        bulkService.uniqueKeys(books, Book::getTitle, "Book title");
+        Map<String, Long> titles = new HashMap<>();
+        books.forEach(book -> titles.put(book.getTitle(), book.getId()));
+        for (Book existing : findByTitles(titles.keySet())) {
+            if (!existing.getId().equals(titles.get(existing.getTitle()))) {
+                throw new ConflictException("Book title already exists: " + existing.getTitle());
+            }
+        }
+
+        Map<Long, String> oldTitles = new HashMap<>();
+        Map<Long, Set<Long>> oldAuthorIds = new HashMap<>();
+        for (Book book : books) {
+            Book original = originals.get(book.getId());
+            oldTitles.put(book.getId(), original.getTitle());
+            oldAuthorIds.put(book.getId(), authorIds(original));
+            book.setComments(original.getComments());
+            book.setCommentCount(original.getCommentCount());
+        }
+        List<Book> saved = bulkService.mergeAll(books);
+        for (Book book : saved) {
+            cacheInvalidationService.bookUpdated(book.getId(), oldTitles.get(book.getId()),
+                    oldAuthorIds.get(book.getId()), book.getTitle(), authorIds(book));
+        }
+        return saved;
+    }
+
+    private List<Book> findByTitles(Set<String> titles) {
+        List<Book> found = new ArrayList<>();
+        for (List<String> chunk : Tools.partition(List.copyOf(titles), FETCH_CHUNK_SIZE)) {
+            found.addAll(bookRepository.findByTitleIn(chunk));
+        }
+        return found;
+    }
+
+    private static Set<Long> authorIds(Book book) {
+        return book.getAuthors().stream()
+                .map(Author::getId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
     }
-}
\ No newline at end of file
+}
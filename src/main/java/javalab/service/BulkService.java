@@ -0,0 +1,75 @@
+package javalab.service;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import javalab.config.BulkProperties;
+import javalab.exception.BadRequestException;
+import javalab.exception.ConflictException;
+import javalab.utility.Tools;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**Writes many entities in one transaction. Ids come from pooled sequences, so persisting
+ * needs no round trip per row, and the rows are sent in JDBC batches of
+ * {@code hibernate.jdbc.batch_size} when the persistence context is flushed every
+ * {@code bulk.flush-size} entities. Must be called inside a transaction.*/
+@Service
+public class BulkService {
+    private final EntityManager entityManager;
+    private final BulkProperties properties;
+
+    @Autowired
+    public BulkService(EntityManager entityManager, BulkProperties properties) {
+        this.entityManager = entityManager;
+        this.properties = properties;
+    }
+
+    public void checkSize(Collection<?> items) {
+        if (items == null || items.isEmpty() || items.size() > properties.getMaxItems()) {
+            throw new BadRequestException("A bulk request should have 1 to "
+                    + properties.getMaxItems() + " items");
+        }
+        if (items.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("Items of a bulk request cannot be null");
+        }
+    }
+
+    /**Returns the keys of the items, failing if two items share one.*/
+    public <T, K> Set<K> uniqueKeys(List<T> items, Function<T, K> key, String what) {
+        Set<K> keys = new HashSet<>();
+        for (T item : items) {
+            if (!keys.add(key.apply(item))) {
+                throw new ConflictException(what + " appears twice in the request: "
+                        + key.apply(item));
+            }
+        }
+        return keys;
+    }
+
+    /**Persists new entities; the returned ones have their ids but are detached.*/
+    public <T> List<T> persistAll(List<T> entities) {
+        for (List<T> chunk : Tools.partition(entities, properties.getFlushSize())) {
+            chunk.forEach(entityManager::persist);
+            entityManager.flush();
+            entityManager.clear();
+        }
+        return entities;
+    }
+
+    /**Writes the state of existing entities, which should already be loaded in the
+     * current persistence context so merging them does not select them one by one.*/
+    public <T> List<T> mergeAll(List<T> entities) {
+        List<T> merged = new ArrayList<>(entities.size());
+        for (T entity : entities) {
+            merged.add(entityManager.merge(entity));
+        }
+        entityManager.flush();
+        return merged;
+    }
+}
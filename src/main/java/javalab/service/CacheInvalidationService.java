@@ -0,0 +1,116 @@
+package javalab.service;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import javalab.config.CacheHolder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**Evicts exactly the cached snapshots a mutation makes stale.
+ * A book snapshot depends on the book row, its links to authors and the names of those authors.
+ * An author snapshot depends on the author row, its links to books and the titles of those books.
+ * Comments and users are not part of any snapshot, so their mutations evict nothing.
+ * Called inside a transaction, the entries are evicted only after it commits: evicted
+ * earlier, a concurrent read could cache the state from before the change for the whole
+ * time-to-live. A read that started before the commit does not cache its result
+ * either, since the cache drops loads that raced with a removal. Outside a transaction,
+ * call these methods after the change was written to the db.*/
+@Service
+public class CacheInvalidationService {
+    private final CacheHolder cacheHolder;
+
+    @Autowired
+    public CacheInvalidationService(CacheHolder cacheHolder) {
+        this.cacheHolder = cacheHolder;
+    }
+
+    public void bookCreated(Collection<Long> authorIds) {
+        afterCommit(() -> evictAuthors(authorIds));
+    }
+
+    public void bookUpdated(Long bookId, String oldTitle, Set<Long> oldAuthorIds,
+                            String newTitle, Set<Long> newAuthorIds) {
+        afterCommit(() -> {
+            cacheHolder.getBookCache().remove(bookId);
+            if (!Objects.equals(oldTitle, newTitle)) {
+                evictAuthors(oldAuthorIds);
+                evictAuthors(newAuthorIds);
+                return;
+            }
+            Set<Long> unlinked = new HashSet<>(oldAuthorIds);
+            unlinked.removeAll(newAuthorIds);
+            Set<Long> linked = new HashSet<>(newAuthorIds);
+            linked.removeAll(oldAuthorIds);
+            evictAuthors(unlinked);
+            evictAuthors(linked);
+        });
+    }
+
+    public void bookDeleted(Long bookId, Collection<Long> authorIds) {
+        afterCommit(() -> {
+            cacheHolder.getBookCache().remove(bookId);
+            evictAuthors(authorIds);
+        });
+    }
+
+    public void authorUpdated(Long authorId, boolean nameChanged, Collection<Long> bookIds) {
+        afterCommit(() -> {
+            cacheHolder.getAuthorCache().remove(authorId);
+            if (nameChanged) {
+                evictBooks(bookIds);
+            }
+        });
+    }
+
+    public void authorDeleted(Long authorId, Collection<Long> bookIds) {
+        afterCommit(() -> {
+            cacheHolder.getAuthorCache().remove(authorId);
+            evictBooks(bookIds);
+        });
+    }
+
+    public void linkChanged(Long authorId, Long bookId) {
+        afterCommit(() -> {
+            cacheHolder.getAuthorCache().remove(authorId);
+            cacheHolder.getBookCache().remove(bookId);
+        });
+    }
+
+    public void linksChanged(Long authorId, Collection<Long> bookIds) {
+        afterCommit(() -> {
+            if (!bookIds.isEmpty()) {
+                cacheHolder.getAuthorCache().remove(authorId);
+                evictBooks(bookIds);
+            }
+        });
+    }
+
+    private static void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+
+    private void evictAuthors(Collection<Long> authorIds) {
+        for (Long authorId : authorIds) {
+            cacheHolder.getAuthorCache().remove(authorId);
+        }
+    }
+
+    private void evictBooks(Collection<Long> bookIds) {
+        for (Long bookId : bookIds) {
+            cacheHolder.getBookCache().remove(bookId);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package javalab.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import javalab.dto.CommentCountMismatchDto;
+import javalab.repository.BookRepository;
+import javalab.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**Keeps {@code books.comment_count} and {@code users.comment_count} equal to the number of
+ * comments, so the comment count filters are index range scans instead of a count per row.
+ * Counters are only changed by single UPDATE statements, never read-modify-write, so
+ * concurrent comments cannot lose increments.*/
+@Service
+public class CommentCountService {
+    private static final Logger LOGGER = Logger.getLogger(CommentCountService.class.getName());
+    private static final int MISMATCH_REPORT_LIMIT = 100;
+
+    private final BookRepository bookRepository;
+    private final UserRepository userRepository;
+
+    @Autowired
+    public CommentCountService(BookRepository bookRepository, UserRepository userRepository) {
+        this.bookRepository = bookRepository;
+        this.userRepository = userRepository;
+    }
+
+    @Transactional
+    public void commentAdded(Long bookId, Long userId) {
+        adjust(bookId, userId, 1);
+    }
+
+    /**Adds many new comments, one UPDATE per book and per user instead of per comment.
+     * Pass sorted maps, so concurrent callers update the counters in the same order.*/
+    @Transactional
+    public void commentsAdded(Map<Long, Long> countsByBook, Map<Long, Long> countsByUser) {
+        countsByBook.forEach(bookRepository::addToCommentCount);
+        countsByUser.forEach(userRepository::addToCommentCount);
+    }
+
+    @Transactional
+    public void commentRemoved(Long bookId, Long userId) {
+        adjust(bookId, userId, -1);
+    }
+
+    /**Call before the comments of the book are deleted.*/
+    @Transactional
+    public void bookDeleting(Long bookId) {
+        userRepository.subtractCommentsOfBook(bookId);
+    }
+
+    /**Call before the comments of the user are deleted.*/
+    @Transactional
+    public void userDeleting(Long userId) {
+        bookRepository.subtractCommentsOfUser(userId);
+    }
+
+    /**Recounts every counter from the comments table; returns the number of rows fixed.
+     * Needed once after the column is added to an existing database.*/
+    @Transactional
+    public int backfill() {
+        int books = bookRepository.recountComments();
+        int users = userRepository.recountComments();
+        LOGGER.info(() -> "Comment counts fixed: " + books + " books, " + users + " users");
+        return books + users;
+    }
+
+    /**Returns up to 100 wrong counters per table.*/
+    @Transactional(readOnly = true)
+    public List<CommentCountMismatchDto> check() {
+        List<CommentCountMismatchDto> mismatches = new ArrayList<>();
+        Limit limit = Limit.of(MISMATCH_REPORT_LIMIT);
+        for (Object[] row : bookRepository.findCommentCountMismatches(limit)) {
+            mismatches.add(toMismatch("books", row));
+        }
+        for (Object[] row : userRepository.findCommentCountMismatches(limit)) {
+            mismatches.add(toMismatch("users", row));
+        }
+        return mismatches;
+    }
+
+    private void adjust(Long bookId, Long userId, long delta) {
+        if (bookId != null) {
+            bookRepository.addToCommentCount(bookId, delta);
+        }
+        if (userId != null) {
+            userRepository.addToCommentCount(userId, delta);
+        }
+    }
+
+    private static CommentCountMismatchDto toMismatch(String table, Object[] row) {
+        return new CommentCountMismatchDto(table, (Long) row[0],
+                ((Number) row[1]).longValue(), ((Number) row[2]).longValue());
+    }
+}
@@ -1,10 +1,16 @@
 package javalab.service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-
-import javalab.config.CacheHolder;
+import java.util.Set;
+import java.util.TreeMap;
 import javalab.dto.CommentDto;
+import javalab.dto.PageDto;
 import javalab.exception.NotFoundException;
 import javalab.mapper.CommentMapper;
 import javalab.model.Book;
@@ -12,32 +18,42 @@ import javalab.model.Comment;
 import javalab.model.User;
 import javalab.repository.CommentRepository;
 import javalab.repository.UserRepository;
-import javalab.utility.Resource;
+import javalab.utility.Tools;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class CommentService {
     public static final String COMMENT_ID_NOT_FOUND = "Comment id not found: ";
+    /**Ids per IN list when loading the users of many comments.*/
+    private static final int FETCH_CHUNK_SIZE = 1000;
 
     private final CommentRepository commentRepository;
     private final BookService bookService;
     private final UserRepository userRepository;
     private final CommentMapper commentMapper;
-    private final CacheHolder cacheHolder;
+    private final CommentCountService commentCountService;
+    private final BulkService bulkService;
+    private final PaginationService paginationService;
 
     @Autowired
     public CommentService(CommentRepository commentRepository,
                           BookService bookService,
                           UserRepository userRepository,
                           CommentMapper commentMapper,
-                          CacheHolder cacheHolder) {
+                          CommentCountService commentCountService,
+                          BulkService bulkService,
+                          PaginationService paginationService) {
         this.commentRepository = commentRepository;
         this.bookService = bookService;
         this.userRepository = userRepository;
         this.commentMapper = commentMapper;
-        this.cacheHolder = cacheHolder;
+        this.commentCountService = commentCountService;
+        this.bulkService = bulkService;
+        this.paginationService = paginationService;
     }
 
     public Comment getById(Long id) {
@@ -46,17 +62,37 @@ public class CommentService {
                         new NotFoundException(COMMENT_ID_NOT_FOUND + id));
     }
 
-    @Transactional
+    /**Returns at most {@code pagination.max-unpaged-results} comments of the book.*/
+    @Transactional(readOnly = true)
     public List<CommentDto> getAllComments(Long bookId) {
-        List<Comment> comments =
-                bookService.getById(bookId, Resource.LoadMode.DEFAULT).getComments();
-        return comments.stream()
-                .map(commentMapper::toDto)
-                .toList();
+        List<CommentDto> comments = commentRepository.findDtosByBookIdAndIdGreaterThan(bookId,
+                Long.MIN_VALUE, paginationService.unpagedRequest());
+        if (comments.isEmpty()) {
+            bookService.getEntity(bookId);
+        }
+        return comments;
+    }
+
+    /**One query per page; the book is looked up only when the page comes back empty.*/
+    @Transactional(readOnly = true)
+    public PageDto<CommentDto> getPage(Long bookId, Optional<Long> after,
+                                       Optional<Integer> size, String sort) {
+        Sort.Direction direction = paginationService.direction(sort);
+        int pageSize = paginationService.pageSize(size);
+        long cursor = paginationService.cursor(after, direction);
+        Pageable request = paginationService.request(pageSize, direction);
+        List<CommentDto> comments = direction.isAscending()
+                ? commentRepository.findDtosByBookIdAndIdGreaterThan(bookId, cursor, request)
+                : commentRepository.findDtosByBookIdAndIdLessThan(bookId, cursor, request);
+        if (comments.isEmpty()) {
+            bookService.getEntity(bookId);
+        }
+        return paginationService.toPage(comments, pageSize, CommentDto::getId);
     }
 
+    @Transactional
     public Comment create(Long id, CommentDto commentDto) {
-        Book book = bookService.getById(id, Resource.LoadMode.DIRECT);
+        Book book = bookService.getEntity(id);
         Optional<User> user = userRepository.findById(commentDto.getUserId());
         if (user.isEmpty()) {
             throw new NotFoundException(UserService.USER_ID_NOT_FOUND + commentDto.getUserId());
@@ -65,23 +101,71 @@ public class CommentService {
         comment.setUser(user.get());
         comment.setBook(book);
         book.addComment(comment);
-        return commentRepository.save(comment);
+        Comment saved = commentRepository.save(comment);
+        commentCountService.commentAdded(id, user.get().getId());
+        return saved;
     }
 
-    public void delete(Long commentId) {
-        if (!commentRepository.existsById(commentId)) {
-            throw new NotFoundException(COMMENT_ID_NOT_FOUND + commentId);
+    /**Creates all the comments of one book or none of them. Their users are loaded in one
+     * query per {@value #FETCH_CHUNK_SIZE} ids and the counters get one UPDATE per user.*/
+    @Transactional
+    public List<Comment> createAll(Long bookId, List<CommentDto> commentDtos) {
+        bulkService.checkSize(commentDtos);
+        Book book = bookService.getEntity(bookId);
+        Set<Long> userIds = new HashSet<>();
+        commentDtos.forEach(commentDto -> userIds.add(commentDto.getUserId()));
+        Map<Long, User> users = new HashMap<>();
+        for (List<Long> chunk : Tools.partition(List.copyOf(userIds), FETCH_CHUNK_SIZE)) {
+            userRepository.findAllById(chunk).forEach(user -> users.put(user.getId(), user));
+        }
+
+        // Sorted, so concurrent imports update the user counters in the same order.
+        Map<Long, Long> countsByUser = new TreeMap<>();
+        List<Comment> comments = new ArrayList<>(commentDtos.size());
+        for (CommentDto commentDto : commentDtos) {
+            User user = users.get(commentDto.getUserId());
+            if (user == null) {
+                throw new NotFoundException(UserService.USER_ID_NOT_FOUND
+                        + commentDto.getUserId());
+            }
+            comments.add(new Comment(null, book, user, commentDto.getText()));
+            countsByUser.merge(user.getId(), 1L, Long::sum);
         }
-        cacheHolder.getBookCache().clear();
-        commentRepository.deleteById(commentId);
+        List<Comment> saved = bulkService.persistAll(comments);
+        commentCountService.commentsAdded(Map.of(bookId, (long) comments.size()), countsByUser);
+        return saved;
     }
 
+    @Transactional
+    public void delete(Long commentId) {
+        Comment comment = getById(commentId);
+        Long bookId = idOf(comment.getBook());
+        Long userId = idOf(comment.getUser());
+        commentRepository.delete(comment);
+        commentCountService.commentRemoved(bookId, userId);
+    }
+
+    @Transactional
     public Comment update(Long bookId, Long commentId, Comment comment) {
-        if (!commentRepository.existsById(commentId)) {
-            throw new NotFoundException(COMMENT_ID_NOT_FOUND + commentId);
-        }
+        Comment original = getById(commentId);
+        Long oldBookId = idOf(original.getBook());
+        Long oldUserId = idOf(original.getUser());
         comment.setId(commentId);
-        comment.setBook(bookService.getById(bookId, Resource.LoadMode.DIRECT));
-        return commentRepository.save(comment);
+        comment.setBook(bookService.getEntity(bookId));
+        Comment saved = commentRepository.save(comment);
+        Long newUserId = idOf(saved.getUser());
+        if (!Objects.equals(oldBookId, bookId) || !Objects.equals(oldUserId, newUserId)) {
+            commentCountService.commentRemoved(oldBookId, oldUserId);
+            commentCountService.commentAdded(bookId, newUserId);
+        }
+        return saved;
+    }
+
+    private static Long idOf(Book book) {
+        return book == null ? null : book.getId();
+    }
+
+    private static Long idOf(User user) {
+        return user == null ? null : user.getId();
     }
 }
\ No newline at end of file
@@ -0,0 +1,136 @@
+package javalab.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import javalab.dto.AuthorDto;
+import javalab.dto.BookDto;
+import javalab.dto.UserExportDto;
+import javalab.repository.AuthorRepository;
+import javalab.repository.BookRepository;
+import javalab.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**Writes whole tables as newline-delimited JSON. Each export is one forward-only query over
+ * scalar join rows ordered by owner id, so no entity is ever managed and only the rows of
+ * the current owner are held in memory.*/
+@Service
+public class ExportService {
+    private static final Logger LOGGER = Logger.getLogger(ExportService.class.getName());
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ExportService(BookRepository bookRepository,
+                         AuthorRepository authorRepository,
+                         UserRepository userRepository,
+                         ObjectMapper objectMapper) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**Returns the number of books written.*/
+    @Transactional(readOnly = true)
+    public long exportBooks(OutputStream out) throws IOException {
+        try (Stream<Object[]> rows = bookRepository.streamExportRows()) {
+            return writeGrouped(rows, out, group -> {
+                Object[] first = group.get(0);
+                return new BookDto((Long) first[0], (String) first[1],
+                        ((Number) first[2]).intValue(), column(group, 3));
+            });
+        }
+    }
+
+    /**Returns the number of authors written.*/
+    @Transactional(readOnly = true)
+    public long exportAuthors(OutputStream out) throws IOException {
+        try (Stream<Object[]> rows = authorRepository.streamExportRows()) {
+            return writeGrouped(rows, out, group -> {
+                Object[] first = group.get(0);
+                return new AuthorDto((Long) first[0], (String) first[1], column(group, 2));
+            });
+        }
+    }
+
+    /**Returns the number of users written.*/
+    @Transactional(readOnly = true)
+    public long exportUsers(OutputStream out) throws IOException {
+        try (Stream<Object[]> rows = userRepository.streamExportRows()) {
+            return writeGrouped(rows, out, group -> {
+                Object[] first = group.get(0);
+                List<UserExportDto.Comment> comments = new ArrayList<>(group.size());
+                for (Object[] row : group) {
+                    if (row[2] != null) {
+                        comments.add(new UserExportDto.Comment((Long) row[2], (Long) row[3],
+                                (String) row[4]));
+                    }
+                }
+                return new UserExportDto((Long) first[0], (String) first[1], comments);
+            });
+        }
+    }
+
+    /**Collapses consecutive rows with the same id (column 0) into one value per line.*/
+    private <T> long writeGrouped(Stream<Object[]> rows, OutputStream out,
+                                  Function<List<Object[]>, T> toValue) throws IOException {
+        long written = 0;
+        // The servlet stream is flushed once at the end rather than after every line,
+        // and stays open for the closing newline.
+        try (SequenceWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator("\n")
+                .writeValues(out)) {
+            List<Object[]> group = new ArrayList<>();
+            Iterator<Object[]> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (!group.isEmpty() && !Objects.equals(group.get(0)[0], row[0])) {
+                    writer.write(toValue.apply(group));
+                    written++;
+                    group.clear();
+                }
+                group.add(row);
+            }
+            if (!group.isEmpty()) {
+                writer.write(toValue.apply(group));
+                written++;
+            }
+        }
+        if (written > 0) {
+            out.write('\n');
+        }
+        out.flush();
+        long total = written;
+        LOGGER.info(() -> "Exported " + total + " rows");
+        return total;
+    }
+
+    /**Non-null values of one column of a LEFT JOIN group.*/
+    private static List<String> column(List<Object[]> group, int index) {
+        List<String> values = new ArrayList<>(group.size());
+        for (Object[] row : group) {
+            if (row[index] != null) {
+                values.add((String) row[index]);
+            }
+        }
+        return values;
+    }
+}
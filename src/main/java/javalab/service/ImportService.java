@@ -0,0 +1,470 @@
+package javalab.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javalab.config.ImportProperties;
+import javalab.dto.BookImportDto;
+import javalab.dto.CommentDto;
+import javalab.exception.InternalException;
+import javalab.exception.NotFoundException;
+import javalab.exception.TooManyRequestsException;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.model.Comment;
+import javalab.model.ImportJob;
+import javalab.model.User;
+import javalab.repository.AuthorRepository;
+import javalab.repository.BookRepository;
+import javalab.repository.UserRepository;
+import javalab.utility.Tools;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**Imports catalogue files of books with their authors and comments.
+ *
+ * <p>An upload is first spooled to a temporary file, so the request returns a job id at
+ * once and a slow worker never holds the connection. The file is then read line by line:
+ * author names are resolved through a name to id map built in one pass over the authors
+ * table, and every {@code chunkSize} lines are written in one transaction with JDBC batches.
+ * Memory is bounded by the chunk and the author map, not by the file.</p>
+ *
+ * <p>A line that cannot be parsed, breaks a constraint, repeats a stored title or refers to
+ * an unknown user is reported with its number and skipped; the rest of the file is still
+ * imported. If a chunk fails in the database anyway, its lines are retried one by one to
+ * find the failing ones.</p>
+ *
+ * <p>NDJSON lines look like book exports, optionally with
+ * {@code "comments": [{"userId": 1, "text": "..."}]}. CSV files need a header with the
+ * columns {@code title}, {@code pages} and {@code authors}, the author names separated by
+ * {@code |}.</p>*/
+@Service
+public class ImportService {
+    private static final Logger LOGGER = Logger.getLogger(ImportService.class.getName());
+    private static final List<String> CSV_COLUMNS = List.of("title", "pages", "authors");
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+    private static final String STOPPED = "Import stopped by shutdown";
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final UserRepository userRepository;
+    private final CommentCountService commentCountService;
+    private final CacheInvalidationService cacheInvalidationService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final ImportProperties properties;
+
+    private final AtomicLong idCounter = new AtomicLong(1);
+    private final Map<Long, ImportJob> jobs = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor executor;
+
+    @Autowired
+    public ImportService(BookRepository bookRepository,
+                         AuthorRepository authorRepository,
+                         UserRepository userRepository,
+                         CommentCountService commentCountService,
+                         CacheInvalidationService cacheInvalidationService,
+                         EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         ObjectMapper objectMapper,
+                         Validator validator,
+                         ImportProperties properties) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.userRepository = userRepository;
+        this.commentCountService = commentCountService;
+        this.cacheInvalidationService = cacheInvalidationService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(),
+                0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+                task -> {
+                    Thread thread = new Thread(task, "import-job-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**Spools the upload and queues its import; answers 429 when the queue is full.*/
+    public ImportJob submit(InputStream upload, ImportJob.Format format) {
+        if (executor.getQueue().remainingCapacity() == 0) {
+            throw queueFull();
+        }
+        Path file;
+        try {
+            file = Files.createTempFile("import-", "." + format.name().toLowerCase());
+        } catch (IOException e) {
+            throw new InternalException("Could not store the upload");
+        }
+        try {
+            Files.copy(upload, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            delete(file);
+            throw new InternalException("Could not store the upload");
+        }
+        ImportJob job = newJob(format);
+        try {
+            executor.execute(() -> {
+                try {
+                    run(job, file);
+                } finally {
+                    delete(file);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            delete(file);
+            throw queueFull();
+        }
+        return job;
+    }
+
+    /**Imports a file on the calling thread, e.g. from the command line.*/
+    public ImportJob importFile(Path file, ImportJob.Format format) {
+        ImportJob job = newJob(format);
+        run(job, file);
+        return job;
+    }
+
+    public ImportJob find(Long id) {
+        ImportJob job = jobs.get(id);
+        if (job == null) {
+            throw new NotFoundException("Import job not found: " + id);
+        }
+        return job;
+    }
+
+    /**Interrupts the running import, which fails at its next line or chunk, and waits a
+     * little for it, so it deletes its upload.*/
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                LOGGER.warning("Import jobs did not stop in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ImportJob newJob(ImportJob.Format format) {
+        while (jobs.size() >= properties.getRetainedJobs()) {
+            Long oldest = jobs.values().stream()
+                    .filter(ImportJob::isFinished)
+                    .map(ImportJob::getId)
+                    .min(Comparator.naturalOrder())
+                    .orElse(null);
+            if (oldest == null) {
+                break;
+            }
+            jobs.remove(oldest);
+        }
+        ImportJob job = new ImportJob(idCounter.getAndIncrement(), format,
+                properties.getMaxErrors());
+        jobs.put(job.getId(), job);
+        return job;
+    }
+
+    private TooManyRequestsException queueFull() {
+        return new TooManyRequestsException("Import queue is full, retry later",
+                properties.getRetryAfterSeconds());
+    }
+
+    private void run(ImportJob job, Path file) {
+        job.setStatus(ImportJob.Status.IN_PROGRESS);
+        try (FileInputStream in = new FileInputStream(file.toFile());
+             BufferedReader reader = new BufferedReader(
+                     new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            long size = Math.max(1, Files.size(file));
+            Map<String, Long> authorIds = loadAuthorIds();
+            long lineNumber = 0;
+            int[] columns = null;
+            if (job.getFormat() == ImportJob.Format.CSV) {
+                columns = csvColumns(reader.readLine());
+                lineNumber++;
+            }
+            List<Row> chunk = new ArrayList<>(properties.getChunkSize());
+            String line;
+            while ((line = reader.readLine()) != null) {
+                checkInterrupted();
+                lineNumber++;
+                job.setLinesRead(lineNumber);
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    chunk.add(validate(columns == null ? parseNdjson(lineNumber, line)
+                            : parseCsv(lineNumber, line, columns)));
+                } catch (IllegalArgumentException e) {
+                    job.reject(lineNumber, e.getMessage());
+                }
+                if (chunk.size() == properties.getChunkSize()) {
+                    write(job, chunk, authorIds);
+                    chunk.clear();
+                    job.setProgress((int) Math.min(99, in.getChannel().position() * 100 / size));
+                }
+            }
+            checkInterrupted();
+            write(job, chunk, authorIds);
+            job.setProgress(100);
+            job.setStatus(ImportJob.Status.SUCCESS);
+        } catch (IOException | RuntimeException e) {
+            // The file channel closes itself when interrupted, before checkInterrupted runs.
+            job.setMessage(e instanceof ClosedByInterruptException ? STOPPED : e.getMessage());
+            job.setStatus(ImportJob.Status.FAILURE);
+            LOGGER.log(Level.WARNING, "Import job " + job.getId() + " failed", e);
+        }
+        LOGGER.info(() -> "Import job " + job.getId() + " finished: " + job.getBooksImported()
+                + " books, " + job.getFailedLines() + " failed lines");
+    }
+
+    /**Stops the import between lines and chunks once {@link #shutdown} interrupted it; the
+     * chunks written so far stay.*/
+    private static void checkInterrupted() throws InterruptedIOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException(STOPPED);
+        }
+    }
+
+    private Map<String, Long> loadAuthorIds() {
+        Map<String, Long> authorIds = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<Object[]> rows = authorRepository.streamNamesAndIds()) {
+                rows.forEach(row -> authorIds.putIfAbsent((String) row[0], (Long) row[1]));
+            }
+        });
+        return authorIds;
+    }
+
+    private static int[] csvColumns(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("The CSV file is empty");
+        }
+        List<String> names = Tools.splitCsvLine(header.strip()).stream()
+                .map(name -> name.strip().toLowerCase())
+                .toList();
+        int[] columns = new int[CSV_COLUMNS.size()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = names.indexOf(CSV_COLUMNS.get(i));
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("The CSV header should have the columns "
+                        + CSV_COLUMNS);
+            }
+        }
+        return columns;
+    }
+
+    private Row parseNdjson(long lineNumber, String line) {
+        BookImportDto book;
+        try {
+            book = objectMapper.readValue(line, BookImportDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+        return new Row(lineNumber, book.getTitle(), book.getPages(),
+                book.getAuthors() == null ? List.of() : book.getAuthors(),
+                book.getComments() == null ? List.of() : book.getComments());
+    }
+
+    private static Row parseCsv(long lineNumber, String line, int[] columns) {
+        List<String> fields = Tools.splitCsvLine(line);
+        for (int column : columns) {
+            if (column >= fields.size()) {
+                throw new IllegalArgumentException("Expected at least " + (column + 1)
+                        + " fields, found " + fields.size());
+            }
+        }
+        int pages = Tools.tryParseInt(fields.get(columns[1]).strip()).orElseThrow(()
+                -> new IllegalArgumentException("Pages should be a number"));
+        List<String> authors = new ArrayList<>();
+        for (String name : fields.get(columns[2]).split("\\|")) {
+            if (!name.isBlank()) {
+                authors.add(name.strip());
+            }
+        }
+        return new Row(lineNumber, fields.get(columns[0]), pages, authors, List.of());
+    }
+
+    /**Checks the line against the constraints of the entities it becomes.*/
+    private Row validate(Row row) {
+        Set<ConstraintViolation<?>> violations = new LinkedHashSet<>(
+                validator.validate(new Book(row.title, List.of(), row.pages)));
+        for (String name : row.authors) {
+            violations.addAll(validator.validate(new Author(name)));
+        }
+        for (CommentDto comment : row.comments) {
+            violations.addAll(validator.validate(comment));
+        }
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .distinct()
+                    .collect(Collectors.joining("; ")));
+        }
+        return row;
+    }
+
+    private void write(ImportJob job, List<Row> rows, Map<String, Long> authorIds)
+            throws InterruptedIOException {
+        if (rows.isEmpty()) {
+            return;
+        }
+        ChunkResult result;
+        try {
+            result = transactionTemplate.execute(status -> writeChunk(rows, authorIds));
+        } catch (RuntimeException e) {
+            if (rows.size() == 1) {
+                job.reject(rows.get(0).line, "Could not be stored: " + e.getMessage());
+                return;
+            }
+            for (Row row : rows) {
+                checkInterrupted();
+                write(job, List.of(row), authorIds);
+            }
+            return;
+        }
+        // Only authors of committed chunks may be referenced by later ones.
+        authorIds.putAll(result.createdAuthors);
+        result.rejected.forEach(job::reject);
+        job.imported(result.books, result.createdAuthors.size(), result.comments);
+        cacheInvalidationService.bookCreated(result.linkedAuthorIds);
+    }
+
+    private ChunkResult writeChunk(List<Row> rows, Map<String, Long> authorIds) {
+        ChunkResult result = new ChunkResult();
+        Set<String> titles = rows.stream().map(row -> row.title).collect(Collectors.toSet());
+        Set<String> taken = new HashSet<>(bookRepository.findTitlesByTitleIn(titles));
+        Set<Long> userIds = rows.stream()
+                .flatMap(row -> row.comments.stream())
+                .map(CommentDto::getUserId)
+                .collect(Collectors.toSet());
+        Set<Long> users = userIds.isEmpty() ? Set.of()
+                : new HashSet<>(userRepository.findIdsByIdIn(userIds));
+
+        Map<String, Author> newAuthors = new HashMap<>();
+        // Sorted, so concurrent imports update the counters in the same order.
+        Map<Long, Long> commentsByBook = new TreeMap<>();
+        Map<Long, Long> commentsByUser = new TreeMap<>();
+        for (Row row : rows) {
+            if (!taken.add(row.title)) {
+                result.rejected.put(row.line, "Book already exists: " + row.title);
+                continue;
+            }
+            Long unknownUser = row.comments.stream()
+                    .map(CommentDto::getUserId)
+                    .filter(id -> !users.contains(id))
+                    .findFirst()
+                    .orElse(null);
+            if (unknownUser != null) {
+                result.rejected.put(row.line, UserService.USER_ID_NOT_FOUND + unknownUser);
+                continue;
+            }
+
+            List<Author> authors = new ArrayList<>();
+            for (String name : new LinkedHashSet<>(row.authors)) {
+                Long id = authorIds.get(name);
+                if (id != null) {
+                    authors.add(entityManager.getReference(Author.class, id));
+                    result.linkedAuthorIds.add(id);
+                } else {
+                    authors.add(newAuthors.computeIfAbsent(name, key -> {
+                        Author author = new Author(key);
+                        entityManager.persist(author);
+                        return author;
+                    }));
+                }
+            }
+            Book book = new Book(row.title, authors, row.pages);
+            entityManager.persist(book);
+            result.books++;
+            for (CommentDto comment : row.comments) {
+                User user = entityManager.getReference(User.class, comment.getUserId());
+                entityManager.persist(new Comment(null, book, user, comment.getText()));
+                commentsByBook.merge(book.getId(), 1L, Long::sum);
+                commentsByUser.merge(user.getId(), 1L, Long::sum);
+                result.comments++;
+            }
+        }
+        entityManager.flush();
+        commentCountService.commentsAdded(commentsByBook, commentsByUser);
+        newAuthors.forEach((name, author) -> result.createdAuthors.put(name, author.getId()));
+        entityManager.clear();
+        return result;
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not delete " + file, e);
+        }
+    }
+
+    private static class Row {
+        private final long line;
+        private final String title;
+        private final int pages;
+        private final List<String> authors;
+        private final List<CommentDto> comments;
+
+        Row(long line, String title, int pages, List<String> authors,
+            List<CommentDto> comments) {
+            this.line = line;
+            this.title = title;
+            this.pages = pages;
+            this.authors = authors;
+            this.comments = comments;
+        }
+    }
+
+    private static class ChunkResult {
+        private final Map<Long, String> rejected = new TreeMap<>();
+        private final Map<String, Long> createdAuthors = new HashMap<>();
+        private final Set<Long> linkedAuthorIds = new HashSet<>();
+        private long books;
+        private long comments;
+    }
+}
@@ -0,0 +1,213 @@
+package javalab.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javalab.config.CacheHolder;
+import javalab.config.LogJobProperties;
+import javalab.exception.TooManyRequestsException;
+import javalab.logger.NoLogging;
+import javalab.model.Log;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**Runs log extraction jobs on a fixed set of worker threads.
+ *
+ * <p>Waiting jobs are ordered by priority, then by submission. A request for a date that
+ * already has a waiting or running job gets that job instead of a new one. When the queue
+ * is full new jobs are rejected with 429 rather than piling up. Jobs stay in the scheduler
+ * until they finish and are then only kept in the log cache.</p>*/
+@Service
+public class LogJobScheduler {
+    private static final Logger LOGGER = Logger.getLogger(LogJobScheduler.class.getName());
+
+    private final LogJobProperties properties;
+    private final AsyncLogService asyncLogService;
+    private final CacheHolder cacheHolder;
+
+    private final AtomicLong idCounter = new AtomicLong(1);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    /**Guarded by {@link #lock}.*/
+    private final PriorityQueue<Log> queue = new PriorityQueue<>(
+            Comparator.comparingInt(Log::getPriority).reversed().thenComparing(Log::getId));
+    /**Waiting and running jobs by date, for deduplication. Guarded by {@link #lock}.*/
+    private final Map<String, Log> byDate = new HashMap<>();
+    private final Map<Long, Log> active = new ConcurrentHashMap<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    @Autowired
+    public LogJobScheduler(LogJobProperties properties,
+                           AsyncLogService asyncLogService,
+                           CacheHolder cacheHolder) {
+        this.properties = properties;
+        this.asyncLogService = asyncLogService;
+        this.cacheHolder = cacheHolder;
+    }
+
+    @PostConstruct
+    public void start() {
+        // Extracts already in this instance's directory belong to no job of this run.
+        asyncLogService.purgeExtracts(id -> false);
+        running = true;
+        for (int i = 0; i < properties.getWorkers(); i++) {
+            Thread worker = new Thread(this::work, "log-job-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        workers.clear();
+    }
+
+    /**Queues a job for the date, or returns the job already waiting or running for it.
+     * A duplicate request with a higher priority moves the waiting job up.*/
+    public Log submit(String date, int priority) {
+        lock.lock();
+        try {
+            Log existing = byDate.get(date);
+            if (existing != null) {
+                if (priority > existing.getPriority() && queue.remove(existing)) {
+                    existing.setPriority(priority);
+                    queue.add(existing);
+                }
+                return existing;
+            }
+            if (queue.size() >= properties.getQueueCapacity()) {
+                throw new TooManyRequestsException("Log job queue is full, retry later",
+                        properties.getRetryAfterSeconds());
+            }
+            Log log = new Log(idCounter.getAndIncrement(), Log.Status.QUEUED, date);
+            log.setPriority(priority);
+            byDate.put(date, log);
+            active.put(log.getId(), log);
+            queue.add(log);
+            notEmpty.signal();
+            return log;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**Returns false if the job is unknown or already finished. A waiting job is dropped at
+     * once; a running one stops at its next line.*/
+    public boolean cancel(Long id) {
+        Log log = active.get(id);
+        if (log == null) {
+            return false;
+        }
+        lock.lock();
+        try {
+            if (queue.remove(log)) {
+                log.setStatus(Log.Status.CANCELLED);
+                finish(log);
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        log.setCancelRequested(true);
+        return !log.isFinished();
+    }
+
+    /**A waiting or running job, else the finished job from the cache, else null.*/
+    public Log find(Long id) {
+        Log log = active.get(id);
+        return log != null ? log : cacheHolder.getLogFileCache().get(id);
+    }
+
+    /**1-based position among the waiting jobs, or 0 if the job is not waiting.*/
+    @NoLogging
+    public int queuePosition(Long id) {
+        Log log = active.get(id);
+        if (log == null || log.getStatus() != Log.Status.QUEUED) {
+            return 0;
+        }
+        lock.lock();
+        try {
+            if (!queue.contains(log)) {
+                return 0;
+            }
+            Comparator<? super Log> order = queue.comparator();
+            int ahead = 0;
+            for (Log other : queue) {
+                if (order.compare(other, log) < 0) {
+                    ahead++;
+                }
+            }
+            return ahead + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueueSize() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void work() {
+        while (running) {
+            Log log;
+            lock.lock();
+            try {
+                while (queue.isEmpty()) {
+                    notEmpty.await();
+                }
+                log = queue.poll();
+                log.setStatus(Log.Status.IN_PROGRESS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                asyncLogService.createLogs(log);
+            } catch (Throwable e) {
+                // An Error fails the job too; the worker goes on with the next one.
+                log.setStatus(Log.Status.FAILURE);
+                LOGGER.log(Level.WARNING, "Log job " + log.getId() + " failed", e);
+            } finally {
+                finish(log);
+            }
+        }
+    }
+
+    private void finish(Log log) {
+        lock.lock();
+        try {
+            byDate.remove(log.getDate(), log);
+        } finally {
+            lock.unlock();
+        }
+        cacheHolder.getLogFileCache().put(log.getId(), log);
+        active.remove(log.getId());
+        // Jobs evicted from the cache can no longer be downloaded.
+        asyncLogService.purgeExtracts(id -> active.containsKey(id)
+                || cacheHolder.getLogFileCache().containsKey(id));
+    }
+}
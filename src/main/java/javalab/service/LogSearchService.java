@@ -0,0 +1,311 @@
+package javalab.service;
+
+import ch.qos.logback.classic.Level;
+import jakarta.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import javalab.exception.BadRequestException;
+import javalab.exception.InternalException;
+import javalab.logger.LogFileIndex;
+import javalab.logger.LogPattern;
+import javalab.logger.NoLogging;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**Searches the application log by time range, level, logger and message text.
+ *
+ * <p>The time range is narrowed to a byte range with {@link LogFileIndex}. A large range is
+ * cut into chunks at entry boundaries and scanned on all cores. Each chunk worker keeps at
+ * most {@value #MAX_BUFFERED} matches; the request thread writes the chunks in file order
+ * and scans whatever a worker left unfinished itself, so results stream in order, memory is
+ * bounded and workers never wait on each other.</p>*/
+@Service
+public class LogSearchService {
+    public static final int DEFAULT_LIMIT = 1000;
+    public static final int MAX_LIMIT = 100_000;
+    private static final int MAX_BUFFERED = 1000;
+    private static final long MIN_CHUNK = 4L << 20;
+
+    private final LogFileIndex logFileIndex;
+    private final LogPattern logPattern;
+    private final long minChunk;
+    private final int parallelism = Runtime.getRuntime().availableProcessors();
+    private final ExecutorService executor = Executors.newFixedThreadPool(parallelism, r -> {
+        Thread thread = new Thread(r, "log-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public LogSearchService(LogFileIndex logFileIndex, LogPattern logPattern) {
+        this(logFileIndex, logPattern, MIN_CHUNK);
+    }
+
+    /**{@code minChunk} is the smallest range worth a worker of its own.*/
+    public LogSearchService(LogFileIndex logFileIndex, LogPattern logPattern, long minChunk) {
+        this.logFileIndex = logFileIndex;
+        this.logPattern = logPattern;
+        this.minChunk = minChunk;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**Validates the request parameters into a filter; all of them are optional.*/
+    public Filter filter(Optional<LocalDateTime> from, Optional<LocalDateTime> to,
+                         Optional<String> level, Optional<String> logger,
+                         Optional<String> text, Optional<String> regex,
+                         Optional<Integer> limit) {
+        int max = limit.orElse(DEFAULT_LIMIT);
+        if (max < 1 || max > MAX_LIMIT) {
+            throw new BadRequestException("Limit should be between 1 and " + MAX_LIMIT);
+        }
+        Level minLevel = level.map(name -> {
+            Level parsed = Level.toLevel(name, null);
+            if (parsed == null) {
+                throw new BadRequestException("Unknown level: " + name);
+            }
+            return parsed;
+        }).orElse(null);
+        Pattern pattern;
+        try {
+            pattern = regex.map(Pattern::compile).orElse(null);
+        } catch (PatternSyntaxException e) {
+            throw new BadRequestException("Invalid regex: " + e.getDescription());
+        }
+        return new Filter(from.orElse(null), to.orElse(null), minLevel, logger.orElse(null),
+                text.orElse(null), pattern, max);
+    }
+
+    /**Writes the matching entries, each with its continuation lines, in file order;
+     * returns the number of entries written.*/
+    @NoLogging
+    public int search(Filter filter, OutputStream out) throws IOException {
+        long start = filter.from == null ? 0 : logFileIndex.offsetOf(filter.from);
+        long end = filter.to == null ? logFileIndex.refresh() : logFileIndex.offsetOf(
+                filter.to.plusHours(1));
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        AtomicInteger written = new AtomicInteger();
+        AtomicBoolean stop = new AtomicBoolean();
+        Predicate<Entry> emit = entry -> {
+            try {
+                writer.write(entry.text.toString());
+                writer.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            if (written.incrementAndGet() >= filter.limit) {
+                stop.set(true);
+                return false;
+            }
+            return true;
+        };
+
+        try {
+            List<Long> bounds = chunkBounds(start, end);
+            List<Future<Chunk>> futures = new ArrayList<>();
+            for (int i = 1; i < bounds.size() - 1; i++) {
+                long from = bounds.get(i);
+                long to = bounds.get(i + 1);
+                futures.add(executor.submit(() -> prefetch(filter, from, to, stop)));
+            }
+            scan(filter, bounds.get(0), bounds.get(1), stop, emit);
+            for (int i = 0; i < futures.size() && !stop.get(); i++) {
+                Chunk chunk = await(futures.get(i), bounds.get(i + 1));
+                for (Entry entry : chunk.matches) {
+                    if (!emit.test(entry)) {
+                        break;
+                    }
+                }
+                if (!stop.get() && chunk.resumeAt < bounds.get(i + 2)) {
+                    scan(filter, chunk.resumeAt, bounds.get(i + 2), stop, emit);
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            stop.set(true);
+        }
+        writer.flush();
+        return written.get();
+    }
+
+    /**Chunk boundaries from {@code start} to {@code end}, each at the first line of an entry.*/
+    private List<Long> chunkBounds(long start, long end) throws IOException {
+        List<Long> bounds = new ArrayList<>();
+        bounds.add(start);
+        long chunk = Math.max(minChunk, (end - start) / parallelism);
+        for (long nominal = start + chunk; nominal < end; nominal += chunk) {
+            long bound = nextEntryStart(nominal, end);
+            if (bound > bounds.get(bounds.size() - 1) && bound < end) {
+                bounds.add(bound);
+            }
+        }
+        bounds.add(end);
+        return bounds;
+    }
+
+    private long nextEntryStart(long offset, long end) throws IOException {
+        long[] found = {end};
+        long[] lineStart = {offset};
+        boolean[] first = {true};
+        logFileIndex.forEachLine(offset, end, (line, lineEnd) -> {
+            // The first line read is usually the tail of a line that started before.
+            if (!first[0] && logPattern.parse(line) != null) {
+                found[0] = lineStart[0];
+                return false;
+            }
+            first[0] = false;
+            lineStart[0] = lineEnd;
+            return true;
+        });
+        return found[0];
+    }
+
+    private Chunk prefetch(Filter filter, long from, long to, AtomicBoolean stop)
+            throws IOException {
+        List<Entry> matches = new ArrayList<>();
+        long resumeAt = scan(filter, from, to, stop, entry -> {
+            matches.add(entry);
+            return matches.size() < MAX_BUFFERED;
+        });
+        return new Chunk(matches, resumeAt);
+    }
+
+    /**Unstarted chunks are taken back and scanned by the caller.*/
+    private static Chunk await(Future<Chunk> future, long chunkStart) throws IOException {
+        if (future.cancel(false)) {
+            return new Chunk(List.of(), chunkStart);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InternalException("Log search interrupted");
+        } catch (CancellationException e) {
+            return new Chunk(List.of(), chunkStart);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new InternalException("Log search failed: " + e.getCause().getMessage());
+        }
+    }
+
+    /**Feeds matching entries of {@code [from, to)} to the sink until it returns false.
+     * Returns the offset of the first entry not handed over, or {@code to}.*/
+    private long scan(Filter filter, long from, long to, AtomicBoolean stop,
+                      Predicate<Entry> sink) throws IOException {
+        Entry[] current = {null};
+        long[] lineStart = {from};
+        long[] resumeAt = {to};
+        boolean completed = logFileIndex.forEachLine(from, to, (line, end) -> {
+            if (stop.get()) {
+                resumeAt[0] = lineStart[0];
+                return false;
+            }
+            LogPattern.Header header = logPattern.parse(line);
+            if (header != null) {
+                if (current[0] != null && filter.test(current[0]) && !sink.test(current[0])) {
+                    resumeAt[0] = lineStart[0];
+                    current[0] = null;
+                    return false;
+                }
+                current[0] = new Entry(header, line);
+            } else if (current[0] != null) {
+                current[0].text.append('\n').append(line);
+            }
+            lineStart[0] = end;
+            return true;
+        });
+        if (completed && current[0] != null && filter.test(current[0])) {
+            sink.test(current[0]);
+        }
+        return resumeAt[0];
+    }
+
+    private static class Entry {
+        private final LogPattern.Header header;
+        private final StringBuilder text;
+
+        Entry(LogPattern.Header header, String firstLine) {
+            this.header = header;
+            this.text = new StringBuilder(firstLine);
+        }
+    }
+
+    private static class Chunk {
+        private final List<Entry> matches;
+        private final long resumeAt;
+
+        Chunk(List<Entry> matches, long resumeAt) {
+            this.matches = matches;
+            this.resumeAt = resumeAt;
+        }
+    }
+
+    /**Search criteria; a null field does not filter.*/
+    public static class Filter {
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+        private final Level minLevel;
+        private final String loggerPrefix;
+        private final String text;
+        private final Pattern regex;
+        private final int limit;
+
+        Filter(LocalDateTime from, LocalDateTime to, Level minLevel, String loggerPrefix,
+               String text, Pattern regex, int limit) {
+            this.from = from;
+            this.to = to;
+            this.minLevel = minLevel;
+            this.loggerPrefix = loggerPrefix;
+            this.text = text;
+            this.regex = regex;
+            this.limit = limit;
+        }
+
+        /**Text and regex are matched against the whole entry, stack trace included.*/
+        private boolean test(Entry entry) {
+            LogPattern.Header header = entry.header;
+            LocalDateTime time = header.getTime();
+            if (time != null && (from != null && time.isBefore(from)
+                    || to != null && !time.isBefore(to))) {
+                return false;
+            }
+            if (minLevel != null && (header.getLevel() == null
+                    || !Level.toLevel(header.getLevel()).isGreaterOrEqual(minLevel))) {
+                return false;
+            }
+            if (loggerPrefix != null && (header.getLogger() == null
+                    || !header.getLogger().startsWith(loggerPrefix))) {
+                return false;
+            }
+            if (text != null && entry.text.indexOf(text) < 0) {
+                return false;
+            }
+            return regex == null || regex.matcher(entry.text).find();
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package javalab.service;
 
-import java.util.concurrent.atomic.AtomicLong;
-import javalab.config.CacheHolder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javalab.exception.ConflictException;
+import javalab.exception.NotFoundException;
 import javalab.logger.NoLogging;
 import javalab.model.Log;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,50 +12,69 @@ import org.springframework.stereotype.Service;
 @Service
 public class LogService {
     private static final String NO_SUCH_LOG = "No such log id exists in cache";
-    private final CacheHolder cacheHolder;
-    private final AtomicLong idCounter = new AtomicLong(1);
-    private final AsyncLogService asyncLogService;
+    private final LogJobScheduler logJobScheduler;
 
     @Autowired
-    public LogService(CacheHolder cacheHolder, AsyncLogService asyncLogService) {
-        this.cacheHolder = cacheHolder;
-        this.asyncLogService = asyncLogService;
+    public LogService(LogJobScheduler logJobScheduler) {
+        this.logJobScheduler = logJobScheduler;
     }
 
-    public Log generateLogs(String date) {
-        Long id = idCounter.getAndIncrement();
-        Log log = new Log(id, Log.Status.IN_PROGRESS, date);
-        cacheHolder.getLogFileCache().put(id, log);
-        asyncLogService.createLogs(id, date);
-        return log;
+    /**Validates the date up front, so a malformed one is a 400 rather than a failed job.*/
+    public Log generateLogs(String date, int priority) {
+        AsyncLogService.parseDate(date);
+        return logJobScheduler.submit(date, priority);
+    }
+
+    public void cancel(Long id) {
+        if (!logJobScheduler.cancel(id)) {
+            throw new NotFoundException("No running or queued log job with id " + id);
+        }
     }
 
     public String getLogStatus(Long id) {
-        if (!cacheHolder.getLogFileCache().containsKey(id)) {
+        Log log = logJobScheduler.find(id);
+        if (log == null) {
             return "FAILURE";
         }
-        return cacheHolder.getLogFileCache().get(id).getStatus().name();
+        return log.getStatus().name();
     }
 
     public String getLogDate(Long id) {
-        if (!cacheHolder.getLogFileCache().containsKey(id)) {
+        Log log = logJobScheduler.find(id);
+        if (log == null) {
             return NO_SUCH_LOG;
         }
-        return cacheHolder.getLogFileCache().get(id).getDate();
+        return log.getDate();
     }
 
+    public int getLogProgress(Long id) {
+        Log log = logJobScheduler.find(id);
+        return log == null ? 0 : log.getProgress();
+    }
+
+    public int getQueuePosition(Long id) {
+        return logJobScheduler.queuePosition(id);
+    }
+
+    /**The file with the extracted lines of a finished job.*/
     @NoLogging
-    public String getLogBody(Long id) {
-        if (!cacheHolder.getLogFileCache().containsKey(id)) {
-            return NO_SUCH_LOG;
+    public Path getLogFile(Long id) {
+        Log log = logJobScheduler.find(id);
+        if (log == null) {
+            throw new NotFoundException(NO_SUCH_LOG);
         }
-
-        if (cacheHolder.getLogFileCache().get(id).getStatus() == Log.Status.IN_PROGRESS) {
-            return "Log file still in progress.";
+        if (log.getStatus() == Log.Status.QUEUED || log.getStatus() == Log.Status.IN_PROGRESS) {
+            throw new ConflictException("Log file still in progress.");
+        }
+        if (log.getStatus() == Log.Status.FAILURE) {
+            throw new NotFoundException("Failure to generate log.");
+        }
+        if (log.getStatus() == Log.Status.CANCELLED) {
+            throw new NotFoundException("Log generation was cancelled.");
         }
-        if (cacheHolder.getLogFileCache().get(id).getStatus() == Log.Status.FAILURE) {
-            return "Failure to generate log.";
+        if (log.getFile() == null || !Files.exists(log.getFile())) {
+            throw new NotFoundException(NO_SUCH_LOG);
         }
-        return cacheHolder.getLogFileCache().get(id).getBody();
+        return log.getFile();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package javalab.service;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+import javalab.dto.MethodLatencyDto;
+import javalab.exception.BadRequestException;
+import javalab.logger.NoLogging;
+import javalab.utility.LatencyHistogram;
+import org.springframework.stereotype.Service;
+
+/**Latency histograms and error counts per application method, filled by
+ * {@code MethodMetricsAspect}. Also exported over JMX by {@code MethodMetricsExporter}.*/
+@Service
+public class MethodMetricsService {
+    private static final double NANOS_PER_MICRO = 1000.0;
+    private static final int MAX_LIMIT = 1000;
+    private static final Map<String, Comparator<MethodLatencyDto>> ORDERS = Map.of(
+            "p99", Comparator.comparingDouble(MethodLatencyDto::getP99Micros),
+            "p999", Comparator.comparingDouble(MethodLatencyDto::getP999Micros),
+            "p50", Comparator.comparingDouble(MethodLatencyDto::getP50Micros),
+            "max", Comparator.comparingDouble(MethodLatencyDto::getMaxMicros),
+            "mean", Comparator.comparingDouble(MethodLatencyDto::getMeanMicros),
+            "count", Comparator.comparingLong(MethodLatencyDto::getCount),
+            "errors", Comparator.comparingLong(MethodLatencyDto::getErrors));
+
+    private final Map<Method, MethodStats> stats = new ConcurrentHashMap<>();
+
+    /**Statistics of the method, created on its first call.*/
+    @NoLogging
+    public MethodStats statsOf(Method method) {
+        MethodStats existing = stats.get(method);
+        return existing != null ? existing : stats.computeIfAbsent(method, MethodStats::new);
+    }
+
+    /**Methods ordered by the given statistic, highest first.*/
+    public List<MethodLatencyDto> getLatencies(String sort, int limit) {
+        Comparator<MethodLatencyDto> order = ORDERS.get(sort);
+        if (order == null) {
+            throw new BadRequestException("Sort should be one of " + ORDERS.keySet());
+        }
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new BadRequestException("Limit should be between 1 and " + MAX_LIMIT);
+        }
+        return stats.values().stream()
+                .filter(methodStats -> methodStats.histogram.getCount() > 0)
+                .map(MethodStats::toDto)
+                .sorted(order.reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    /**Slowest methods by p99, one line each.*/
+    public String[] getSlowestMethods() {
+        return getLatencies("p99", 20).stream()
+                .map(dto -> String.format("%s count=%d errors=%d p50=%.1fus p99=%.1fus "
+                                + "p999=%.1fus max=%.1fus", dto.getMethod(), dto.getCount(),
+                        dto.getErrors(), dto.getP50Micros(), dto.getP99Micros(),
+                        dto.getP999Micros(), dto.getMaxMicros()))
+                .toArray(String[]::new);
+    }
+
+    /**Number of methods called so far.*/
+    public int getMethodCount() {
+        return stats.size();
+    }
+
+    /**Clears all histograms and error counts.*/
+    public void reset() {
+        stats.values().forEach(MethodStats::reset);
+    }
+
+    /**Recording target of one method; recording does not allocate.*/
+    public static class MethodStats {
+        private final String name;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private final LongAdder errors = new LongAdder();
+
+        MethodStats(Method method) {
+            this.name = method.getDeclaringClass().getSimpleName() + "." + method.getName()
+                    + Arrays.stream(method.getParameterTypes()).map(Class::getSimpleName)
+                    .collect(Collectors.joining(", ", "(", ")"));
+        }
+
+        public void record(long nanos, boolean failed) {
+            histogram.record(nanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+
+        private void reset() {
+            histogram.reset();
+            errors.reset();
+        }
+
+        private MethodLatencyDto toDto() {
+            return new MethodLatencyDto(name, histogram.getCount(), errors.sum(),
+                    histogram.getMean() / NANOS_PER_MICRO,
+                    histogram.getValueAtPercentile(50) / NANOS_PER_MICRO,
+                    histogram.getValueAtPercentile(99) / NANOS_PER_MICRO,
+                    histogram.getValueAtPercentile(99.9) / NANOS_PER_MICRO,
+                    histogram.getMax() / NANOS_PER_MICRO);
+        }
+    }
+}
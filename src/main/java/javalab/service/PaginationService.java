@@ -0,0 +1,64 @@
+package javalab.service;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import javalab.config.PaginationProperties;
+import javalab.dto.PageDto;
+import javalab.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+/**Keyset (cursor) pagination on id. A page is requested as the rows after a given id in the
+ * chosen direction, so a deep page costs one index range scan just like the first one.*/
+@Service
+public class PaginationService {
+    private static final String ID = "id";
+
+    private final PaginationProperties properties;
+
+    @Autowired
+    public PaginationService(PaginationProperties properties) {
+        this.properties = properties;
+    }
+
+    public Sort.Direction direction(String sort) {
+        return Sort.Direction.fromOptionalString(sort).orElseThrow(()
+                -> new BadRequestException("Sort should be 'asc' or 'desc': " + sort));
+    }
+
+    public int pageSize(Optional<Integer> size) {
+        int pageSize = size.orElse(properties.getDefaultPageSize());
+        if (pageSize < 1 || pageSize > properties.getMaxPageSize()) {
+            throw new BadRequestException("Page size should be between 1 and "
+                    + properties.getMaxPageSize());
+        }
+        return pageSize;
+    }
+
+    /**Cursor to start from when the request has none.*/
+    public long cursor(Optional<Long> after, Sort.Direction direction) {
+        return after.orElse(direction.isAscending() ? Long.MIN_VALUE : Long.MAX_VALUE);
+    }
+
+    /**Requests one row more than the page size to find out whether there is a next page.*/
+    public Pageable request(int pageSize, Sort.Direction direction) {
+        return PageRequest.of(0, pageSize + 1, Sort.by(direction, ID));
+    }
+
+    public <T> PageDto<T> toPage(List<T> rows, int pageSize, Function<T, Long> idOf) {
+        if (rows.size() <= pageSize) {
+            return new PageDto<>(rows, null);
+        }
+        List<T> items = rows.subList(0, pageSize);
+        return new PageDto<>(List.copyOf(items), idOf.apply(items.get(pageSize - 1)));
+    }
+
+    /**Hard cap of the unpaged listings, ordered by id.*/
+    public Pageable unpagedRequest() {
+        return PageRequest.of(0, properties.getMaxUnpagedResults(), Sort.by(ID));
+    }
+}
@@ -1,33 +1,76 @@
 package javalab.service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import javalab.dto.CommentDto;
+import javalab.dto.PageDto;
+import javalab.exception.BadRequestException;
 import javalab.exception.NotFoundException;
-import javalab.model.Comment;
 import javalab.model.User;
 import javalab.repository.CommentRepository;
 import javalab.repository.UserRepository;
+import javalab.utility.Tools;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class UserService {
     public static final String USER_ID_NOT_FOUND = "User id not found: ";
+    /**Ids per IN list when fetching associations of many users.*/
+    private static final int FETCH_CHUNK_SIZE = 1000;
     private final CommentRepository commentRepository;
     private final UserRepository userRepository;
+    private final PaginationService paginationService;
+    private final CommentCountService commentCountService;
+    private final BulkService bulkService;
 
     @Autowired
     public UserService(UserRepository userRepository, CommentRepository
-            commentRepository) {
+            commentRepository, PaginationService paginationService,
+                       CommentCountService commentCountService, BulkService bulkService) {
         this.userRepository = userRepository;
         this.commentRepository = commentRepository;
+        this.paginationService = paginationService;
+        this.commentCountService = commentCountService;
+        this.bulkService = bulkService;
     }
 
+    /**Returns at most {@code pagination.max-unpaged-results} users.*/
+    @Transactional(readOnly = true)
     public List<User> getUsers(Optional<Long> commentCountMin) {
-        if (commentCountMin.isPresent()) {
-            return userRepository.findByCommentCount(commentCountMin.get());
+        Pageable limit = paginationService.unpagedRequest();
+        List<User> users = commentCountMin.isPresent()
+                ? userRepository.findByCommentCount(commentCountMin.get(), limit)
+                : userRepository.findAllUsers(limit);
+        fetchComments(users);
+        return users;
+    }
+
+    @Transactional(readOnly = true)
+    public PageDto<User> getPage(Optional<Long> after, Optional<Integer> size, String sort) {
+        Sort.Direction direction = paginationService.direction(sort);
+        int pageSize = paginationService.pageSize(size);
+        long cursor = paginationService.cursor(after, direction);
+        Pageable request = paginationService.request(pageSize, direction);
+        List<User> users = direction.isAscending()
+                ? userRepository.findByIdGreaterThan(cursor, request)
+                : userRepository.findByIdLessThan(cursor, request);
+        PageDto<User> page = paginationService.toPage(users, pageSize, User::getId);
+        fetchComments(page.getItems());
+        return page;
+    }
+
+    private void fetchComments(List<User> users) {
+        List<Long> ids = users.stream().map(User::getId).toList();
+        for (List<Long> chunk : Tools.partition(ids, FETCH_CHUNK_SIZE)) {
+            userRepository.fetchCommentsByIdIn(chunk);
         }
-        return userRepository.findAll();
     }
 
     public User getUser(Long id) {
@@ -40,28 +83,77 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    @Transactional
+    public List<User> createAll(List<User> users) {
+        bulkService.checkSize(users);
+        return bulkService.persistAll(users);
+    }
+
+    /**Updates all the users or none of them; every user should carry its id.*/
+    @Transactional
+    public List<User> updateAll(List<User> users) {
+        bulkService.checkSize(users);
+        if (users.stream().anyMatch(user -> user.getId() == null)) {
+            throw new BadRequestException("Every user should have an id");
+        }
+        Set<Long> ids = bulkService.uniqueKeys(users, User::getId, "User id");
+        Map<Long, Long> commentCounts = new HashMap<>();
+        for (List<Long> chunk : Tools.partition(List.copyOf(ids), FETCH_CHUNK_SIZE)) {
+            userRepository.findAllById(chunk)
+                    .forEach(user -> commentCounts.put(user.getId(), user.getCommentCount()));
+        }
+        for (Long id : ids) {
+            if (!commentCounts.containsKey(id)) {
+                throw new NotFoundException(USER_ID_NOT_FOUND + id);
+            }
+        }
+        users.forEach(user -> user.setCommentCount(commentCounts.get(user.getId())));
+        return bulkService.mergeAll(users);
+    }
+
+    @Transactional
     public void delete(Long id) {
         if (!userRepository.existsById(id)) {
             throw new NotFoundException(USER_ID_NOT_FOUND + id);
         }
         User user = getUser(id);
+        commentCountService.userDeleting(id);
         commentRepository.deleteAll(user.getComments());
         userRepository.deleteById(id);
     }
 
     public User update(Long id, User user) {
-        if (!userRepository.existsById(id)) {
-            throw new NotFoundException(USER_ID_NOT_FOUND + id);
-        }
+        // The merge copies the count onto the returned entity, although it never writes it.
+        user.setCommentCount(getUser(id).getCommentCount());
         user.setId(id);
         return userRepository.save(user);
     }
 
-    public List<Comment> getUserComments(Long id) {
-        if (!userRepository.existsById(id)) {
+    /**Returns at most {@code pagination.max-unpaged-results} comments of the user.*/
+    @Transactional(readOnly = true)
+    public List<CommentDto> getUserComments(Long id) {
+        List<CommentDto> comments = commentRepository.findDtosByUserIdAndIdGreaterThan(id,
+                Long.MIN_VALUE, paginationService.unpagedRequest());
+        if (comments.isEmpty() && !userRepository.existsById(id)) {
             throw new NotFoundException(USER_ID_NOT_FOUND + id);
         }
-        User user = getUser(id);
-        return user.getComments();
+        return comments;
+    }
+
+    /**One query per page; the user is looked up only when the page comes back empty.*/
+    @Transactional(readOnly = true)
+    public PageDto<CommentDto> getCommentPage(Long id, Optional<Long> after,
+                                              Optional<Integer> size, String sort) {
+        Sort.Direction direction = paginationService.direction(sort);
+        int pageSize = paginationService.pageSize(size);
+        long cursor = paginationService.cursor(after, direction);
+        Pageable request = paginationService.request(pageSize, direction);
+        List<CommentDto> comments = direction.isAscending()
+                ? commentRepository.findDtosByUserIdAndIdGreaterThan(id, cursor, request)
+                : commentRepository.findDtosByUserIdAndIdLessThan(id, cursor, request);
+        if (comments.isEmpty() && !userRepository.existsById(id)) {
+            throw new NotFoundException(USER_ID_NOT_FOUND + id);
+        }
+        return paginationService.toPage(comments, pageSize, CommentDto::getId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,145 @@
+package javalab.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javalab.config.VisitAnalyticsProperties;
+import javalab.dto.HeavyHitterDto;
+import javalab.dto.PeriodCountDto;
+import javalab.exception.BadRequestException;
+import javalab.logger.NoLogging;
+import javalab.utility.RingBuffer;
+import javalab.utility.SlidingWindowCounter;
+import javalab.utility.SpaceSaving;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**Request counts per minute and per hour over a sliding window, and the most requested
+ * endpoints and book ids. Everything has a fixed size, whatever the traffic.
+ *
+ * <p>Recording takes no lock: the windows are counted with compare-and-set, and the visit
+ * is put into a bounded {@link RingBuffer}. A scheduled drain, and every read of the top
+ * lists, moves the queued visits into the {@link SpaceSaving} sketches, which are locked
+ * only by the drain and the readers. Visits that find the queue full are left out of the top
+ * lists and reported by the next drain.</p>*/
+@Service
+public class VisitAnalyticsService {
+    private static final Logger LOGGER = Logger.getLogger(VisitAnalyticsService.class.getName());
+
+    private final Clock clock;
+    private final int topCapacity;
+    private final SlidingWindowCounter minutes;
+    private final SlidingWindowCounter hours;
+    private final SpaceSaving<String> endpoints;
+    private final SpaceSaving<Long> books;
+    private final RingBuffer<Visit> pending;
+    private final LongAdder dropped = new LongAdder();
+
+    @Autowired
+    public VisitAnalyticsService(VisitAnalyticsProperties properties) {
+        this(properties, Clock.systemDefaultZone());
+    }
+
+    public VisitAnalyticsService(VisitAnalyticsProperties properties, Clock clock) {
+        this.clock = clock;
+        this.topCapacity = properties.getTopCapacity();
+        this.minutes = new SlidingWindowCounter(Duration.ofMinutes(1).toMillis(),
+                properties.getMinutes());
+        this.hours = new SlidingWindowCounter(Duration.ofHours(1).toMillis(),
+                properties.getHours());
+        this.endpoints = new SpaceSaving<>(topCapacity);
+        this.books = new SpaceSaving<>(topCapacity);
+        this.pending = new RingBuffer<>(properties.getQueueSize());
+    }
+
+    /**@param endpoint method and mapping pattern, e.g. {@code GET /books/{id}}
+     * @param bookId the requested book, or null*/
+    @NoLogging
+    public void recordVisit(String endpoint, Long bookId) {
+        long now = clock.millis();
+        minutes.increment(now);
+        hours.increment(now);
+        if (!pending.offer(new Visit(endpoint, bookId))) {
+            dropped.increment();
+        }
+    }
+
+    /**Adds the queued visits to the top lists, at most one queue's worth per call.*/
+    @NoLogging
+    @Scheduled(fixedDelayString = "${visit-analytics.drain-interval:1s}")
+    public void drain() {
+        for (int i = pending.capacity(); i > 0; i--) {
+            Visit visit = pending.poll();
+            if (visit == null) {
+                break;
+            }
+            endpoints.add(visit.endpoint);
+            if (visit.bookId != null) {
+                books.add(visit.bookId);
+            }
+        }
+        long lost = dropped.sumThenReset();
+        if (lost > 0) {
+            LOGGER.log(Level.WARNING, "Left {0} visits out of the top lists, the queue was full",
+                    lost);
+        }
+    }
+
+    public List<PeriodCountDto> getMinuteCounts() {
+        return periodCounts(minutes);
+    }
+
+    public List<PeriodCountDto> getHourCounts() {
+        return periodCounts(hours);
+    }
+
+    public List<HeavyHitterDto> getTopEndpoints(int limit) {
+        drain();
+        return top(endpoints, limit);
+    }
+
+    public List<HeavyHitterDto> getTopBooks(int limit) {
+        drain();
+        return top(books, limit);
+    }
+
+    private List<PeriodCountDto> periodCounts(SlidingWindowCounter counter) {
+        long now = clock.millis();
+        long start = counter.windowStartMillis(now);
+        long[] counts = counter.counts(now);
+        List<PeriodCountDto> periods = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            Instant periodStart = Instant.ofEpochMilli(start + i * counter.getPeriodMillis());
+            periods.add(new PeriodCountDto(
+                    LocalDateTime.ofInstant(periodStart, clock.getZone()), counts[i]));
+        }
+        return periods;
+    }
+
+    private <K> List<HeavyHitterDto> top(SpaceSaving<K> sketch, int limit) {
+        if (limit < 1 || limit > topCapacity) {
+            throw new BadRequestException("Limit should be between 1 and " + topCapacity);
+        }
+        return sketch.top(limit).stream()
+                .map(estimate -> new HeavyHitterDto(String.valueOf(estimate.getKey()),
+                        estimate.getCount(), estimate.getError()))
+                .toList();
+    }
+
+    private static class Visit {
+        private final String endpoint;
+        private final Long bookId;
+
+        Visit(String endpoint, Long bookId) {
+            this.endpoint = endpoint;
+            this.bookId = bookId;
+        }
+    }
+}
@@ -1,19 +1,158 @@
 package javalab.service;
 
-import java.util.concurrent.atomic.AtomicLong;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javalab.config.VisitCounterProperties;
+import javalab.exception.BadRequestException;
 import javalab.logger.NoLogging;
+import javalab.model.VisitCounter;
+import javalab.repository.VisitCounterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+/**Visit counters by key that many threads can increment without contending.
+ *
+ * <p>Each counter is a pair of {@link LongAdder}s: the total, seeded from the database at
+ * startup, and the increments not yet persisted. A scheduled flush takes the unpersisted
+ * increments of every counter and adds them to the {@code visit_counters} rows in one
+ * transaction, one UPDATE per changed counter and an INSERT for a new one. Flushes run one
+ * at a time, since the scheduled one and the one on shutdown may overlap. If the flush
+ * fails, the increments are put back and retried with the next one; the remaining ones are
+ * flushed on shutdown.</p>*/
 @Service
 public class VisitCounterService {
-    private final AtomicLong counter = new AtomicLong(0);
+    public static final String DEFAULT_KEY = "visits";
+    /**Key of the listing of all counters, so no counter can be named so.*/
+    public static final String ALL_KEY = "all";
+    private static final Logger LOGGER = Logger.getLogger(VisitCounterService.class.getName());
+
+    private final VisitCounterRepository visitCounterRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final VisitCounterProperties properties;
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VisitCounterService(VisitCounterRepository visitCounterRepository,
+                               PlatformTransactionManager transactionManager,
+                               VisitCounterProperties properties) {
+        if (properties.getMaxKeyLength() > VisitCounter.KEY_LENGTH) {
+            throw new IllegalArgumentException("visit-counters.max-key-length should be at most "
+                    + VisitCounter.KEY_LENGTH + ", the length of the key column");
+        }
+        this.visitCounterRepository = visitCounterRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**Restores the totals persisted before the last shutdown.*/
+    @PostConstruct
+    public void load() {
+        for (VisitCounter stored : visitCounterRepository.findAll()) {
+            counters.computeIfAbsent(stored.getKey(), key -> new Counter())
+                    .total.add(stored.getTotal());
+        }
+    }
 
     @NoLogging
     public void increment() {
-        counter.getAndIncrement();
+        increment(DEFAULT_KEY);
+    }
+
+    @NoLogging
+    public void increment(String key) {
+        Counter counter = counters.get(key);
+        if (counter == null) {
+            counter = create(key);
+        }
+        counter.total.increment();
+        counter.unflushed.increment();
     }
 
     public Long getCount() {
-        return counter.get();
+        return getCount(DEFAULT_KEY);
+    }
+
+    public Long getCount(String key) {
+        Counter counter = counters.get(key);
+        return counter == null ? 0L : counter.total.sum();
+    }
+
+    public Map<String, Long> getCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        counters.forEach((key, counter) -> counts.put(key, counter.total.sum()));
+        return counts;
+    }
+
+    /**Persists the increments counted since the last flush; returns the counters written.*/
+    @NoLogging
+    @Scheduled(fixedDelayString = "${visit-counters.flush-interval:5s}")
+    public synchronized int flush() {
+        // Sorted, so concurrent flushes lock the rows in the same order.
+        Map<String, Long> deltas = new TreeMap<>();
+        counters.forEach((key, counter) -> {
+            long delta = counter.unflushed.sumThenReset();
+            if (delta != 0) {
+                deltas.put(key, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        try {
+            try {
+                persist(deltas);
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created one of the new rows first; now it is updated.
+                persist(deltas);
+            }
+        } catch (RuntimeException e) {
+            deltas.forEach((key, delta) -> counters.get(key).unflushed.add(delta));
+            LOGGER.log(Level.WARNING, "Failed to flush visit counters, retrying later", e);
+            return 0;
+        }
+        return deltas.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private void persist(Map<String, Long> deltas) {
+        transactionTemplate.executeWithoutResult(status -> deltas.forEach((key, delta) -> {
+            if (visitCounterRepository.addToTotal(key, delta) == 0
+                    && visitCounterRepository.insertIfAbsent(key, delta) == 0) {
+                visitCounterRepository.addToTotal(key, delta);
+            }
+        }));
+    }
+
+    private Counter create(String key) {
+        if (key.isBlank() || key.length() > properties.getMaxKeyLength()) {
+            throw new BadRequestException("Counter name should have 1 to "
+                    + properties.getMaxKeyLength() + " characters");
+        }
+        if (key.equals(ALL_KEY)) {
+            throw new BadRequestException("Counter name is reserved: " + key);
+        }
+        if (counters.size() >= properties.getMaxKeys()) {
+            throw new BadRequestException("Too many counters");
+        }
+        return counters.computeIfAbsent(key, k -> new Counter());
+    }
+
+    private static class Counter {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder unflushed = new LongAdder();
     }
 }
@@ -1,21 +1,321 @@
 package javalab.utility;
 
-import java.util.LinkedHashMap;
+import java.time.Duration;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**Thread-safe bounded cache with approximate LRU eviction.
+ * Entries live in a single {@link ConcurrentHashMap}, so reads never take a lock:
+ * a hit only marks the entry as recently used. Writes are striped over segments,
+ * each guarding its own share of the capacity and evicting with the CLOCK
+ * (second-chance) policy. Small caches use a single segment and evict in exact LRU order
+ * for entries that were not read since insertion.
+ * Optionally entries expire after a time-to-live, and the total weight reported by
+ * a {@link Weigher} is bounded in addition to the entry count.
+ * Hits, misses, evictions and load times are counted, see {@link #stats()}.
+ * Concurrent {@link #getOrLoad} misses for the same key share a single load.*/
+public class Cache<K, V> extends AbstractMap<K, V> {
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_SEGMENT_CAPACITY = 8;
+    private static final long ANY_VERSION = -1;
 
-public class Cache<K, V> extends LinkedHashMap<K, V> {
     private final int maxSize;
+    private final long maxWeight;
+    private final long timeToLiveNanos;
+    private final Weigher<? super K, ? super V> weigher;
+    private final ConcurrentHashMap<K, Node<K, V>> data;
+    private final Segment<K, V>[] segments;
+    private final int segmentMask;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder deduplicatedLoads = new LongAdder();
+    private final LongAdder totalLoadTime = new LongAdder();
 
     public Cache(int maxSize) {
-        super(maxSize + 2, 1.f, true);
+        this(maxSize, MAX_SEGMENTS);
+    }
+
+    public Cache(int maxSize, int concurrencyLevel) {
+        this(maxSize, concurrencyLevel, null, 0, Weigher.singleton());
+    }
+
+    /**Creates a cache bounded by both entry count and total weight.
+     * @param timeToLive how long an entry stays readable after it was written,
+     *                   {@code null} or zero to keep entries until they are evicted
+     * @param maxWeight upper bound of the summed entry weights, zero for no bound*/
+    public Cache(int maxSize, Duration timeToLive, long maxWeight,
+                 Weigher<? super K, ? super V> weigher) {
+        this(maxSize, MAX_SEGMENTS, timeToLive, maxWeight, weigher);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cache(int maxSize, int concurrencyLevel, Duration timeToLive, long maxWeight,
+                  Weigher<? super K, ? super V> weigher) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size should be positive: " + maxSize);
+        }
+        if (maxWeight < 0) {
+            throw new IllegalArgumentException("Cache weight cannot be negative: " + maxWeight);
+        }
         this.maxSize = maxSize;
+        this.maxWeight = maxWeight;
+        this.timeToLiveNanos = timeToLive == null ? 0 : timeToLive.toNanos();
+        this.weigher = Objects.requireNonNull(weigher, "Weigher cannot be null");
+        this.data = new ConcurrentHashMap<>(maxSize + 2);
+
+        int segmentCount = 1;
+        while (segmentCount * 2 <= Math.min(concurrencyLevel, MAX_SEGMENTS)
+                && segmentCount * 2 * MIN_SEGMENT_CAPACITY <= maxSize) {
+            segmentCount *= 2;
+        }
+        this.segments = new Segment[segmentCount];
+        this.segmentMask = segmentCount - 1;
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = maxSize / segmentCount + (i < maxSize % segmentCount ? 1 : 0);
+            long weightCapacity = maxWeight == 0 ? Long.MAX_VALUE : maxWeight / segmentCount;
+            segments[i] = new Segment<>(capacity, weightCapacity);
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (isExpired(node)) {
+            expire(node);
+            misses.increment();
+            return null;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    /**Returns the cached value, or computes it with {@code loader} and caches the result.
+     * Concurrent callers missing the same key wait for the first caller's load instead of
+     * running their own. A {@code null} result is returned as is and not cached.
+     * A result is not cached either if the key was removed while it was loading,
+     * since the loader may have read the state from before that change.
+     * Exceptions and errors thrown by the loader are propagated to all waiting callers.*/
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            deduplicatedLoads.increment();
+            return await(running);
+        }
+        try {
+            value = load(key, loader);
+            load.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // Errors too, or the callers waiting on this load would wait forever.
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    private V load(K key, Function<? super K, ? extends V> loader) {
+        Node<K, V> node = data.get(key);
+        if (node != null && !isExpired(node)) {
+            // Loaded by a caller that finished between our miss and taking over the load.
+            return node.value;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        long version = segment.version;
+        long start = System.nanoTime();
+        V value;
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException | Error e) {
+            loadFailures.increment();
+            throw e;
+        } finally {
+            totalLoadTime.add(System.nanoTime() - start);
+        }
+        loads.increment();
+        if (value != null) {
+            put(key, value, version);
+        }
+        return value;
+    }
+
+    private static <V> V await(CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Node<K, V> node = data.get(key);
+        return node != null && !isExpired(node);
+    }
+
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, ANY_VERSION);
     }
 
+    /**Writes the entry unless {@code expectedVersion} is given and the segment was
+     * invalidated since that version was read.*/
+    private V put(K key, V value, long expectedVersion) {
+        Objects.requireNonNull(key, "Cache key cannot be null");
+        Objects.requireNonNull(value, "Cache value cannot be null");
+        long weight = weigher.weigh(key, value);
+        if (weight < 0) {
+            throw new IllegalArgumentException("Weigher returned negative weight for " + key);
+        }
+        long expiresAt = timeToLiveNanos == 0 ? 0 : System.nanoTime() + timeToLiveNanos;
+        puts.increment();
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            if (expectedVersion != ANY_VERSION && segment.version != expectedVersion) {
+                return null;
+            }
+            Node<K, V> existing = data.get(key);
+            V previous = null;
+            if (existing != null) {
+                previous = isExpired(existing) ? null : existing.value;
+                existing.value = value;
+                existing.expiresAt = expiresAt;
+                existing.referenced = true;
+                segment.reweigh(existing, weight);
+            } else {
+                Node<K, V> node = new Node<>(key, value, weight, expiresAt);
+                data.put(key, node);
+                segment.add(node);
+            }
+            evictions.add(segment.evictOverflow(data));
+            return previous;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
 
     @Override
-    protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
-        return size() > maxSize;
+    public V remove(Object key) {
+        if (key == null) {
+            return null;
+        }
+        Segment<K, V> segment = segmentFor(key);
+        segment.lock.lock();
+        try {
+            segment.version++;
+            Node<K, V> node = data.remove(key);
+            if (node == null) {
+                return null;
+            }
+            segment.discard(node);
+            invalidations.increment();
+            return isExpired(node) ? null : node.value;
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            segment.lock.lock();
+            try {
+                segment.version++;
+                invalidations.add(segment.clear(data));
+            } finally {
+                segment.lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return data.size();
+    }
+
+    /**Returns a point-in-time copy of the entries; it is not backed by the cache.*/
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        Set<Map.Entry<K, V>> entries = new HashSet<>();
+        data.forEach((key, node) -> {
+            if (!isExpired(node)) {
+                entries.add(new SimpleImmutableEntry<>(key, node.value));
+            }
+        });
+        return entries;
+    }
+
+    private boolean isExpired(Node<K, V> node) {
+        long expiresAt = node.expiresAt;
+        return expiresAt != 0 && System.nanoTime() - expiresAt >= 0;
+    }
+
+    private void expire(Node<K, V> node) {
+        Segment<K, V> segment = segmentFor(node.key);
+        segment.lock.lock();
+        try {
+            if (data.remove(node.key, node)) {
+                segment.discard(node);
+                evictions.increment();
+            }
+        } finally {
+            segment.lock.unlock();
+        }
+    }
+
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), puts.sum(), evictions.sum(),
+                invalidations.sum(), loads.sum(), loadFailures.sum(), deduplicatedLoads.sum(),
+                totalLoadTime.sum(), size(), maxSize);
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & segmentMask];
     }
 
     @Override
@@ -27,11 +327,107 @@ public class Cache<K, V> extends LinkedHashMap<K, V> {
             return false;
         }
         Cache<?, ?> that = (Cache<?, ?>) o;
-        return maxSize == that.maxSize && super.equals(o);
+        return maxSize == that.maxSize && maxWeight == that.maxWeight && super.equals(o);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(maxSize, super.hashCode());
+        return Objects.hash(maxSize, maxWeight, super.hashCode());
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile long expiresAt;
+        volatile boolean referenced;
+        long weight;
+        boolean removed;
+
+        Node(K key, V value, long weight, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**Eviction bookkeeping for a share of the keys. All fields are guarded by {@code lock}.*/
+    private static final class Segment<K, V> {
+        final ReentrantLock lock = new ReentrantLock();
+        final ArrayDeque<Node<K, V>> clock = new ArrayDeque<>();
+        final int capacity;
+        final long weightCapacity;
+        int size;
+        long weight;
+        /**Incremented on every explicit removal, so loads can detect they raced with one.*/
+        volatile long version;
+
+        Segment(int capacity, long weightCapacity) {
+            this.capacity = capacity;
+            this.weightCapacity = weightCapacity;
+        }
+
+        void add(Node<K, V> node) {
+            clock.addLast(node);
+            size++;
+            weight += node.weight;
+        }
+
+        void reweigh(Node<K, V> node, long newWeight) {
+            weight += newWeight - node.weight;
+            node.weight = newWeight;
+        }
+
+        void discard(Node<K, V> node) {
+            node.removed = true;
+            size--;
+            weight -= node.weight;
+            // Removed nodes are skipped lazily; compact when they start to dominate the queue.
+            if (clock.size() > 2 * capacity + MIN_SEGMENT_CAPACITY) {
+                clock.removeIf(n -> n.removed);
+            }
+        }
+
+        /**Evicts entries until the segment fits its bounds.
+         * @return number of evicted entries*/
+        int evictOverflow(ConcurrentHashMap<K, Node<K, V>> data) {
+            int evicted = 0;
+            while (size > capacity || weight > weightCapacity) {
+                Node<K, V> candidate = clock.pollFirst();
+                if (candidate == null) {
+                    break;
+                }
+                if (candidate.removed) {
+                    continue;
+                }
+                if (candidate.referenced) {
+                    candidate.referenced = false;
+                    clock.addLast(candidate);
+                    continue;
+                }
+                data.remove(candidate.key, candidate);
+                candidate.removed = true;
+                size--;
+                weight -= candidate.weight;
+                evicted++;
+            }
+            return evicted;
+        }
+
+        /**Removes all entries of the segment.
+         * @return number of removed entries*/
+        int clear(ConcurrentHashMap<K, Node<K, V>> data) {
+            int cleared = size;
+            for (Node<K, V> node : clock) {
+                if (!node.removed) {
+                    data.remove(node.key, node);
+                    node.removed = true;
+                }
+            }
+            clock.clear();
+            size = 0;
+            weight = 0;
+            return cleared;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,34 @@
+package javalab.utility;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**Point-in-time counters of a {@link Cache}. Counters are cumulative since the cache was created.*/
+@Getter
+@AllArgsConstructor
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long puts;
+    /**Entries dropped for size, weight or time-to-live.*/
+    private final long evictions;
+    /**Entries dropped by an explicit remove or clear.*/
+    private final long invalidations;
+    private final long loads;
+    private final long loadFailures;
+    /**Misses that waited for a load already running for the same key instead of loading.*/
+    private final long deduplicatedLoads;
+    private final long totalLoadTimeNanos;
+    private final int size;
+    private final int maxSize;
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    public double getAverageLoadTimeMillis() {
+        long attempts = loads + loadFailures;
+        return attempts == 0 ? 0.0 : totalLoadTimeNanos / 1_000_000.0 / attempts;
+    }
+}
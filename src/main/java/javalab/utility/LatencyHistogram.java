@@ -0,0 +1,98 @@
+package javalab.utility;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**Lock-free histogram of durations with log-linear buckets, in the manner of HdrHistogram.
+ * Every power of two is split into {@value #SUB_BUCKETS} equal buckets, so a percentile is
+ * off by at most about 3% of its value, and values up to {@link #MAX_VALUE} ns fit in about
+ * 1200 counters. Recording is a few increments and allocates nothing. Counts and sums are
+ * cumulative since creation or the last {@link #reset()}; a snapshot taken while values are
+ * recorded may be slightly inconsistent between its fields.*/
+public class LatencyHistogram {
+    /**About 18 minutes in nanoseconds; longer durations are recorded as this.*/
+    public static final long MAX_VALUE = 1L << 40;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(bucketOf(MAX_VALUE) + 1);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+        counts.incrementAndGet(bucketOf(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long total = count.sum();
+        return total == 0 ? 0 : (double) sum.sum() / total;
+    }
+
+    /**Smallest recorded value such that {@code percentile}% of values are not above it,
+     * reported as the upper end of its bucket; 0 when empty.*/
+    public long getValueAtPercentile(double percentile) {
+        long[] snapshot = new long[counts.length()];
+        long total = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(percentile, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**Values below {@code 2 * SUB_BUCKETS} have a bucket each; above, every power of two
+     * is split into {@code SUB_BUCKETS} buckets.*/
+    static int bucketOf(long value) {
+        if (value < 2 * SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    static long upperBoundOf(int bucket) {
+        if (bucket < 2 * SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long top = SUB_BUCKETS + bucket % SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,73 @@
+package javalab.utility;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**Event counts of the last {@code periods} fixed-length periods, in constant memory.
+ *
+ * <p>Slots are reused round-robin. Each slot holds one long: the low bits of the number of
+ * the period it counts and the count itself, so moving a slot to a new period and counting
+ * are one compare-and-set and no increment is lost or counted into a stale period.
+ * Periods are numbered from the epoch, so every instance agrees on their boundaries.</p>*/
+public class SlidingWindowCounter {
+    private static final int COUNT_BITS = 40;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+    private static final long TAG_MASK = (1L << (Long.SIZE - COUNT_BITS)) - 1;
+
+    private final long periodMillis;
+    private final AtomicLongArray slots;
+
+    public SlidingWindowCounter(long periodMillis, int periods) {
+        if (periodMillis < 1 || periods < 1) {
+            throw new IllegalArgumentException("Period length and count should be positive");
+        }
+        this.periodMillis = periodMillis;
+        this.slots = new AtomicLongArray(periods);
+    }
+
+    public void increment(long nowMillis) {
+        long period = nowMillis / periodMillis;
+        int index = (int) (period % slots.length());
+        long tag = period & TAG_MASK;
+        while (true) {
+            long current = slots.get(index);
+            long next;
+            if (current >>> COUNT_BITS != tag) {
+                // The slot still counts the period one lap ago.
+                next = tag << COUNT_BITS | 1;
+            } else if ((current & COUNT_MASK) == COUNT_MASK) {
+                return;
+            } else {
+                next = current + 1;
+            }
+            if (slots.compareAndSet(index, current, next)) {
+                return;
+            }
+        }
+    }
+
+    /**Counts of the last {@code periods} periods, oldest first; the last is the current one.*/
+    public long[] counts(long nowMillis) {
+        long currentPeriod = nowMillis / periodMillis;
+        long[] counts = new long[slots.length()];
+        for (int i = 0; i < counts.length; i++) {
+            long period = currentPeriod - counts.length + 1 + i;
+            if (period < 0) {
+                continue;
+            }
+            long slot = slots.get((int) (period % slots.length()));
+            if (slot >>> COUNT_BITS == (period & TAG_MASK)) {
+                counts[i] = slot & COUNT_MASK;
+            }
+        }
+        return counts;
+    }
+
+    /**Start of the oldest period {@link #counts} reports.*/
+    public long windowStartMillis(long nowMillis) {
+        return (nowMillis / periodMillis - slots.length() + 1) * periodMillis;
+    }
+
+    public long getPeriodMillis() {
+        return periodMillis;
+    }
+}
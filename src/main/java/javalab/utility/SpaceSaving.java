@@ -0,0 +1,95 @@
+package javalab.utility;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**Most frequent keys of a stream in constant memory (the Space-Saving algorithm of
+ * Metwally, Agrawal and El Abbadi).
+ *
+ * <p>At most {@code capacity} keys are tracked. A new key takes over the slot of the least
+ * counted one and starts from its count, remembering that count as its possible
+ * overestimation. Every key occurring more than {@code total / capacity} times is tracked,
+ * and a reported count is never below the true one nor above it by more than the error.
+ * Updates take O(log capacity) under the instance lock.</p>*/
+public class SpaceSaving<K> {
+    private final int capacity;
+    private final Map<K, Entry<K>> entries;
+    private final TreeSet<Entry<K>> byCount = new TreeSet<>(Comparator
+            .comparingLong((Entry<K> entry) -> entry.count)
+            .thenComparingLong(entry -> entry.sequence));
+    private long sequence;
+    private long total;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity should be positive");
+        }
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+    }
+
+    public synchronized void add(K key) {
+        total++;
+        Entry<K> entry = entries.get(key);
+        if (entry == null) {
+            if (entries.size() < capacity) {
+                entry = new Entry<>(key, 0, 0);
+            } else {
+                Entry<K> smallest = byCount.pollFirst();
+                entries.remove(smallest.key);
+                entry = new Entry<>(key, smallest.count, smallest.count);
+            }
+            entries.put(key, entry);
+        } else {
+            byCount.remove(entry);
+        }
+        entry.count++;
+        entry.sequence = sequence++;
+        byCount.add(entry);
+    }
+
+    /**Up to {@code limit} keys, most counted first.*/
+    public synchronized List<Estimate<K>> top(int limit) {
+        List<Estimate<K>> top = new ArrayList<>(Math.min(limit, entries.size()));
+        for (Entry<K> entry : byCount.descendingSet()) {
+            if (top.size() == limit) {
+                break;
+            }
+            top.add(new Estimate<>(entry.key, entry.count, entry.error));
+        }
+        return top;
+    }
+
+    /**Number of keys added so far.*/
+    public synchronized long getTotal() {
+        return total;
+    }
+
+    /**Count of a key; may exceed the true count by at most {@code error}.*/
+    @Getter
+    @AllArgsConstructor
+    public static class Estimate<K> {
+        private final K key;
+        private final long count;
+        private final long error;
+    }
+
+    private static class Entry<K> {
+        private final K key;
+        private final long error;
+        private long count;
+        private long sequence;
+
+        Entry(K key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package javalab.utility;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 public class Tools {
@@ -23,4 +25,46 @@ public class Tools {
             return Optional.empty();
         }
     }
-}
\ No newline at end of file
+
+    /**Splits a list into consecutive views of at most {@code size} elements.*/
+    public static <T> List<List<T>> partition(List<T> list, int size) {
+        List<List<T>> parts = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += size) {
+            parts.add(list.subList(from, Math.min(list.size(), from + size)));
+        }
+        return parts;
+    }
+
+    /**Splits one CSV record into its fields. Fields may be quoted, with {@code ""} for a
+     * quote inside; a record cannot span lines.*/
+    public static List<String> splitCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
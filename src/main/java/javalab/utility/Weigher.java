@@ -0,0 +1,13 @@
+package javalab.utility;
+
+/**Computes the relative weight of a cache entry, e.g. its approximate size in bytes.
+ * Weights are calculated once, when the entry is written into a {@link Cache}.*/
+@FunctionalInterface
+public interface Weigher<K, V> {
+    long weigh(K key, V value);
+
+    /**Weigher that counts every entry as 1.*/
+    static <K, V> Weigher<K, V> singleton() {
+        return (key, value) -> 1;
+    }
+}
@@ -0,0 +1,84 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.FileAppender;
+import ch.qos.logback.core.encoder.EchoEncoder;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javalab.logger.AsyncBatchingFileAppender;
+import javalab.logger.SingleFileWithRetentionAppender;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+/**Request throughput with the synchronous file appender against the batching one, with
+ * every simulated request logging twice as {@code LoggerAspect} does.
+ * Run with {@code -Dbenchmark=true}.*/
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class AsyncBatchingFileAppenderBenchmarkTests {
+    private static final long DURATION_MS = 2000;
+    private static final String LINE = "2025-03-10 12:00:00 [INFO] javalab.logger.LoggerAspect"
+            + " - Method executed: BookService.getById(..) returned BookDto(id=42, title=Dune)";
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void compareRequestThroughput() throws Exception {
+        for (int threads : new int[]{1, 8, 32}) {
+            long sync = measure(new SingleFileWithRetentionAppender<>(), "sync", threads);
+            AsyncBatchingFileAppender<String> blocking = new AsyncBatchingFileAppender<>();
+            long async = measure(blocking, "block", threads);
+            AsyncBatchingFileAppender<String> dropping = new AsyncBatchingFileAppender<>();
+            dropping.setDiscardPolicy(AsyncBatchingFileAppender.DiscardPolicy.DROP_NEWEST);
+            long lossy = measure(dropping, "drop", threads);
+            System.out.printf("threads=%d sync=%,d req/s async-block=%,d req/s "
+                    + "async-drop=%,d req/s (dropped %,d of %,d)%n", threads, sync, async, lossy,
+                    dropping.getDroppedCount(), dropping.getAppendedCount());
+            assertThat(async).isPositive();
+        }
+    }
+
+    private long measure(FileAppender<String> appender, String name, int threads)
+            throws InterruptedException {
+        ContextBase context = new ContextBase();
+        EchoEncoder<String> encoder = new EchoEncoder<>();
+        encoder.setContext(context);
+        encoder.start();
+        appender.setContext(context);
+        appender.setName(name);
+        appender.setFile(dir.resolve(name + "-" + threads + ".log").toString());
+        appender.setEncoder(encoder);
+        appender.start();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder requests = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                while (System.nanoTime() < deadline) {
+                    appender.doAppend(LINE);
+                    appender.doAppend(LINE);
+                    requests.increment();
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(DURATION_MS * 5, TimeUnit.MILLISECONDS);
+        appender.stop();
+        return requests.sum() * 1000 / DURATION_MS;
+    }
+}
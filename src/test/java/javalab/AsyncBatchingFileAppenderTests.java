@@ -0,0 +1,207 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.encoder.EchoEncoder;
+import ch.qos.logback.core.recovery.ResilientFileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javalab.logger.AsyncBatchingFileAppender;
+import javalab.utility.RingBuffer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AsyncBatchingFileAppenderTests {
+    @TempDir
+    private Path dir;
+
+    @Test
+    void ringBufferIsBoundedAndFifo() {
+        RingBuffer<Integer> buffer = new RingBuffer<>(3);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+
+        assertThat(buffer.capacity()).isEqualTo(4);
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(4)).isTrue();
+        List<Integer> rest = new ArrayList<>();
+        for (Integer value = buffer.poll(); value != null; value = buffer.poll()) {
+            rest.add(value);
+        }
+        assertThat(rest).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    void ringBufferHandsEveryElementOverOnceInProducerOrder() throws Exception {
+        int producers = 4;
+        int perProducer = 20_000;
+        RingBuffer<Long> buffer = new RingBuffer<>(64);
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long base = (long) p << 32;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base | i)) {
+                        Thread.yield();
+                    }
+                }
+            }));
+        }
+
+        long[] next = new long[producers];
+        int outOfOrder = 0;
+        for (int received = 0; received < producers * perProducer; ) {
+            Long value = buffer.poll();
+            if (value == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int) (value >>> 32);
+            if ((value & 0xFFFFFFFFL) != next[producer]++) {
+                outOfOrder++;
+            }
+            received++;
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(outOfOrder).isZero();
+        assertThat(buffer.poll()).isNull();
+    }
+
+    @Test
+    void writesEveryEventInBatchesWhenBlocking() throws Exception {
+        Path log = dir.resolve("app.log");
+        PausableAppender appender = start(log, 1024,
+                AsyncBatchingFileAppender.DiscardPolicy.BLOCK);
+        int threads = 8;
+        int perThread = 5000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    appender.doAppend(thread + " " + i);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        appender.stop();
+
+        List<String> lines = Files.readAllLines(log);
+        assertThat(lines).hasSize(threads * perThread);
+        int[] next = new int[threads];
+        for (String line : lines) {
+            String[] parts = line.split(" ");
+            assertThat(Integer.parseInt(parts[1])).isEqualTo(next[Integer.parseInt(parts[0])]++);
+        }
+        assertThat(appender.getDroppedCount()).isZero();
+        assertThat(appender.getBatchCount()).isLessThan(threads * perThread);
+    }
+
+    @Test
+    void countsWhatTheDiscardPoliciesDrop() throws IOException {
+        for (AsyncBatchingFileAppender.DiscardPolicy policy : List.of(
+                AsyncBatchingFileAppender.DiscardPolicy.DROP_NEWEST,
+                AsyncBatchingFileAppender.DiscardPolicy.DROP_OLDEST)) {
+            Path log = dir.resolve(policy + ".log");
+            PausableAppender appender = start(log, 4, policy);
+
+            appender.pauseWriter();
+            for (int i = 0; i < 100; i++) {
+                appender.doAppend("event " + i);
+            }
+            appender.resumeWriter();
+            appender.stop();
+
+            List<String> lines = Files.readAllLines(log);
+            assertThat(appender.getDroppedCount()).isPositive();
+            assertThat(lines.size() + appender.getDroppedCount()).isEqualTo(100);
+            if (policy == AsyncBatchingFileAppender.DiscardPolicy.DROP_OLDEST) {
+                assertThat(lines).last().isEqualTo("event 99");
+            } else {
+                assertThat(lines).doesNotContain("event 99");
+            }
+        }
+    }
+
+    @Test
+    void recoversThroughTheStreamAfterAChannelFailure() throws Exception {
+        Path log = dir.resolve("app.log");
+        PausableAppender appender = start(log, 1024,
+                AsyncBatchingFileAppender.DiscardPolicy.BLOCK);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        appender.doAppend("before");
+        while (Files.size(log) == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        appender.breakChannel();
+
+        int sent = 0;
+        while (!Files.readString(log).contains("after") && System.nanoTime() < deadline) {
+            appender.doAppend("after " + sent++);
+            Thread.sleep(10);
+        }
+        appender.doAppend("last");
+        appender.stop();
+
+        List<String> lines = Files.readAllLines(log);
+        assertThat(lines).first().isEqualTo("before");
+        assertThat(lines).anyMatch(line -> line.startsWith("after")).last().isEqualTo("last");
+    }
+
+    private static PausableAppender start(Path log, int queueSize,
+                                          AsyncBatchingFileAppender.DiscardPolicy policy) {
+        ContextBase context = new ContextBase();
+        EchoEncoder<String> encoder = new EchoEncoder<>();
+        encoder.setContext(context);
+        encoder.start();
+        PausableAppender appender = new PausableAppender();
+        appender.setContext(context);
+        appender.setName("test");
+        appender.setFile(log.toString());
+        appender.setEncoder(encoder);
+        appender.setQueueSize(queueSize);
+        appender.setDiscardPolicy(policy);
+        appender.start();
+        return appender;
+    }
+
+    /**Holds the writer back by taking the stream lock it writes under, or breaks its file.*/
+    private static class PausableAppender extends AsyncBatchingFileAppender<String> {
+        void pauseWriter() {
+            streamWriteLock.lock();
+        }
+
+        void resumeWriter() {
+            streamWriteLock.unlock();
+        }
+
+        /**Closes the channel under the writer, so its next write fails.*/
+        void breakChannel() throws IOException {
+            streamWriteLock.lock();
+            try {
+                ((ResilientFileOutputStream) getOutputStream()).getChannel().close();
+            } finally {
+                streamWriteLock.unlock();
+            }
+        }
+    }
+}
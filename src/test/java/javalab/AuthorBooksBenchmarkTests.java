@@ -0,0 +1,119 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import javalab.config.BulkProperties;
+import javalab.config.CacheConfig;
+import javalab.config.PaginationProperties;
+import javalab.mapper.AuthorMapper;
+import javalab.mapper.BookMapper;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.repository.AuthorRepository;
+import javalab.repository.BookRepository;
+import javalab.service.AuthorService;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.PaginationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+/**Membership checks, single links and deletes for an author with {@code -Dbenchmark.books}
+ * books (10000 by default), set against the list the association used to be.
+ * Run with {@code -Dbenchmark=true}.*/
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+    "spring.jpa.properties.hibernate.order_inserts=true",
+    "spring.jpa.show-sql=false"
+})
+@Import({CacheConfig.class, BookService.class, BookMapper.class, CacheInvalidationService.class,
+    PaginationService.class, PaginationProperties.class, CommentCountService.class,
+    BulkService.class, BulkProperties.class, AuthorService.class, AuthorMapper.class})
+class AuthorBooksBenchmarkTests {
+    private static final int LINKS = 100;
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private AuthorService authorService;
+
+    @Test
+    void authorWithManyBooks() {
+        int count = Integer.getInteger("benchmark.books", 10_000);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Long authorId = authorService.createAll(List.of(new Author("Alice"))).get(0).getId();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            books.add(new Book("Book " + i, List.of(), 1));
+        }
+        List<Long> ids = bookService.createAll(books).stream().map(Book::getId).toList();
+        Long spare = bookService.createAll(List.of(new Book("Spare", List.of(), 1))).get(0)
+                .getId();
+        long start = System.nanoTime();
+        authorService.linkBooks(authorId, ids);
+        long linkAllMillis = (System.nanoTime() - start) / 1_000_000;
+        entityManager.clear();
+
+        Set<Book> loaded = authorRepository.findWithBooksById(authorId).orElseThrow()
+                .getBooks();
+        List<Book> asList = new ArrayList<>(loaded);
+        List<Book> probes = new ArrayList<>(loaded);
+        start = System.nanoTime();
+        long found = probes.stream().filter(loaded::contains).count();
+        long setNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        found += probes.stream().filter(asList::contains).count();
+        long listNanos = System.nanoTime() - start;
+        entityManager.clear();
+
+        statistics.clear();
+        start = System.nanoTime();
+        for (int i = 0; i < LINKS; i++) {
+            authorService.addBookToAuthor(authorId, spare);
+            authorService.deleteBookFromAuthor(authorId, spare);
+        }
+        long linkNanos = (System.nanoTime() - start) / (2 * LINKS);
+        long linkStatements = statistics.getPrepareStatementCount() / (2 * LINKS);
+
+        entityManager.clear();
+        statistics.clear();
+        start = System.nanoTime();
+        authorService.delete(authorId);
+        entityManager.flush();
+        long deleteMillis = (System.nanoTime() - start) / 1_000_000;
+        long deleteStatements = statistics.getPrepareStatementCount();
+
+        System.out.printf("%,d books: linked in %,d ms; "
+                        + "contains on all of them %,d us as set, %,d us as list; "
+                        + "link or unlink %,d us in %d statements; "
+                        + "author delete %,d ms in %d statements%n",
+                count, linkAllMillis, setNanos / 1000, listNanos / 1000, linkNanos / 1000,
+                linkStatements, deleteMillis, deleteStatements);
+        assertThat(found).isEqualTo(2L * count);
+        assertThat(bookRepository.findIdsByAuthorId(authorId)).isEmpty();
+        assertThat(bookRepository.count()).isEqualTo(ids.size() + 1L);
+    }
+}
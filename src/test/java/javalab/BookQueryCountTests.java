@@ -0,0 +1,149 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javalab.config.BulkProperties;
+import javalab.config.CacheConfig;
+import javalab.config.PaginationProperties;
+import javalab.dto.PageDto;
+import javalab.mapper.BookMapper;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.model.Comment;
+import javalab.model.User;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.PaginationService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+/**Serializing {@code GET /books/all} results must take the same number of statements
+ * whatever the number of books.*/
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false"
+})
+@Import({CacheConfig.class, BookService.class, BookMapper.class, CacheInvalidationService.class,
+    PaginationService.class, PaginationProperties.class, CommentCountService.class,
+    BulkService.class, BulkProperties.class})
+class BookQueryCountTests {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BookService bookService;
+
+    private Statistics statistics;
+    private Author shared;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        shared = new Author("Shared");
+        entityManager.persist(shared);
+        user = new User("Reader");
+        entityManager.persist(user);
+    }
+
+    @Test
+    void statementCountDoesNotDependOnResultSize() throws Exception {
+        createBooks(0, 5);
+        long few = countStatements(Optional.empty(), Optional.empty());
+
+        createBooks(5, 60);
+        long many = countStatements(Optional.empty(), Optional.empty());
+
+        assertThat(many).isEqualTo(few).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    void filteredQueriesKeepAllAuthors() throws Exception {
+        createBooks(0, 20);
+
+        long byAuthor = countStatements(Optional.of("Shared"), Optional.empty());
+        long byBoth = countStatements(Optional.of("Shared"), Optional.of(1L));
+        long byComments = countStatements(Optional.empty(), Optional.of(2L));
+
+        assertThat(byAuthor).isLessThanOrEqualTo(3);
+        assertThat(byBoth).isLessThanOrEqualTo(3);
+        assertThat(byComments).isLessThanOrEqualTo(3);
+        List<Book> books = bookService.getBookByFilter(Optional.of("Shared"), Optional.empty());
+        assertThat(books).hasSize(20).allSatisfy(book ->
+                assertThat(book.getAuthors()).hasSize(2));
+    }
+
+    @Test
+    void pagesFollowCursorInBothDirections() throws Exception {
+        createBooks(0, 5);
+        entityManager.flush();
+        entityManager.clear();
+
+        PageDto<Book> first = bookService.getPage(Optional.empty(), Optional.of(2), "asc");
+        PageDto<Book> second = bookService.getPage(Optional.of(first.getNext()),
+                Optional.of(2), "asc");
+        PageDto<Book> last = bookService.getPage(Optional.of(second.getNext()),
+                Optional.of(2), "asc");
+        PageDto<Book> descending = bookService.getPage(Optional.empty(), Optional.of(3), "desc");
+
+        assertThat(first.getItems()).extracting(Book::getTitle).containsExactly("Book 0", "Book 1");
+        assertThat(second.getItems()).extracting(Book::getTitle).containsExactly("Book 2", "Book 3");
+        assertThat(last.getItems()).extracting(Book::getTitle).containsExactly("Book 4");
+        assertThat(last.getNext()).isNull();
+        assertThat(descending.getItems()).extracting(Book::getTitle)
+                .containsExactly("Book 4", "Book 3", "Book 2");
+        objectMapper.writeValueAsString(second);
+    }
+
+    private long countStatements(Optional<String> author, Optional<Long> commentCountMin)
+            throws Exception {
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+        List<Book> books = bookService.getBookByFilter(author, commentCountMin);
+        objectMapper.writeValueAsString(books);
+        return statistics.getPrepareStatementCount();
+    }
+
+    private void createBooks(int from, int to) {
+        Author sharedAuthor = entityManager.find(Author.class, shared.getId());
+        User reader = entityManager.find(User.class, user.getId());
+        for (int i = from; i < to; i++) {
+            Author own = new Author("Author " + letters(i));
+            entityManager.persist(own);
+            Book book = new Book("Book " + i, new ArrayList<>(List.of(sharedAuthor, own)), 100);
+            entityManager.persist(book);
+            for (int c = 0; c < 3; c++) {
+                Comment comment = new Comment(null, book, reader, "Comment " + c);
+                entityManager.persist(comment);
+            }
+        }
+    }
+
+    /**Author names may not contain digits.*/
+    private static String letters(int number) {
+        StringBuilder name = new StringBuilder();
+        do {
+            name.append((char) ('a' + number % 26));
+            number /= 26;
+        } while (number > 0);
+        return name.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import javalab.config.BulkProperties;
+import javalab.config.CacheConfig;
+import javalab.config.PaginationProperties;
+import javalab.mapper.BookMapper;
+import javalab.model.Book;
+import javalab.repository.BookRepository;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.PaginationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+/**Rows per second of {@code POST /books/bulk} against one {@code POST /books} per book, on
+ * {@code -Dbenchmark.rows} books (100000 by default; the single-item path gets a tenth of
+ * them). Run with {@code -Dbenchmark=true}.*/
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+    "spring.jpa.properties.hibernate.order_inserts=true",
+    "spring.jpa.show-sql=false"
+})
+@Import({CacheConfig.class, BookService.class, BookMapper.class, CacheInvalidationService.class,
+    PaginationService.class, PaginationProperties.class, CommentCountService.class,
+    BulkService.class, BulkProperties.class})
+class BulkInsertBenchmarkTests {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private BulkProperties bulkProperties;
+
+    @Test
+    void compareRowsPerSecond() {
+        int rows = Integer.getInteger("benchmark.rows", 100_000);
+        int singleRows = Math.max(1, rows / 10);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < singleRows; i++) {
+            bookService.create(new Book("Single " + i, new ArrayList<>(), 100));
+            if (i % bulkProperties.getFlushSize() == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        long single = rowsPerSecond(singleRows, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        List<Book> request = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            request.add(new Book("Bulk " + i, new ArrayList<>(), 100));
+            if (request.size() == bulkProperties.getMaxItems() || i == rows - 1) {
+                bookService.createAll(request);
+                request = new ArrayList<>();
+            }
+        }
+        long bulk = rowsPerSecond(rows, System.nanoTime() - start);
+
+        System.out.printf("single: %,d rows at %,d rows/s; bulk: %,d rows at %,d rows/s%n",
+                singleRows, single, rows, bulk);
+        assertThat(bookRepository.count()).isEqualTo(singleRows + rows);
+    }
+
+    private static long rowsPerSecond(int rows, long nanos) {
+        return rows * 1_000_000_000L / Math.max(1, nanos);
+    }
+}
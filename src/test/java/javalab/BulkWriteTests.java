@@ -0,0 +1,300 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import javalab.config.BulkProperties;
+import javalab.config.CacheConfig;
+import javalab.config.PaginationProperties;
+import javalab.dto.BookLinksDto;
+import javalab.dto.CommentDto;
+import javalab.exception.BadRequestException;
+import javalab.exception.ConflictException;
+import javalab.exception.NotFoundException;
+import javalab.mapper.AuthorMapper;
+import javalab.mapper.BookMapper;
+import javalab.mapper.CommentMapper;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.model.Comment;
+import javalab.model.User;
+import javalab.repository.BookRepository;
+import javalab.repository.UserRepository;
+import javalab.service.AuthorService;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.CommentService;
+import javalab.service.PaginationService;
+import javalab.service.UserService;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+/**Bulk writes must check uniqueness in one query per chunk and insert in JDBC batches.*/
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+    "spring.jpa.properties.hibernate.order_inserts=true",
+    "spring.jpa.show-sql=false"
+})
+@Import({CacheConfig.class, BookService.class, BookMapper.class, CacheInvalidationService.class,
+    PaginationService.class, PaginationProperties.class, CommentCountService.class,
+    BulkService.class, BulkProperties.class, AuthorService.class, AuthorMapper.class,
+    UserService.class, CommentService.class, CommentMapper.class})
+class BulkWriteTests {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private AuthorService authorService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private CommentService commentService;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void createsBooksInBatches() {
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            books.add(new Book("Book " + i, new ArrayList<>(), 100 + i));
+        }
+        statistics.clear();
+
+        List<Book> saved = bookService.createAll(books);
+
+        assertThat(saved).extracting(Book::getId).doesNotContainNull().doesNotHaveDuplicates();
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(120);
+        // Three JDBC batches and a few sequence calls instead of 120 statements.
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(12);
+        assertThat(bookRepository.count()).isEqualTo(120);
+    }
+
+    @Test
+    void rejectsTakenOrRepeatedTitlesWithoutWritingAnything() {
+        bookService.createAll(List.of(new Book("Dune", new ArrayList<>(), 412)));
+
+        assertThatThrownBy(() -> bookService.createAll(List.of(
+                new Book("Emma", new ArrayList<>(), 1), new Book("Dune", new ArrayList<>(), 2))))
+                .isInstanceOf(ConflictException.class).hasMessageContaining("Dune");
+        assertThatThrownBy(() -> bookService.createAll(List.of(
+                new Book("Emma", new ArrayList<>(), 1), new Book("Emma", new ArrayList<>(), 2))))
+                .isInstanceOf(ConflictException.class).hasMessageContaining("twice");
+        assertThatThrownBy(() -> bookService.createAll(List.of()))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(bookRepository.count()).isEqualTo(1);
+    }
+
+    @Test
+    void updatesBooksAndChecksIdsAndTitles() {
+        List<Book> saved = bookService.createAll(List.of(new Book("Dune", new ArrayList<>(), 1),
+                new Book("Emma", new ArrayList<>(), 2), new Book("Fury", new ArrayList<>(), 3)));
+        Long dune = saved.get(0).getId();
+        Long emma = saved.get(1).getId();
+        entityManager.clear();
+
+        bookService.updateAll(List.of(book(dune, "Dune Messiah", 10), book(emma, "Emma", 20)));
+        entityManager.clear();
+
+        assertThat(bookRepository.findById(dune).orElseThrow().getTitle())
+                .isEqualTo("Dune Messiah");
+        assertThat(bookRepository.findById(emma).orElseThrow().getPages()).isEqualTo(20);
+        assertThatThrownBy(() -> bookService.updateAll(List.of(book(dune, "Fury", 1))))
+                .isInstanceOf(ConflictException.class);
+        assertThatThrownBy(() -> bookService.updateAll(List.of(book(-1L, "Other", 1))))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> bookService.updateAll(List.of(book(null, "Other", 1))))
+                .isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void createsAndRenamesAuthors() {
+        List<Author> saved = authorService.createAll(List.of(new Author("Alice"),
+                new Author("Bob")));
+        assertThatThrownBy(() -> authorService.createAll(List.of(new Author("Bob"))))
+                .isInstanceOf(ConflictException.class);
+        entityManager.clear();
+
+        Author renamed = new Author("Carol");
+        renamed.setId(saved.get(1).getId());
+        authorService.updateAll(List.of(renamed));
+        entityManager.clear();
+
+        assertThat(authorService.findAuthorByName("Carol")).contains(saved.get(1).getId());
+        assertThat(authorService.findAuthorByName("Bob")).isEmpty();
+    }
+
+    @Test
+    void createsCommentsAndCountsThemPerUser() {
+        List<User> users = userService.createAll(List.of(new User("Ann"), new User("Ben")));
+        Long book = bookService.createAll(List.of(new Book("Dune", new ArrayList<>(), 1)))
+                .get(0).getId();
+        List<CommentDto> comments = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            comments.add(comment(users.get(i % 2).getId(), "Comment " + i));
+        }
+
+        List<Comment> saved = commentService.createAll(book, comments);
+        entityManager.clear();
+
+        assertThat(saved).extracting(Comment::getId).doesNotContainNull();
+        assertThat(bookRepository.findById(book).orElseThrow().getCommentCount()).isEqualTo(5);
+        assertThat(userRepository.findById(users.get(0).getId()).orElseThrow()
+                .getCommentCount()).isEqualTo(3);
+        assertThat(userRepository.findById(users.get(1).getId()).orElseThrow()
+                .getCommentCount()).isEqualTo(2);
+        assertThatThrownBy(() -> commentService.createAll(book, List.of(comment(-1L, "Lost"))))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void bookUpdateReturnsTheStoredCommentCount() {
+        Comment comment = commentTwice();
+
+        Book updated = bookService.update(comment.getBook().getId(),
+                book(null, "Dune Messiah", 2));
+
+        assertThat(updated.getCommentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void bookBulkUpdateReturnsTheStoredCommentCount() {
+        Comment comment = commentTwice();
+
+        List<Book> updated = bookService.updateAll(List.of(
+                book(comment.getBook().getId(), "Dune Messiah", 2)));
+
+        assertThat(updated).singleElement().extracting(Book::getCommentCount).isEqualTo(2L);
+    }
+
+    @Test
+    void userUpdateReturnsTheStoredCommentCount() {
+        Comment comment = commentTwice();
+
+        User updated = userService.update(comment.getUser().getId(), new User("Anna"));
+
+        assertThat(updated.getCommentCount()).isEqualTo(2);
+    }
+
+    @Test
+    void userBulkUpdateReturnsTheStoredCommentCount() {
+        Comment comment = commentTwice();
+        User renamed = new User("Anna");
+        renamed.setId(comment.getUser().getId());
+
+        List<User> updated = userService.updateAll(List.of(renamed));
+
+        assertThat(updated).singleElement().extracting(User::getCommentCount).isEqualTo(2L);
+    }
+
+    @Test
+    void linksOnlyTheBooksThatDiffer() {
+        Long author = authorService.createAll(List.of(new Author("Alice"))).get(0).getId();
+        List<Book> books = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            books.add(new Book("Book " + i, new ArrayList<>(), 1));
+        }
+        List<Long> ids = bookService.createAll(books).stream().map(Book::getId).toList();
+        authorService.addBookToAuthor(author, ids.get(0));
+        entityManager.clear();
+        statistics.clear();
+
+        BookLinksDto links = authorService.linkBooks(author, ids.subList(0, 20));
+
+        assertThat(links.getLinked()).containsExactlyElementsOf(ids.subList(1, 20));
+        assertThat(links.getUnchanged()).containsExactly(ids.get(0));
+        // The author, the existing links and one INSERT ... SELECT for all 19 books.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(bookRepository.findIdsByAuthorId(author))
+                .containsExactlyInAnyOrderElementsOf(ids.subList(0, 20));
+
+        links = authorService.replaceBooks(author, ids.subList(10, 30));
+        assertThat(links.getLinked()).containsExactlyElementsOf(ids.subList(20, 30));
+        assertThat(links.getUnlinked()).containsExactlyElementsOf(ids.subList(0, 10));
+        assertThat(links.getUnchanged()).containsExactlyElementsOf(ids.subList(10, 20));
+
+        links = authorService.unlinkBooks(author, List.of(ids.get(0), ids.get(29)));
+        assertThat(links.getUnlinked()).containsExactly(ids.get(29));
+        assertThat(links.getUnchanged()).containsExactly(ids.get(0));
+        assertThat(bookRepository.findIdsByAuthorId(author))
+                .containsExactlyInAnyOrderElementsOf(ids.subList(10, 29));
+
+        assertThatThrownBy(() -> authorService.linkBooks(author, List.of(ids.get(0), -1L)))
+                .isInstanceOf(NotFoundException.class).hasMessageContaining("-1");
+        assertThatThrownBy(() -> authorService.addBookToAuthor(author, ids.get(10)))
+                .isInstanceOf(ConflictException.class);
+        assertThatThrownBy(() -> authorService.deleteBookFromAuthor(author, ids.get(0)))
+                .isInstanceOf(NotFoundException.class);
+        assertThat(bookRepository.findIdsByAuthorId(author)).doesNotContain(ids.get(0));
+    }
+
+    @Test
+    void joinTableHasCompositeKeyAndReverseIndex() {
+        Long author = authorService.createAll(List.of(new Author("Alice"))).get(0).getId();
+        Long book = bookService.createAll(List.of(new Book("Dune", new ArrayList<>(), 1)))
+                .get(0).getId();
+        String insert = "INSERT INTO book_author (book_id, author_id) VALUES (?1, ?2)";
+        entityManager.createNativeQuery(insert).setParameter(1, book).setParameter(2, author)
+                .executeUpdate();
+
+        assertThatThrownBy(() -> entityManager.createNativeQuery(insert).setParameter(1, book)
+                .setParameter(2, author).executeUpdate())
+                .isInstanceOf(ConstraintViolationException.class);
+        assertThat(entityManager.unwrap(Session.class).createNativeQuery("SELECT COLUMN_NAME "
+                + "FROM INFORMATION_SCHEMA.INDEX_COLUMNS "
+                + "WHERE INDEX_NAME = 'IDX_BOOK_AUTHOR_AUTHOR_ID'", String.class).getResultList())
+                .containsExactly("AUTHOR_ID");
+    }
+
+    /**Two comments by one user on one book, with the counts stored and nothing loaded.*/
+    private Comment commentTwice() {
+        Long user = userService.createAll(List.of(new User("Ann"))).get(0).getId();
+        Long book = bookService.createAll(List.of(new Book("Dune", new ArrayList<>(), 1)))
+                .get(0).getId();
+        Comment first = commentService.createAll(book,
+                List.of(comment(user, "First"), comment(user, "Second"))).get(0);
+        entityManager.flush();
+        entityManager.clear();
+        return first;
+    }
+
+    private static Book book(Long id, String title, int pages) {
+        Book book = new Book(title, new ArrayList<>(), pages);
+        book.setId(id);
+        return book;
+    }
+
+    private static CommentDto comment(Long userId, String text) {
+        CommentDto comment = new CommentDto();
+        comment.setUserId(userId);
+        comment.setText(text);
+        return comment;
+    }
+}
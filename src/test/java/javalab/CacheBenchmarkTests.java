@@ -0,0 +1,85 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javalab.utility.Cache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**Throughput comparison of {@link Cache} against the previous LinkedHashMap cache.
+ * Run with {@code -Dbenchmark=true}.*/
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CacheBenchmarkTests {
+    private static final int CAPACITY = 1024;
+    private static final int KEY_RANGE = 4096;
+    private static final long DURATION_MS = 2000;
+
+    @Test
+    void compareThroughput() throws InterruptedException {
+        for (int threads : new int[]{1, 4, 16, 64}) {
+            long legacy = measure(Collections.synchronizedMap(new LegacyCache<>(CAPACITY)), threads);
+            long striped = measure(new Cache<>(CAPACITY), threads);
+            System.out.printf("threads=%d legacy=%,d ops/s cache=%,d ops/s%n",
+                    threads, legacy, striped);
+            assertThat(striped).isPositive();
+        }
+    }
+
+    private long measure(Map<Long, Long> cache, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder operations = new LongAdder();
+        long deadline = System.currentTimeMillis() + DURATION_MS;
+
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (System.currentTimeMillis() < deadline) {
+                    for (int i = 0; i < 1000; i++) {
+                        // Mostly hot keys, as for popular books: roughly a 90% hit rate.
+                        long key = random.nextInt(10) == 0
+                                ? random.nextLong(KEY_RANGE) : random.nextLong(CAPACITY / 2);
+                        if (cache.get(key) == null) {
+                            cache.put(key, key);
+                        }
+                    }
+                    operations.add(1000);
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return operations.sum() * 1000 / DURATION_MS;
+    }
+
+    /**Copy of the cache this class replaced, used as the baseline.*/
+    private static class LegacyCache<K, V> extends LinkedHashMap<K, V> {
+        private final int maxSize;
+
+        LegacyCache(int maxSize) {
+            super(maxSize + 2, 1.f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
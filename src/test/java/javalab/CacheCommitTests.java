@@ -0,0 +1,188 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import javalab.config.BulkProperties;
+import javalab.config.CacheConfig;
+import javalab.config.PaginationProperties;
+import javalab.exception.NotFoundException;
+import javalab.mapper.AuthorMapper;
+import javalab.mapper.BookMapper;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.repository.AuthorRepository;
+import javalab.repository.BookRepository;
+import javalab.service.AuthorService;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.PaginationService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**A read from another connection between a write and its commit sees the old state and
+ * caches it; the eviction after the commit must still remove it. These tests commit, so
+ * they clean up after themselves.*/
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false"
+})
+@Import({CacheConfig.class, BookService.class, BookMapper.class, CacheInvalidationService.class,
+    PaginationService.class, PaginationProperties.class, CommentCountService.class,
+    BulkService.class, BulkProperties.class, AuthorService.class, AuthorMapper.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CacheCommitTests {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private BookService bookService;
+    @Autowired
+    private AuthorService authorService;
+
+    private TransactionTemplate transaction;
+    private Author alice;
+    private Book dune;
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            alice = authorRepository.save(new Author("Alice"));
+            dune = bookRepository.save(new Book("Dune", List.of(alice), 412));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        transaction.executeWithoutResult(status -> {
+            bookRepository.deleteAll();
+            authorRepository.deleteAllInBatch();
+        });
+    }
+
+    @Test
+    void deletedBookIsNotCachedByAReadBeforeTheCommit() {
+        bookService.getById(dune.getId());
+
+        transaction.executeWithoutResult(status -> {
+            bookService.delete(dune.getId());
+            entityManager.flush();
+            assertThat(readElsewhere(() -> bookService.getById(dune.getId())).getTitle())
+                    .isEqualTo("Dune");
+        });
+
+        assertThatThrownBy(() -> bookService.getById(dune.getId()))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    void bulkBookWritesAreNotCachedByAReadBeforeTheCommit() {
+        bookService.getById(dune.getId());
+        authorService.getById(alice.getId());
+        Book renamed = new Book("Dune Messiah", List.of(alice), 412);
+        renamed.setId(dune.getId());
+
+        transaction.executeWithoutResult(status -> {
+            bookService.updateAll(List.of(renamed));
+            Author author = authorRepository.getReferenceById(alice.getId());
+            bookService.createAll(List.of(new Book("Arrakis", List.of(author), 300)));
+            entityManager.flush();
+            assertThat(readElsewhere(() -> bookService.getById(dune.getId())).getTitle())
+                    .isEqualTo("Dune");
+            assertThat(readElsewhere(() -> authorService.getById(alice.getId())).getBooks())
+                    .containsExactly("Dune");
+        });
+
+        assertThat(bookService.getById(dune.getId()).getTitle()).isEqualTo("Dune Messiah");
+        assertThat(authorService.getById(alice.getId()).getBooks())
+                .containsExactly("Arrakis", "Dune Messiah");
+    }
+
+    @Test
+    void bulkAuthorWritesAreNotCachedByAReadBeforeTheCommit() {
+        bookService.getById(dune.getId());
+        authorService.getById(alice.getId());
+        Author renamed = new Author("Alicia");
+        renamed.setId(alice.getId());
+
+        transaction.executeWithoutResult(status -> {
+            authorService.updateAll(List.of(renamed));
+            entityManager.flush();
+            assertThat(readElsewhere(() -> authorService.getById(alice.getId())).getName())
+                    .isEqualTo("Alice");
+            assertThat(readElsewhere(() -> bookService.getById(dune.getId())).getAuthors())
+                    .containsExactly("Alice");
+        });
+
+        assertThat(authorService.getById(alice.getId()).getName()).isEqualTo("Alicia");
+        assertThat(bookService.getById(dune.getId()).getAuthors()).containsExactly("Alicia");
+    }
+
+    @Test
+    void linkedBooksAreNotCachedByAReadBeforeTheCommit() {
+        Long arrakis = bookService.createAll(List.of(new Book("Arrakis", List.of(), 300)))
+                .get(0).getId();
+        bookService.getById(arrakis);
+        authorService.getById(alice.getId());
+
+        transaction.executeWithoutResult(status -> {
+            authorService.linkBooks(alice.getId(), List.of(arrakis));
+            assertThat(readElsewhere(() -> authorService.getById(alice.getId())).getBooks())
+                    .containsExactly("Dune");
+            assertThat(readElsewhere(() -> bookService.getById(arrakis)).getAuthors()).isEmpty();
+        });
+
+        assertThat(authorService.getById(alice.getId()).getBooks())
+                .containsExactly("Arrakis", "Dune");
+        assertThat(bookService.getById(arrakis).getAuthors()).containsExactly("Alice");
+    }
+
+    @Test
+    void deletedAuthorIsNotCachedByAReadBeforeTheCommit() {
+        bookService.getById(dune.getId());
+        authorService.getById(alice.getId());
+
+        transaction.executeWithoutResult(status -> {
+            authorService.delete(alice.getId());
+            entityManager.flush();
+            assertThat(readElsewhere(() -> authorService.getById(alice.getId())).getName())
+                    .isEqualTo("Alice");
+            assertThat(readElsewhere(() -> bookService.getById(dune.getId())).getAuthors())
+                    .containsExactly("Alice");
+        });
+
+        assertThatThrownBy(() -> authorService.getById(alice.getId()))
+                .isInstanceOf(NotFoundException.class);
+        assertThat(bookService.getById(dune.getId()).getAuthors()).isEmpty();
+    }
+
+    /**Runs the read on another thread, so it uses its own connection and transaction.*/
+    private static <T> T readElsewhere(Supplier<T> read) {
+        try {
+            return CompletableFuture.supplyAsync(read).get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
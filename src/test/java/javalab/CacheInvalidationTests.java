@@ -0,0 +1,416 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import javalab.config.CacheConfig;
+import javalab.config.CacheHolder;
+import javalab.config.CacheProperties;
+import javalab.config.PaginationProperties;
+import javalab.dto.CommentDto;
+import javalab.exception.NotFoundException;
+import javalab.mapper.AuthorMapper;
+import javalab.mapper.BookMapper;
+import javalab.mapper.CommentMapper;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.model.Comment;
+import javalab.model.User;
+import javalab.repository.AuthorRepository;
+import javalab.repository.BookRepository;
+import javalab.repository.CommentRepository;
+import javalab.repository.UserRepository;
+import javalab.service.AuthorService;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.CommentService;
+import javalab.service.PaginationService;
+import javalab.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**Checks that cached book and author reads are never stale after any mutation.
+ * The repositories are backed by in-memory tables; {@code Book.authors} is the owning side
+ * of the link, as in the db, so every load rebuilds the entity graph from it.*/
+class CacheInvalidationTests {
+    private final Map<Long, Book> books = new HashMap<>();
+    private final Map<Long, Author> authors = new HashMap<>();
+    private final Map<Long, User> users = new HashMap<>();
+    private final Map<Long, Comment> comments = new HashMap<>();
+    private final Set<Long> deletedBooks = new HashSet<>();
+    private final Set<Long> deletedAuthors = new HashSet<>();
+    private final AtomicLong ids = new AtomicLong(1000);
+
+    private final BookMapper bookMapper = new BookMapper();
+    private final AuthorMapper authorMapper = new AuthorMapper();
+
+    private CacheHolder cacheHolder;
+    private BookService bookService;
+    private AuthorService authorService;
+    private CommentService commentService;
+    private UserService userService;
+
+    @BeforeEach
+    void setUp() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        AuthorRepository authorRepository = mock(AuthorRepository.class);
+        CommentRepository commentRepository = mock(CommentRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        stubBooks(bookRepository);
+        stubAuthors(authorRepository);
+        stubComments(commentRepository);
+        stubUsers(userRepository);
+
+        cacheHolder = new CacheConfig().cacheHolder(new CacheProperties());
+        CacheInvalidationService invalidation = new CacheInvalidationService(cacheHolder);
+        PaginationService pagination = new PaginationService(new PaginationProperties());
+        CommentCountService commentCounts = mock(CommentCountService.class);
+        BulkService bulk = mock(BulkService.class);
+        userService = new UserService(userRepository, commentRepository, pagination,
+                commentCounts, bulk);
+        bookService = new BookService(bookRepository, commentRepository, bookMapper,
+                cacheHolder, invalidation, pagination, commentCounts, bulk);
+        authorService = new AuthorService(authorRepository, bookRepository, authorMapper,
+                cacheHolder, invalidation, pagination, bulk);
+        commentService = new CommentService(commentRepository, bookService, userRepository,
+                new CommentMapper(userService), commentCounts, bulk, pagination);
+
+        addAuthor(1L, "Alice");
+        addAuthor(2L, "Bob");
+        addAuthor(3L, "Carol");
+        addBook(10L, "Dune", 1L);
+        addBook(11L, "Emma", 1L, 2L);
+        addBook(12L, "Fury", 3L);
+        User user = new User("Ann");
+        user.setId(100L);
+        users.put(100L, user);
+        Comment comment = new Comment(500L, books.get(10L), user, "Great");
+        comments.put(500L, comment);
+
+        warmUp();
+    }
+
+    @Test
+    void bookCreate() {
+        Book book = new Book("Gale", new ArrayList<>(List.of(authors.get(2L))), 10);
+        bookService.create(book);
+        assertFresh();
+    }
+
+    @Test
+    void bookUpdateTitle() {
+        Book book = new Book("Dune Messiah", new ArrayList<>(List.of(authors.get(1L))), 20);
+        bookService.update(10L, book);
+        assertFresh();
+    }
+
+    @Test
+    void bookUpdateAuthors() {
+        Book book = new Book("Emma", new ArrayList<>(List.of(authors.get(3L))), 20);
+        bookService.update(11L, book);
+        assertFresh();
+    }
+
+    @Test
+    void bookDelete() {
+        bookService.delete(11L);
+        assertFresh();
+    }
+
+    @Test
+    void authorCreate() {
+        authorService.create(new Author("Dave"));
+        assertFresh();
+    }
+
+    @Test
+    void authorUpdateName() {
+        authorService.update(1L, new Author("Alicia"));
+        assertFresh();
+    }
+
+    @Test
+    void authorUpdateSameNameKeepsBooksCached() {
+        long before = cacheHolder.getBookCache().stats().getInvalidations();
+        authorService.update(1L, new Author("Alice"));
+        assertThat(cacheHolder.getBookCache().stats().getInvalidations()).isEqualTo(before);
+        assertFresh();
+    }
+
+    @Test
+    void authorDelete() {
+        authorService.delete(1L);
+        assertFresh();
+    }
+
+    @Test
+    void authorLinkAndUnlink() {
+        authorService.addBookToAuthor(2L, 10L);
+        assertFresh();
+        warmUp();
+        authorService.deleteBookFromAuthor(1L, 11L);
+        assertFresh();
+    }
+
+    @Test
+    void authorBatchLinks() {
+        authorService.linkBooks(3L, List.of(10L, 11L));
+        assertFresh();
+        warmUp();
+        authorService.unlinkBooks(1L, List.of(10L, 11L));
+        assertFresh();
+        warmUp();
+        authorService.replaceBooks(3L, List.of(10L));
+        assertFresh();
+    }
+
+    @Test
+    void commentMutationsEvictNothing() {
+        long bookInvalidations = cacheHolder.getBookCache().stats().getInvalidations();
+        long authorInvalidations = cacheHolder.getAuthorCache().stats().getInvalidations();
+
+        commentService.create(10L, new CommentDto(null, null, 100L, "Nice", null));
+        commentService.update(10L, 500L, new Comment(null, null, users.get(100L), "Edited"));
+        commentService.delete(500L);
+
+        assertThat(cacheHolder.getBookCache().stats().getInvalidations())
+                .isEqualTo(bookInvalidations);
+        assertThat(cacheHolder.getAuthorCache().stats().getInvalidations())
+                .isEqualTo(authorInvalidations);
+        assertFresh();
+    }
+
+    @Test
+    void userMutations() {
+        User user = new User("Annie");
+        userService.update(100L, user);
+        assertFresh();
+        userService.create(new User("Ben"));
+        assertFresh();
+        userService.delete(100L);
+        assertFresh();
+    }
+
+    private void warmUp() {
+        books.keySet().forEach(bookService::getById);
+        authors.keySet().forEach(authorService::getById);
+    }
+
+    private void assertFresh() {
+        for (Long id : books.keySet()) {
+            assertThat(bookService.getById(id)).usingRecursiveComparison()
+                    .isEqualTo(bookMapper.toDto(loadBook(id)));
+        }
+        for (Long id : authors.keySet()) {
+            assertThat(authorService.getById(id)).usingRecursiveComparison()
+                    .isEqualTo(authorMapper.toDto(loadAuthor(id)));
+        }
+        for (Long id : deletedBooks) {
+            assertThatThrownBy(() -> bookService.getById(id)).isInstanceOf(NotFoundException.class);
+        }
+        for (Long id : deletedAuthors) {
+            assertThatThrownBy(() -> authorService.getById(id))
+                    .isInstanceOf(NotFoundException.class);
+        }
+    }
+
+    private void addAuthor(Long id, String name) {
+        Author author = new Author(name);
+        author.setId(id);
+        authors.put(id, author);
+    }
+
+    private void addBook(Long id, String title, Long... authorIds) {
+        List<Author> bookAuthors = new ArrayList<>();
+        for (Long authorId : authorIds) {
+            bookAuthors.add(authors.get(authorId));
+        }
+        Book book = new Book(title, bookAuthors, 100);
+        book.setId(id);
+        books.put(id, book);
+    }
+
+    /**Builds the book as the db would return it: with current author rows and comments.*/
+    private Book loadBook(Long id) {
+        Book stored = books.get(id);
+        if (stored == null) {
+            return null;
+        }
+        List<Author> bookAuthors = new ArrayList<>();
+        for (Author author : stored.getAuthors()) {
+            if (authors.containsKey(author.getId())) {
+                bookAuthors.add(copyAuthor(authors.get(author.getId())));
+            }
+        }
+        Book book = new Book(stored.getTitle(), bookAuthors, stored.getPages());
+        book.setId(id);
+        book.setComments(new ArrayList<>(comments.values().stream()
+                .filter(c -> c.getBook() != null && id.equals(c.getBook().getId())).toList()));
+        for (Author author : bookAuthors) {
+            author.getBooks().add(book);
+        }
+        return book;
+    }
+
+    /**Builds the author as the db would return it: books come from the owning side of the link.*/
+    private Author loadAuthor(Long id) {
+        Author stored = authors.get(id);
+        if (stored == null) {
+            return null;
+        }
+        Author author = copyAuthor(stored);
+        for (Book book : books.values()) {
+            if (book.getAuthors().stream().anyMatch(a -> id.equals(a.getId()))) {
+                author.getBooks().add(loadBook(book.getId()));
+            }
+        }
+        return author;
+    }
+
+    private static Author copyAuthor(Author stored) {
+        Author author = new Author(stored.getName());
+        author.setId(stored.getId());
+        return author;
+    }
+
+    private void stubBooks(BookRepository repository) {
+        when(repository.findById(anyLong()))
+                .thenAnswer(inv -> Optional.ofNullable(loadBook(inv.getArgument(0))));
+        when(repository.findWithAuthorsById(anyLong()))
+                .thenAnswer(inv -> Optional.ofNullable(loadBook(inv.getArgument(0))));
+        when(repository.findByTitle(anyString())).thenAnswer(inv -> books.values().stream()
+                .filter(b -> b.getTitle().equals(inv.getArgument(0))).findFirst());
+        when(repository.findIdsByAuthorId(anyLong())).thenAnswer(inv ->
+                loadAuthor(inv.getArgument(0)).getBooks().stream().map(Book::getId).toList());
+        when(repository.findLinksToAuthor(anyLong(), anyCollection())).thenAnswer(inv -> {
+            Long authorId = inv.getArgument(0);
+            Collection<Long> bookIds = inv.getArgument(1);
+            return bookIds.stream().filter(books::containsKey).map(id -> new Object[]{id,
+                    books.get(id).getAuthors().stream().anyMatch(a -> authorId.equals(a.getId()))
+                            ? authorId : null}).toList();
+        });
+        when(repository.linkAuthor(anyLong(), anyCollection())).thenAnswer(inv -> {
+            Collection<Long> bookIds = inv.getArgument(1);
+            bookIds.forEach(id -> books.get(id).getAuthors().add(authors.get(inv.getArgument(0))));
+            return bookIds.size();
+        });
+        when(repository.unlinkAuthor(anyLong(), anyCollection())).thenAnswer(inv -> {
+            Long authorId = inv.getArgument(0);
+            Collection<Long> bookIds = inv.getArgument(1);
+            bookIds.forEach(id -> books.get(id).getAuthors()
+                    .removeIf(a -> authorId.equals(a.getId())));
+            return bookIds.size();
+        });
+        when(repository.unlinkAuthorFromAll(anyLong())).thenAnswer(inv -> {
+            Long authorId = inv.getArgument(0);
+            books.values().forEach(book -> book.getAuthors()
+                    .removeIf(a -> authorId.equals(a.getId())));
+            return 0;
+        });
+        when(repository.save(any(Book.class))).thenAnswer(inv -> {
+            Book book = inv.getArgument(0);
+            if (book.getId() == null) {
+                book.setId(ids.incrementAndGet());
+            }
+            books.put(book.getId(), book);
+            return book;
+        });
+        doAnswer(inv -> {
+            Book book = inv.getArgument(0);
+            books.remove(book.getId());
+            deletedBooks.add(book.getId());
+            return null;
+        }).when(repository).delete(any(Book.class));
+    }
+
+    private void stubAuthors(AuthorRepository repository) {
+        when(repository.findById(anyLong()))
+                .thenAnswer(inv -> Optional.ofNullable(loadAuthor(inv.getArgument(0))));
+        when(repository.findWithBooksById(anyLong()))
+                .thenAnswer(inv -> Optional.ofNullable(loadAuthor(inv.getArgument(0))));
+        when(repository.findByName(anyString())).thenAnswer(inv -> authors.values().stream()
+                .filter(a -> a.getName().equals(inv.getArgument(0))).findFirst());
+        when(repository.save(any(Author.class))).thenAnswer(inv -> {
+            Author author = inv.getArgument(0);
+            if (author.getId() == null) {
+                author.setId(ids.incrementAndGet());
+            }
+            authors.put(author.getId(), copyAuthor(author));
+            return author;
+        });
+        doAnswer(inv -> {
+            Author author = inv.getArgument(0);
+            authors.remove(author.getId());
+            deletedAuthors.add(author.getId());
+            return null;
+        }).when(repository).delete(any(Author.class));
+    }
+
+    private void stubComments(CommentRepository repository) {
+        when(repository.existsById(anyLong()))
+                .thenAnswer(inv -> comments.containsKey((Long) inv.getArgument(0)));
+        when(repository.save(any(Comment.class))).thenAnswer(inv -> {
+            Comment comment = inv.getArgument(0);
+            if (comment.getId() == null) {
+                comment.setId(ids.incrementAndGet());
+            }
+            comments.put(comment.getId(), comment);
+            return comment;
+        });
+        when(repository.findById(anyLong()))
+                .thenAnswer(inv -> Optional.ofNullable(comments.get((Long) inv.getArgument(0))));
+        doAnswer(inv -> comments.remove((Long) inv.getArgument(0)))
+                .when(repository).deleteById(anyLong());
+        doAnswer(inv -> comments.remove(((Comment) inv.getArgument(0)).getId()))
+                .when(repository).delete(any(Comment.class));
+        doAnswer(inv -> {
+            Iterable<Comment> deleted = inv.getArgument(0);
+            deleted.forEach(c -> comments.remove(c.getId()));
+            return null;
+        }).when(repository).deleteAll(anyIterable());
+    }
+
+    private void stubUsers(UserRepository repository) {
+        when(repository.findById(anyLong())).thenAnswer(inv -> {
+            User stored = users.get((Long) inv.getArgument(0));
+            if (stored == null) {
+                return Optional.empty();
+            }
+            stored.setComments(new ArrayList<>(comments.values().stream()
+                    .filter(c -> c.getUser() != null
+                            && stored.getId().equals(c.getUser().getId())).toList()));
+            return Optional.of(stored);
+        });
+        when(repository.existsById(anyLong()))
+                .thenAnswer(inv -> users.containsKey((Long) inv.getArgument(0)));
+        when(repository.save(any(User.class))).thenAnswer(inv -> {
+            User user = inv.getArgument(0);
+            if (user.getId() == null) {
+                user.setId(ids.incrementAndGet());
+            }
+            users.put(user.getId(), user);
+            return user;
+        });
+        doAnswer(inv -> users.remove((Long) inv.getArgument(0)))
+                .when(repository).deleteById(anyLong());
+    }
+}
@@ -2,8 +2,18 @@ package javalab;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import javalab.utility.Cache;
+import javalab.utility.CacheStats;
 import org.assertj.core.api.MapAssert;
 import org.junit.jupiter.api.Test;
 
@@ -38,4 +48,110 @@ class CacheTests {
 
 		assertThat(c1.equals(c2)).isTrue();
 	}
+
+	@Test
+	void keepsRecentlyReadEntries() {
+		Map<Integer, Integer> c1 = new Cache<>(2);
+
+		c1.put(1, 1);
+		c1.put(2, 2);
+		c1.get(1);
+		c1.put(3, 3);
+
+		MapAssert.assertThatMap(c1).containsKey(1);
+		MapAssert.assertThatMap(c1).doesNotContainKey(2);
+		MapAssert.assertThatMap(c1).containsKey(3);
+	}
+
+	@Test
+	void concurrentAccessKeepsEntriesConsistent() throws Exception {
+		int threads = 32;
+		int capacity = 64;
+		Cache<Long, Long> cache = new Cache<>(capacity);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>();
+
+		for (int t = 0; t < threads; t++) {
+			futures.add(executor.submit(() -> {
+				start.await();
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				for (int i = 0; i < 50_000; i++) {
+					long key = random.nextLong(256);
+					int op = random.nextInt(10);
+					if (op < 6) {
+						Long value = cache.get(key);
+						if (value != null && value != key) {
+							throw new AssertionError("Key " + key + " mapped to " + value);
+						}
+					} else if (op < 9) {
+						cache.put(key, key);
+					} else {
+						cache.remove(key);
+					}
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(1, TimeUnit.MINUTES);
+		}
+		executor.shutdown();
+
+		assertThat(cache.size()).isLessThanOrEqualTo(capacity);
+		cache.forEach((key, value) -> assertThat(value).isEqualTo(key));
+		cache.clear();
+		assertThat(cache.isEmpty()).isTrue();
+	}
+
+	@Test
+	void evictsByWeight() {
+		Cache<Integer, String> c1 = new Cache<>(16, null, 10, (key, value) -> value.length());
+
+		c1.put(1, "aaaa");
+		c1.put(2, "bbbb");
+		c1.put(3, "cccc");
+
+		MapAssert.assertThatMap(c1).doesNotContainKey(1);
+		MapAssert.assertThatMap(c1).containsKey(2);
+		MapAssert.assertThatMap(c1).containsKey(3);
+
+		c1.put(4, "dddddddddddd");
+		MapAssert.assertThatMap(c1).doesNotContainKey(4);
+	}
+
+	@Test
+	void expiresEntriesAfterTimeToLive() throws InterruptedException {
+		Cache<Integer, Integer> c1 = new Cache<>(16, Duration.ofMillis(20), 0,
+				(key, value) -> 1);
+
+		c1.put(1, 1);
+		assertThat(c1.get(1)).isEqualTo(1);
+
+		Thread.sleep(40);
+		assertThat(c1.containsKey(1)).isFalse();
+		assertThat(c1.get(1)).isNull();
+		assertThat(c1.isEmpty()).isTrue();
+	}
+
+	@Test
+	void countsHitsMissesAndEvictions() {
+		Cache<Integer, Integer> c1 = new Cache<>(2);
+
+		assertThat(c1.getOrLoad(1, key -> key * 10)).isEqualTo(10);
+		assertThat(c1.getOrLoad(1, key -> -1)).isEqualTo(10);
+		c1.put(2, 2);
+		c1.put(3, 3);
+		c1.remove(3);
+
+		CacheStats stats = c1.stats();
+		assertThat(stats.getHits()).isEqualTo(1);
+		assertThat(stats.getMisses()).isEqualTo(1);
+		assertThat(stats.getLoads()).isEqualTo(1);
+		assertThat(stats.getPuts()).isEqualTo(3);
+		assertThat(stats.getEvictions()).isEqualTo(1);
+		assertThat(stats.getInvalidations()).isEqualTo(1);
+		assertThat(stats.getSize()).isEqualTo(1);
+	}
 }
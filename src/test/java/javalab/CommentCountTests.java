@@ -0,0 +1,129 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import javalab.dto.CommentCountMismatchDto;
+import javalab.model.Book;
+import javalab.model.Comment;
+import javalab.model.User;
+import javalab.repository.BookRepository;
+import javalab.repository.UserRepository;
+import javalab.service.CommentCountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false"
+})
+@Import(CommentCountService.class)
+class CommentCountTests {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CommentCountService commentCountService;
+
+    private Book dune;
+    private Book emma;
+    private User ann;
+    private User ben;
+
+    @BeforeEach
+    void setUp() {
+        dune = persist(new Book("Dune", new ArrayList<>(), 412));
+        emma = persist(new Book("Emma", new ArrayList<>(), 300));
+        ann = persist(new User("Ann"));
+        ben = persist(new User("Ben"));
+        comment(dune, ann);
+        comment(dune, ann);
+        comment(dune, ben);
+        comment(emma, ben);
+    }
+
+    @Test
+    void backfillFixesEveryCounter() {
+        assertThat(commentCountService.check()).hasSize(4);
+
+        assertThat(commentCountService.backfill()).isEqualTo(4);
+
+        assertThat(commentCountService.check()).isEmpty();
+        assertThat(count(dune)).isEqualTo(3);
+        assertThat(count(ann)).isEqualTo(2);
+        assertThat(commentCountService.backfill()).isZero();
+    }
+
+    @Test
+    void filtersUseStoredCounters() {
+        commentCountService.backfill();
+        entityManager.clear();
+
+        List<Book> books = bookRepository.findByCommentCount(2L, PageRequest.of(0, 10));
+        List<User> users = userRepository.findByCommentCount(2L,
+                PageRequest.of(0, 10, Sort.by("id")));
+
+        assertThat(books).extracting(Book::getTitle).containsExactly("Dune");
+        assertThat(users).extracting(User::getName).containsExactly("Ann", "Ben");
+    }
+
+    @Test
+    void incrementsAndDeletesKeepCountersConsistent() {
+        commentCountService.backfill();
+
+        comment(emma, ann);
+        commentCountService.commentAdded(emma.getId(), ann.getId());
+        assertThat(commentCountService.check()).isEmpty();
+
+        // Deleting a book takes its comments off the users' counters.
+        commentCountService.bookDeleting(dune.getId());
+        entityManager.createQuery("DELETE FROM Comment c WHERE c.book.id = :id")
+                .setParameter("id", dune.getId()).executeUpdate();
+        assertThat(count(ann)).isEqualTo(1);
+        assertThat(count(ben)).isEqualTo(1);
+
+        commentCountService.userDeleting(ben.getId());
+        entityManager.createQuery("DELETE FROM Comment c WHERE c.user.id = :id")
+                .setParameter("id", ben.getId()).executeUpdate();
+        assertThat(count(emma)).isEqualTo(1);
+
+        // Only the rows about to be deleted themselves are left with stale counters.
+        List<CommentCountMismatchDto> mismatches = commentCountService.check();
+        assertThat(mismatches).extracting(CommentCountMismatchDto::getTable,
+                        CommentCountMismatchDto::getId)
+                .containsExactly(tuple("books", dune.getId()), tuple("users", ben.getId()));
+    }
+
+    private <T> T persist(T entity) {
+        entityManager.persist(entity);
+        return entity;
+    }
+
+    private void comment(Book book, User user) {
+        entityManager.persist(new Comment(null, book, user, "Text"));
+        entityManager.flush();
+    }
+
+    private long count(Book book) {
+        return entityManager.createQuery(
+                "SELECT b.commentCount FROM Book b WHERE b.id = :id", Long.class)
+                .setParameter("id", book.getId()).getSingleResult();
+    }
+
+    private long count(User user) {
+        return entityManager.createQuery(
+                "SELECT u.commentCount FROM User u WHERE u.id = :id", Long.class)
+                .setParameter("id", user.getId()).getSingleResult();
+    }
+}
@@ -0,0 +1,141 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import javalab.config.BulkProperties;
+import javalab.config.CacheConfig;
+import javalab.config.PaginationProperties;
+import javalab.dto.CommentDto;
+import javalab.dto.PageDto;
+import javalab.exception.NotFoundException;
+import javalab.mapper.BookMapper;
+import javalab.mapper.CommentMapper;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.model.Comment;
+import javalab.model.User;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.CommentService;
+import javalab.service.PaginationService;
+import javalab.service.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+/**A page of comments, of a book or of a user, must be read in one statement whatever its
+ * size.*/
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "spring.jpa.show-sql=false"
+})
+@Import({CacheConfig.class, BookService.class, BookMapper.class, CacheInvalidationService.class,
+    PaginationService.class, PaginationProperties.class, CommentCountService.class,
+    BulkService.class, BulkProperties.class, CommentService.class, CommentMapper.class,
+    UserService.class})
+class CommentQueryCountTests {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private CommentService commentService;
+    @Autowired
+    private UserService userService;
+
+    private Statistics statistics;
+    private Book book;
+    private Book empty;
+    private User ann;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        Author author = new Author("Alice");
+        entityManager.persist(author);
+        book = new Book("Dune", List.of(author), 412);
+        entityManager.persist(book);
+        empty = new Book("Emma", List.of(author), 1);
+        entityManager.persist(empty);
+        ann = new User("Ann");
+        entityManager.persist(ann);
+        User ben = new User("Ben");
+        entityManager.persist(ben);
+        for (int i = 0; i < 60; i++) {
+            entityManager.persist(new Comment(null, book, i % 3 == 0 ? ann : ben, "Text " + i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void pagesOfABookTakeOneStatementWhateverTheirSize() {
+        List<CommentDto> all = new ArrayList<>();
+        for (int size : new int[]{5, 50}) {
+            all.clear();
+            PageDto<CommentDto> page = null;
+            do {
+                Optional<Long> after = page == null ? Optional.empty()
+                        : Optional.of(page.getNext());
+                entityManager.clear();
+                statistics.clear();
+                page = commentService.getPage(book.getId(), after, Optional.of(size), "asc");
+                assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+                all.addAll(page.getItems());
+            } while (page.getNext() != null);
+            assertThat(all).hasSize(60).extracting(CommentDto::getId).isSorted();
+        }
+
+        CommentDto first = all.get(0);
+        assertThat(first.getText()).isEqualTo("Text 0");
+        assertThat(first.getUserId()).isEqualTo(ann.getId());
+        assertThat(first.getUser().getName()).isEqualTo("Ann");
+        assertThat(first.getBook().getId()).isEqualTo(book.getId());
+        assertThat(first.getBook().getTitle()).isEqualTo("Dune");
+        assertThat(first.getBook().getPages()).isEqualTo(412);
+    }
+
+    @Test
+    void listingsOfABookAndOfAUserTakeOneStatement() {
+        statistics.clear();
+        assertThat(commentService.getAllComments(book.getId())).hasSize(60);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+
+        statistics.clear();
+        List<CommentDto> byAnn = userService.getUserComments(ann.getId());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(byAnn).hasSize(20).allSatisfy(comment ->
+                assertThat(comment.getUser().getName()).isEqualTo("Ann"));
+
+        statistics.clear();
+        PageDto<CommentDto> last = userService.getCommentPage(ann.getId(), Optional.empty(),
+                Optional.of(3), "desc");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(last.getItems()).extracting(CommentDto::getText)
+                .containsExactly("Text 57", "Text 54", "Text 51");
+    }
+
+    @Test
+    void emptyListingsTellMissingOwnersApart() {
+        assertThat(commentService.getAllComments(empty.getId())).isEmpty();
+        assertThat(commentService.getPage(empty.getId(), Optional.empty(), Optional.empty(),
+                "asc").getItems()).isEmpty();
+        assertThatThrownBy(() -> commentService.getAllComments(-1L))
+                .isInstanceOf(NotFoundException.class);
+        assertThatThrownBy(() -> userService.getCommentPage(-1L, Optional.empty(),
+                Optional.empty(), "asc")).isInstanceOf(NotFoundException.class);
+    }
+}
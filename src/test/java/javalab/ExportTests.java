@@ -0,0 +1,146 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.model.Comment;
+import javalab.model.User;
+import javalab.repository.AuthorRepository;
+import javalab.repository.BookRepository;
+import javalab.repository.UserRepository;
+import javalab.service.ExportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false"
+})
+class ExportTests {
+    private static final int ROWS = 1_000_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void writesOneLinePerEntityWithItsAssociations() throws Exception {
+        Author first = new Author("First");
+        Author second = new Author("Second");
+        entityManager.persist(first);
+        entityManager.persist(second);
+        Book both = new Book("Both", new ArrayList<>(List.of(first, second)), 10);
+        Book none = new Book("None", new ArrayList<>(), 20);
+        entityManager.persist(both);
+        entityManager.persist(none);
+        User reader = new User("Reader");
+        entityManager.persist(reader);
+        entityManager.persist(new Comment(null, both, reader, "Nice"));
+        entityManager.flush();
+        entityManager.clear();
+        ExportService exportService = new ExportService(bookRepository, authorRepository,
+                userRepository, objectMapper);
+
+        List<JsonNode> books = export(out -> exportService.exportBooks(out));
+        List<JsonNode> authors = export(out -> exportService.exportAuthors(out));
+        List<JsonNode> users = export(out -> exportService.exportUsers(out));
+
+        assertThat(books).hasSize(2);
+        assertThat(books.get(0).get("authors")).hasSize(2);
+        assertThat(books.get(1).get("authors")).isEmpty();
+        assertThat(authors).extracting(author -> author.get("books").get(0).asText())
+                .containsExactly("Both", "Both");
+        assertThat(users).singleElement().satisfies(user -> {
+            assertThat(user.get("comments")).hasSize(1);
+            assertThat(user.get("comments").get(0).get("bookId").asLong())
+                    .isEqualTo(both.getId());
+        });
+    }
+
+    @Test
+    void streamsMillionRowsWithoutBufferingThem() throws Exception {
+        BookRepository rows = mock(BookRepository.class);
+        CountingOutputStream out = new CountingOutputStream();
+        AtomicLong writtenAtHalf = new AtomicLong();
+        AtomicLong closed = new AtomicLong();
+        when(rows.streamExportRows()).thenReturn(LongStream.range(0, ROWS)
+                .peek(id -> {
+                    if (id == ROWS / 2) {
+                        writtenAtHalf.set(out.bytes);
+                    }
+                })
+                .mapToObj(id -> new Object[]{id, "Book", 100, "Author"})
+                .onClose(closed::incrementAndGet));
+        ExportService exportService = new ExportService(rows, mock(AuthorRepository.class),
+                mock(UserRepository.class), objectMapper);
+
+        long written = exportService.exportBooks(out);
+
+        assertThat(written).isEqualTo(ROWS);
+        assertThat(out.lines).isEqualTo(ROWS);
+        // Half of the output has reached the socket before the second half is even read.
+        assertThat(writtenAtHalf.get()).isGreaterThan(out.bytes / 3);
+        assertThat(closed.get()).isEqualTo(1);
+    }
+
+    private List<JsonNode> export(ExportCall call) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        call.run(out);
+        List<JsonNode> nodes = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                nodes.add(objectMapper.readTree(line));
+            }
+        }
+        return nodes;
+    }
+
+    private interface ExportCall {
+        void run(OutputStream out) throws Exception;
+    }
+
+    /**Discards the output, keeping only its size.*/
+    private static class CountingOutputStream extends OutputStream {
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
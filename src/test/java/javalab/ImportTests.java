@@ -0,0 +1,219 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import javalab.config.CacheConfig;
+import javalab.config.CacheProperties;
+import javalab.config.ImportProperties;
+import javalab.model.Author;
+import javalab.model.Book;
+import javalab.model.ImportJob;
+import javalab.model.User;
+import javalab.repository.AuthorRepository;
+import javalab.repository.BookRepository;
+import javalab.repository.CommentRepository;
+import javalab.repository.UserRepository;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.ImportService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**Imports run their own transactions, so these tests commit and clean up after themselves.*/
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ImportTests {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private BookRepository bookRepository;
+    @Autowired
+    private AuthorRepository authorRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @TempDir
+    private Path dir;
+
+    private final ImportProperties properties = new ImportProperties();
+    private User reader;
+
+    @BeforeEach
+    void setUp() {
+        properties.setChunkSize(2);
+        authorRepository.save(new Author("Alice"));
+        reader = userRepository.save(new User("Reader"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            commentRepository.deleteAllInBatch();
+            bookRepository.deleteAll();
+            authorRepository.deleteAllInBatch();
+            userRepository.deleteAllInBatch();
+        });
+    }
+
+    @Test
+    void importsGoodLinesAndReportsBadOnes() throws IOException {
+        Path file = write("catalogue.ndjson",
+                "{\"title\":\"Dune\",\"pages\":412,\"authors\":[\"Alice\",\"Bob\"],"
+                        + "\"comments\":[{\"userId\":" + reader.getId() + ",\"text\":\"Great\"}]}",
+                "{\"title\":",
+                "{\"title\":\"Bad!\",\"pages\":1}",
+                "",
+                "{\"title\":\"Dune\",\"pages\":1}",
+                "{\"title\":\"Emma\",\"pages\":2,\"comments\":[{\"userId\":-1,\"text\":\"Who\"}]}",
+                "{\"id\":9,\"title\":\"Fury\",\"pages\":3,\"authors\":[\"Bob\"],"
+                        + "\"comments\":[{\"userId\":" + reader.getId() + ",\"text\":\"Ok\"}]}");
+
+        ImportJob job = newService(new CommentCountService(bookRepository, userRepository))
+                .importFile(file, ImportJob.Format.NDJSON);
+
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.SUCCESS);
+        assertThat(job.getLinesRead()).isEqualTo(7);
+        assertThat(job.getBooksImported()).isEqualTo(2);
+        assertThat(job.getAuthorsCreated()).isEqualTo(1);
+        assertThat(job.getCommentsImported()).isEqualTo(2);
+        assertThat(job.getErrors()).extracting(ImportJob.LineError::getLine)
+                .containsExactlyInAnyOrder(2L, 3L, 5L, 6L);
+        assertThat(job.getErrors()).filteredOn(error -> error.getLine() == 5)
+                .singleElement().satisfies(error ->
+                        assertThat(error.getMessage()).contains("already exists"));
+        assertThat(authorRepository.findAll()).extracting(Author::getName)
+                .containsExactlyInAnyOrder("Alice", "Bob");
+        assertThat(bookRepository.findTitlesByTitleIn(List.of("Dune", "Emma", "Fury")))
+                .containsExactlyInAnyOrder("Dune", "Fury");
+        assertThat(commentRepository.count()).isEqualTo(2);
+        assertThat(userRepository.findById(reader.getId()).orElseThrow().getCommentCount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    void importsCsvWithColumnsInAnyOrder() throws IOException {
+        Path file = write("catalogue.csv",
+                "pages,title,authors",
+                "100,\"Blood sweat and pixels\",Alice|Carol",
+                "abc,Broken,Alice",
+                "5,\"Unterminated,Alice");
+
+        ImportJob job = newService(mock(CommentCountService.class)).importFile(file,
+                ImportJob.Format.CSV);
+
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.SUCCESS);
+        assertThat(job.getErrors()).extracting(ImportJob.LineError::getLine,
+                ImportJob.LineError::getMessage).containsExactly(
+                tuple(3L, "Pages should be a number"), tuple(4L, "Unterminated quoted field"));
+        Book imported = bookRepository.findByTitle("Blood sweat and pixels").orElseThrow();
+        assertThat(imported.getPages()).isEqualTo(100);
+        assertThat(bookRepository.findIdsByAuthorId(
+                authorRepository.findByName("Carol").orElseThrow().getId()))
+                .containsExactly(imported.getId());
+
+        ImportJob missingColumn = newService(mock(CommentCountService.class)).importFile(
+                write("bad.csv", "title,pages", "Dune,1"), ImportJob.Format.CSV);
+        assertThat(missingColumn.getStatus()).isEqualTo(ImportJob.Status.FAILURE);
+        assertThat(missingColumn.getMessage()).contains("authors");
+    }
+
+    @Test
+    void failedChunkIsRetriedLineByLine() throws IOException {
+        CommentCountService failing = mock(CommentCountService.class);
+        // Fails any chunk with comments on two books, as a constraint violation would.
+        doThrow(new DataIntegrityViolationException("broken"))
+                .when(failing).commentsAdded(argThat(byBook -> byBook.size() > 1), any());
+        String comment = ",\"comments\":[{\"userId\":" + reader.getId() + ",\"text\":\"Hi\"}]}";
+        Path file = write("catalogue.ndjson",
+                "{\"title\":\"Dune\",\"pages\":1,\"authors\":[\"Dan\"]" + comment,
+                "{\"title\":\"Emma\",\"pages\":2,\"authors\":[\"Dan\"]" + comment);
+
+        ImportJob job = newService(failing).importFile(file, ImportJob.Format.NDJSON);
+
+        assertThat(job.getFailedLines()).isZero();
+        assertThat(job.getBooksImported()).isEqualTo(2);
+        assertThat(job.getAuthorsCreated()).isEqualTo(1);
+        assertThat(authorRepository.findAll()).extracting(Author::getName)
+                .containsExactlyInAnyOrder("Alice", "Dan");
+    }
+
+    @Test
+    void uploadsAreSpooledAndImportedInTheBackground() throws Exception {
+        ImportService service = newService(mock(CommentCountService.class));
+        byte[] body = "{\"title\":\"Dune\",\"pages\":1}\n".getBytes(StandardCharsets.UTF_8);
+
+        ImportJob job = service.submit(new ByteArrayInputStream(body), ImportJob.Format.NDJSON);
+        for (int i = 0; i < 500 && !job.isFinished(); i++) {
+            Thread.sleep(10);
+        }
+        service.shutdown();
+
+        assertThat(service.find(job.getId()).getStatus()).isEqualTo(ImportJob.Status.SUCCESS);
+        assertThat(job.getProgress()).isEqualTo(100);
+        assertThat(bookRepository.findByTitle("Dune")).isPresent();
+        assertThat(Files.list(Path.of(System.getProperty("java.io.tmpdir")))
+                .anyMatch(path -> path.getFileName().toString().startsWith("import-")
+                        && path.getFileName().toString().endsWith(".ndjson"))).isFalse();
+    }
+
+    @Test
+    void interruptedImportFailsBeforeItsNextChunk() throws IOException {
+        Path file = write("books.ndjson", "{\"title\":\"Dune\",\"pages\":1}",
+                "{\"title\":\"Emma\",\"pages\":2}");
+        ImportService service = newService(mock(CommentCountService.class));
+
+        Thread.currentThread().interrupt();
+        ImportJob job;
+        try {
+            job = service.importFile(file, ImportJob.Format.NDJSON);
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertThat(job.getStatus()).isEqualTo(ImportJob.Status.FAILURE);
+        assertThat(job.getMessage()).isEqualTo("Import stopped by shutdown");
+        assertThat(bookRepository.findByTitle("Dune")).isEmpty();
+    }
+
+    private ImportService newService(CommentCountService commentCountService) {
+        return new ImportService(bookRepository, authorRepository, userRepository,
+                commentCountService,
+                new CacheInvalidationService(new CacheConfig().cacheHolder(new CacheProperties())),
+                entityManager, transactionManager, new ObjectMapper(),
+                Validation.buildDefaultValidatorFactory().getValidator(), properties);
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        return Files.write(dir.resolve(name), List.of(lines), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,134 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javalab.controller.LogController;
+import javalab.logger.LogFileIndex;
+import javalab.model.Log;
+import javalab.service.AsyncLogService;
+import javalab.service.LogSearchService;
+import javalab.service.LogService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+class LogExtractTests {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @TempDir
+    private Path dir;
+    private Path extracts;
+    private AsyncLogService asyncLogService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path log = dir.resolve("app.log");
+        List<String> lines = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            for (int hour = 0; hour < 24; hour++) {
+                lines.add(LogFileIndexTests.line(DAY.plusDays(day).atTime(hour, 0), "day " + day));
+            }
+        }
+        Files.write(log, lines, StandardCharsets.UTF_8);
+        extracts = dir.resolve("extracts");
+        asyncLogService = new AsyncLogService(new LogFileIndex(log), extracts);
+    }
+
+    @Test
+    void spillsTheLinesOfTheDateToAFile() throws IOException {
+        Log log = new Log(7L, Log.Status.IN_PROGRESS, DAY.plusDays(1).toString());
+
+        asyncLogService.createLogs(log);
+
+        assertThat(log.getStatus()).isEqualTo(Log.Status.SUCCESS);
+        assertThat(log.getProgress()).isEqualTo(100);
+        assertThat(Files.readAllLines(log.getFile())).hasSize(24)
+                .allSatisfy(line -> assertThat(line).endsWith("day 1"));
+        assertThat(log.getSize()).isEqualTo(Files.size(log.getFile()));
+    }
+
+    @Test
+    void leavesNoFileBehindWhenCancelledOrEmpty() throws IOException {
+        Log cancelled = new Log(1L, Log.Status.IN_PROGRESS, DAY.toString());
+        cancelled.setCancelRequested(true);
+        Log empty = new Log(2L, Log.Status.IN_PROGRESS, DAY.minusDays(1).toString());
+
+        asyncLogService.createLogs(cancelled);
+        asyncLogService.createLogs(empty);
+
+        assertThat(cancelled.getStatus()).isEqualTo(Log.Status.CANCELLED);
+        assertThat(empty.getStatus()).isEqualTo(Log.Status.FAILURE);
+        try (var files = Files.list(extracts)) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void purgesExtractsOfForgottenJobs() {
+        Log kept = new Log(1L, Log.Status.IN_PROGRESS, DAY.toString());
+        Log dropped = new Log(2L, Log.Status.IN_PROGRESS, DAY.toString());
+        asyncLogService.createLogs(kept);
+        asyncLogService.createLogs(dropped);
+
+        asyncLogService.purgeExtracts(id -> id == 1L);
+
+        assertThat(kept.getFile()).exists();
+        assertThat(dropped.getFile()).doesNotExist();
+    }
+
+    @Test
+    void instancesDoNotShareOrPurgeEachOthersExtracts() throws IOException {
+        LogFileIndex index = new LogFileIndex(dir.resolve("app.log"));
+        AsyncLogService first = new AsyncLogService(index);
+        AsyncLogService second = new AsyncLogService(index);
+        Log log = new Log(1L, Log.Status.IN_PROGRESS, DAY.toString());
+        first.createLogs(log);
+
+        second.purgeExtracts(id -> false);
+        assertThat(log.getFile()).exists();
+        second.close();
+        assertThat(log.getFile()).exists();
+
+        first.close();
+        assertThat(log.getFile()).doesNotExist();
+        assertThat(log.getFile().getParent()).doesNotExist();
+    }
+
+    @Test
+    void downloadHonoursRangeRequests() throws Exception {
+        Log log = new Log(3L, Log.Status.IN_PROGRESS, DAY.toString());
+        asyncLogService.createLogs(log);
+        LogService logService = mock(LogService.class);
+        when(logService.getLogFile(3L)).thenReturn(log.getFile());
+        when(logService.getLogDate(3L)).thenReturn(log.getDate());
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(new LogController(logService,
+                mock(LogSearchService.class))).build();
+        String whole = Files.readString(log.getFile());
+
+        mvc.perform(get("/logs/download/3"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(content().string(whole));
+        mvc.perform(get("/logs/download/3").header(HttpHeaders.RANGE, "bytes=10-19"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE,
+                        "bytes 10-19/" + whole.length()))
+                .andExpect(content().string(whole.substring(10, 20)));
+    }
+}
@@ -0,0 +1,83 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import javalab.logger.LogFileIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+
+/**Date lookups through {@link LogFileIndex} against the previous line-by-line scan, on a log
+ * of {@code -Dbenchmark.log.mb} megabytes (2048 by default). Run with {@code -Dbenchmark=true}.*/
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LogFileIndexBenchmarkTests {
+    private static final int DAYS = 30;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2025, 1, 1);
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void lookupTimeDoesNotDependOnPosition() throws IOException {
+        long megabytes = Long.getLong("benchmark.log.mb", 2048);
+        Path log = dir.resolve("app.log");
+        writeLog(log, megabytes << 20);
+
+        LogFileIndex index = new LogFileIndex(log);
+        long start = System.nanoTime();
+        index.refresh();
+        System.out.printf("size=%,d MB initial index=%d ms%n", megabytes,
+                (System.nanoTime() - start) / 1_000_000);
+
+        for (int day : new int[]{0, DAYS / 2, DAYS - 1}) {
+            LocalDate date = FIRST_DAY.plusDays(day);
+            start = System.nanoTime();
+            int indexed = index.readLines(date).size();
+            long indexedMs = (System.nanoTime() - start) / 1_000_000;
+            start = System.nanoTime();
+            int scanned = scan(log, date.toString());
+            long scannedMs = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("day=%2d lines=%,d index=%d ms scan=%d ms%n",
+                    day, indexed, indexedMs, scannedMs);
+            assertThat(indexed).isEqualTo(scanned);
+        }
+    }
+
+    /**The previous implementation of {@code AsyncLogService.filterLogsByDate}.*/
+    private static int scan(Path log, String date) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(log, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(date)) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private static void writeLog(Path log, long bytes) throws IOException {
+        String message = " [INFO] javalab.service.BookService - Method getById called with "
+                + "arguments: [42]";
+        int lineLength = LogFileIndexTests.line(FIRST_DAY.atStartOfDay(), message).length() + 1;
+        long lines = bytes / lineLength;
+        long minutes = DAYS * 1440L;
+        LocalDateTime start = FIRST_DAY.atStartOfDay();
+        try (BufferedWriter writer = Files.newBufferedWriter(log, StandardCharsets.UTF_8)) {
+            for (long i = 0; i < lines; i++) {
+                LocalDateTime time = start.plusMinutes(i * minutes / lines);
+                writer.write(LogFileIndexTests.line(time, message));
+                writer.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import javalab.logger.LogFileIndex;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogFileIndexTests {
+    private static final LocalDate DAY = LocalDate.of(2025, 3, 10);
+
+    @TempDir
+    private Path dir;
+
+    @Test
+    void readsOnlyTheLinesOfTheDate() throws IOException {
+        Path log = dir.resolve("app.log");
+        List<String> lines = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            for (int hour = 0; hour < 24; hour += 6) {
+                lines.add(line(DAY.plusDays(day).atTime(hour, 30), "day " + day));
+                lines.add("\tat some.Stack(Trace.java:1)");
+            }
+        }
+        append(log, lines);
+        LogFileIndex index = new LogFileIndex(log);
+
+        List<String> second = index.readLines(DAY.plusDays(1));
+
+        assertThat(second).hasSize(4).allSatisfy(line ->
+                assertThat(line).startsWith("2025-03-11").endsWith("day 1"));
+        assertThat(index.readLines(DAY.minusDays(1))).isEmpty();
+        assertThat(index.readLines(DAY.plusDays(5))).isEmpty();
+        assertThat(index.getHourCount()).isEqualTo(12);
+    }
+
+    @Test
+    void indexesAppendedLinesIncrementally() throws IOException {
+        Path log = dir.resolve("app.log");
+        append(log, List.of(line(DAY.atTime(1, 0), "first")));
+        LogFileIndex index = new LogFileIndex(log);
+        long indexed = index.refresh();
+
+        append(log, List.of(line(DAY.atTime(2, 0), "second")));
+        Files.writeString(log, line(DAY.atTime(3, 0), "partial"), StandardOpenOption.APPEND);
+
+        assertThat(index.readLines(DAY)).hasSize(2);
+        // The unterminated last line is left for a later refresh.
+        assertThat(index.getIndexedLength()).isGreaterThan(indexed).isLessThan(Files.size(log));
+        Files.writeString(log, "\n", StandardOpenOption.APPEND);
+        assertThat(index.readLines(DAY)).hasSize(3);
+    }
+
+    @Test
+    void reusesTheSidecarAndRebuildsWhenTheFileIsRewritten() throws IOException {
+        Path log = dir.resolve("app.log");
+        append(log, List.of(line(DAY.atTime(1, 0), "a"), line(DAY.atTime(2, 0), "b")));
+        new LogFileIndex(log).refresh();
+        assertThat(dir.resolve("app.log.idx")).exists();
+
+        LogFileIndex reloaded = new LogFileIndex(log);
+        assertThat(reloaded.readLines(DAY)).hasSize(2);
+
+        // Retention rewrote the file with different first bytes.
+        Files.write(log, List.of(line(DAY.plusDays(1).atTime(5, 0), "c")), StandardCharsets.UTF_8);
+        assertThat(reloaded.readLines(DAY)).isEmpty();
+        assertThat(reloaded.readLines(DAY.plusDays(1))).containsExactly(
+                line(DAY.plusDays(1).atTime(5, 0), "c"));
+    }
+
+    @Test
+    void rangeCoversWholeHours() throws IOException {
+        Path log = dir.resolve("app.log");
+        append(log, List.of(line(DAY.atTime(9, 59), "a"), line(DAY.atTime(10, 0), "b"),
+                line(DAY.atTime(10, 59), "c"), line(DAY.atTime(11, 0), "d")));
+        LogFileIndex index = new LogFileIndex(log);
+
+        long[] range = index.range(DAY.atTime(10, 0), DAY.atTime(11, 0));
+
+        String content = Files.readString(log).substring((int) range[0], (int) range[1]);
+        assertThat(content.split("\n")).extracting(l -> l.substring(l.length() - 1))
+                .containsExactly("b", "c");
+    }
+
+    static String line(LocalDateTime time, String message) {
+        return String.format("%s %02d:%02d:00 [INFO] javalab.Test - %s",
+                time.toLocalDate(), time.getHour(), time.getMinute(), message);
+    }
+
+    private static void append(Path log, List<String> lines) throws IOException {
+        Files.write(log, lines, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,165 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import javalab.config.CacheConfig;
+import javalab.config.CacheHolder;
+import javalab.config.CacheProperties;
+import javalab.config.LogJobProperties;
+import javalab.exception.TooManyRequestsException;
+import javalab.model.Log;
+import javalab.service.AsyncLogService;
+import javalab.service.LogJobScheduler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LogJobSchedulerTests {
+    private static final String BROKEN_DATE = "2025-02-01";
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final List<String> ran = new CopyOnWriteArrayList<>();
+    private CacheHolder cacheHolder;
+    private LogJobScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        AsyncLogService extractor = mock(AsyncLogService.class);
+        doAnswer(inv -> {
+            Log log = inv.getArgument(0);
+            ran.add(log.getDate());
+            if (log.getDate().equals(BROKEN_DATE)) {
+                throw new LinkageError("broken");
+            }
+            started.countDown();
+            // The first job holds the only worker until released or cancelled.
+            while (!release.await(1, TimeUnit.MILLISECONDS)) {
+                if (log.isCancelRequested()) {
+                    log.setStatus(Log.Status.CANCELLED);
+                    return null;
+                }
+            }
+            log.setStatus(Log.Status.SUCCESS);
+            return null;
+        }).when(extractor).createLogs(any(Log.class));
+        LogJobProperties properties = new LogJobProperties();
+        properties.setWorkers(1);
+        properties.setQueueCapacity(3);
+        cacheHolder = new CacheConfig().cacheHolder(new CacheProperties());
+        scheduler = new LogJobScheduler(properties, extractor, cacheHolder);
+        scheduler.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        scheduler.stop();
+    }
+
+    @Test
+    void runsWaitingJobsByPriorityThenArrival() throws Exception {
+        Log blocker = occupyWorker();
+        scheduler.submit("2025-01-02", 0);
+        scheduler.submit("2025-01-03", 5);
+        Log last = scheduler.submit("2025-01-04", 0);
+
+        assertThat(scheduler.queuePosition(last.getId())).isEqualTo(3);
+        assertThat(scheduler.queuePosition(blocker.getId())).isZero();
+        release.countDown();
+        awaitFinished(last);
+
+        assertThat(ran).containsExactly("2025-01-01", "2025-01-03", "2025-01-02", "2025-01-04");
+    }
+
+    @Test
+    void duplicateRequestsShareOneJobAndRaiseItsPriority() throws Exception {
+        occupyWorker();
+        Log low = scheduler.submit("2025-01-02", 0);
+        Log other = scheduler.submit("2025-01-03", 1);
+
+        Log duplicate = scheduler.submit("2025-01-02", 9);
+
+        assertThat(duplicate).isSameAs(low);
+        assertThat(scheduler.queuePosition(low.getId())).isEqualTo(1);
+        assertThat(scheduler.queuePosition(other.getId())).isEqualTo(2);
+        assertThat(scheduler.getQueueSize()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsJobsWhenTheQueueIsFull() throws Exception {
+        occupyWorker();
+        for (int day = 2; day <= 4; day++) {
+            scheduler.submit("2025-01-0" + day, 0);
+        }
+
+        assertThatThrownBy(() -> scheduler.submit("2025-01-05", 0))
+                .isInstanceOf(TooManyRequestsException.class);
+        // A duplicate needs no queue slot.
+        assertThat(scheduler.submit("2025-01-03", 0).getDate()).isEqualTo("2025-01-03");
+    }
+
+    @Test
+    void cancelsWaitingAndRunningJobs() throws Exception {
+        Log runningJob = occupyWorker();
+        Log waiting = scheduler.submit("2025-01-02", 0);
+
+        assertThat(scheduler.cancel(waiting.getId())).isTrue();
+        assertThat(waiting.getStatus()).isEqualTo(Log.Status.CANCELLED);
+        assertThat(scheduler.cancel(runningJob.getId())).isTrue();
+        awaitFinished(runningJob);
+
+        assertThat(runningJob.getStatus()).isEqualTo(Log.Status.CANCELLED);
+        assertThat(ran).containsExactly("2025-01-01");
+        assertThat(scheduler.cancel(runningJob.getId())).isFalse();
+        // A new request for the date starts a fresh job.
+        assertThat(scheduler.submit("2025-01-01", 0).getId()).isNotEqualTo(runningJob.getId());
+    }
+
+    @Test
+    void onlyFinishedJobsAreCached() throws Exception {
+        Log runningJob = occupyWorker();
+        Log waiting = scheduler.submit("2025-01-02", 0);
+
+        assertThat(cacheHolder.getLogFileCache().containsKey(runningJob.getId())).isFalse();
+        assertThat(cacheHolder.getLogFileCache().containsKey(waiting.getId())).isFalse();
+        assertThat(scheduler.find(waiting.getId())).isSameAs(waiting);
+        release.countDown();
+        awaitFinished(waiting);
+
+        assertThat(cacheHolder.getLogFileCache().get(waiting.getId())).isSameAs(waiting);
+    }
+
+    @Test
+    void anErrorFailsTheJobAndKeepsTheWorker() throws Exception {
+        release.countDown();
+        Log broken = scheduler.submit(BROKEN_DATE, 0);
+        awaitFinished(broken);
+        Log next = scheduler.submit("2025-02-02", 0);
+        awaitFinished(next);
+
+        assertThat(broken.getStatus()).isEqualTo(Log.Status.FAILURE);
+        assertThat(next.getStatus()).isEqualTo(Log.Status.SUCCESS);
+    }
+
+    private Log occupyWorker() throws InterruptedException {
+        Log log = scheduler.submit("2025-01-01", 0);
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        return log;
+    }
+
+    private static void awaitFinished(Log log) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!log.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import ch.qos.logback.core.ContextBase;
+import ch.qos.logback.core.encoder.EchoEncoder;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import javalab.logger.SingleFileWithRetentionAppender;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogRetentionTests {
+    @TempDir
+    private Path dir;
+    private SingleFileWithRetentionAppender<String> appender;
+
+    @AfterEach
+    void tearDown() {
+        if (appender != null) {
+            appender.stop();
+        }
+    }
+
+    @Test
+    void dropsOldEntriesWithTheirStackTracesAndKeepsAppending() throws IOException {
+        Path log = dir.resolve("app.log");
+        LocalDate today = LocalDate.now();
+        List<String> lines = new ArrayList<>();
+        for (int day = 10; day >= 0; day--) {
+            lines.add(today.minusDays(day) + " 12:00:00 [ERROR] javalab.Test - day " + day);
+            lines.add("\tat javalab.Test.run(Test.java:" + day + ")");
+        }
+        Files.write(log, lines, StandardCharsets.UTF_8);
+
+        appender = start(log, 3);
+        appender.applyRetention();
+        appender.doAppend(today + " 13:00:00 [INFO] javalab.Test - after retention");
+
+        List<String> kept = Files.readAllLines(log);
+        assertThat(kept).hasSize(9);
+        assertThat(kept.get(0)).endsWith("day 3");
+        assertThat(kept.get(1)).endsWith("(Test.java:3)");
+        assertThat(kept.get(8)).endsWith("after retention");
+        assertThat(dir.resolve("app.log.retention")).doesNotExist();
+    }
+
+    @Test
+    void leavesRecentLogsUntouched() throws IOException {
+        Path log = dir.resolve("app.log");
+        String line = LocalDate.now() + " 12:00:00 [INFO] javalab.Test - today\n";
+        Files.writeString(log, line);
+
+        appender = start(log, 7);
+        appender.applyRetention();
+
+        assertThat(Files.readString(log)).isEqualTo(line);
+    }
+
+    private static SingleFileWithRetentionAppender<String> start(Path log, int maxHistory) {
+        ContextBase context = new ContextBase();
+        EchoEncoder<String> encoder = new EchoEncoder<>();
+        encoder.setContext(context);
+        encoder.start();
+        SingleFileWithRetentionAppender<String> appender =
+                new SingleFileWithRetentionAppender<>();
+        appender.setContext(context);
+        appender.setFile(log.toString());
+        appender.setEncoder(encoder);
+        appender.setMaxHistory(maxHistory);
+        appender.start();
+        return appender;
+    }
+}
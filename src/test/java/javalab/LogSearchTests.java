@@ -0,0 +1,145 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import javalab.exception.BadRequestException;
+import javalab.logger.LogFileIndex;
+import javalab.logger.LogPattern;
+import javalab.service.LogSearchService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LogSearchTests {
+    private static final LocalDateTime START = LocalDateTime.of(2025, 3, 10, 0, 0);
+    private static final int ENTRIES = 2000;
+
+    @TempDir
+    private Path dir;
+    private LogSearchService searchService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path log = dir.resolve("app.log");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            LocalDateTime time = START.plusMinutes(i);
+            String level = i % 10 == 0 ? "ERROR" : i % 5 == 0 ? "WARN" : "INFO";
+            String logger = i % 2 == 0 ? "javalab.service.BookService" : "javalab.Other";
+            lines.add(String.format("%s %02d:%02d:00 [%s] %s - entry %d", time.toLocalDate(),
+                    time.getHour(), time.getMinute(), level, logger, i));
+            if (i % 10 == 0) {
+                lines.add("java.lang.IllegalStateException: broken " + i);
+                lines.add("\tat javalab.Somewhere.run(Somewhere.java:1)");
+            }
+        }
+        Files.write(log, lines, StandardCharsets.UTF_8);
+        // Small chunks, so the file is split between the workers on any machine.
+        searchService = new LogSearchService(new LogFileIndex(log),
+                LogPattern.compile(LogPattern.DEFAULT), 4096);
+    }
+
+    @AfterEach
+    void tearDown() {
+        searchService.shutdown();
+    }
+
+    @Test
+    void parsesHeaderLinesAndSkipsContinuations() {
+        LogPattern pattern = LogPattern.compile(LogPattern.DEFAULT);
+
+        LogPattern.Header header = pattern.parse(
+                "2025-03-10 14:05:00 [WARN] javalab.service.BookService - slow - 120 ms");
+
+        assertThat(header.getTime()).isEqualTo(LocalDateTime.of(2025, 3, 10, 14, 5));
+        assertThat(header.getLevel()).isEqualTo("WARN");
+        assertThat(header.getLogger()).isEqualTo("javalab.service.BookService");
+        assertThat(header.getMessage()).isEqualTo("slow - 120 ms");
+        assertThat(pattern.parse("\tat javalab.Somewhere.run(Somewhere.java:1)")).isNull();
+    }
+
+    @Test
+    void returnsEveryMatchInFileOrderAcrossChunks() throws IOException {
+        List<String> entries = search(Optional.empty(), Optional.empty(), Optional.of("ERROR"),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.of(100_000));
+
+        assertThat(entries).hasSize(ENTRIES / 10);
+        for (int i = 0; i < entries.size(); i++) {
+            assertThat(entries.get(i)).contains("entry " + i * 10 + "\n")
+                    .endsWith("(Somewhere.java:1)");
+        }
+    }
+
+    @Test
+    void combinesTimeLevelLoggerAndText() throws IOException {
+        List<String> entries = search(Optional.of(START.plusMinutes(100)),
+                Optional.of(START.plusMinutes(200)), Optional.of("WARN"),
+                Optional.of("javalab.service"), Optional.empty(), Optional.of("entry 1\\d5$"),
+                Optional.empty());
+
+        // The WARN entries ending in 5 are all logged by javalab.Other.
+        assertThat(entries).isEmpty();
+
+        entries = search(Optional.of(START.plusMinutes(100)), Optional.of(START.plusMinutes(200)),
+                Optional.of("WARN"), Optional.of("javalab.service"), Optional.of("broken"),
+                Optional.empty(), Optional.empty());
+
+        assertThat(entries).hasSize(10);
+        assertThat(entries.get(0)).startsWith("2025-03-10 01:40:00 [ERROR]");
+        assertThat(entries.get(9)).contains("entry 190\n");
+    }
+
+    @Test
+    void stopsAtTheLimit() throws IOException {
+        List<String> entries = search(Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of("javalab.Other"), Optional.empty(), Optional.empty(),
+                Optional.of(700));
+
+        assertThat(entries).hasSize(700);
+        assertThat(entries.get(699)).endsWith("entry 1399");
+    }
+
+    @Test
+    void rejectsInvalidFilters() {
+        assertThatThrownBy(() -> searchService.filter(Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.of("(unclosed"),
+                Optional.empty())).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> searchService.filter(Optional.empty(), Optional.empty(),
+                Optional.of("LOUD"), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.empty())).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> searchService.filter(Optional.empty(), Optional.empty(),
+                Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+                Optional.of(0))).isInstanceOf(BadRequestException.class);
+    }
+
+    private List<String> search(Optional<LocalDateTime> from, Optional<LocalDateTime> to,
+                                Optional<String> level, Optional<String> logger,
+                                Optional<String> text, Optional<String> regex,
+                                Optional<Integer> limit) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = searchService.search(
+                searchService.filter(from, to, level, logger, text, regex, limit), out);
+        String body = out.toString(StandardCharsets.UTF_8);
+        if (body.isEmpty()) {
+            assertThat(written).isZero();
+            return List.of();
+        }
+        // Every entry starts with its date; continuation lines do not.
+        List<String> entries = new ArrayList<>(Arrays.asList(body.split("\n(?=2025-)")));
+        entries.set(entries.size() - 1, entries.get(entries.size() - 1).stripTrailing());
+        assertThat(entries).hasSize(written);
+        return entries;
+    }
+}
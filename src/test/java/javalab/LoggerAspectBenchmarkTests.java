@@ -0,0 +1,115 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import javalab.config.CacheConfig;
+import javalab.config.CacheHolder;
+import javalab.config.CacheProperties;
+import javalab.config.MethodLoggingProperties;
+import javalab.config.PaginationProperties;
+import javalab.logger.LoggerAspect;
+import javalab.mapper.BookMapper;
+import javalab.model.Book;
+import javalab.repository.BookRepository;
+import javalab.repository.CommentRepository;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.PaginationService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+/**Cost of {@link LoggerAspect} on a cached {@code BookService.getById}, with logging off by
+ * sampling and by level against full logging. Run with {@code -Dbenchmark=true}.*/
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class LoggerAspectBenchmarkTests {
+    private static final int WARMUP = 200_000;
+    private static final int CALLS = 2_000_000;
+
+    @Test
+    void compareOverhead() {
+        Logger logger = Logger.getLogger(LoggerAspect.class.getName());
+        logger.setUseParentHandlers(false);
+        // Formats every record as a real handler would, then drops it.
+        logger.addHandler(new Handler() {
+            @Override
+            public void publish(LogRecord logRecord) {
+                getFormatter().formatMessage(logRecord);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        logger.getHandlers()[0].setFormatter(new java.util.logging.SimpleFormatter());
+        BookService plain = bookService();
+
+        MethodLoggingProperties sampledOff = new MethodLoggingProperties();
+        sampledOff.setSampleRate(0);
+        MethodLoggingProperties full = new MethodLoggingProperties();
+
+        BookService sampledProxy = proxy(plain, sampledOff);
+        BookService fullProxy = proxy(plain, full);
+        // The first round only warms up the proxies.
+        for (int round = 0; round < 2; round++) {
+            logger.setLevel(Level.ALL);
+            double none = measure(plain);
+            double sampled = measure(sampledProxy);
+            double logged = measure(fullProxy);
+            logger.setLevel(Level.WARNING);
+            double gated = measure(fullProxy);
+            System.out.printf("getById: no aspect %.1f ns, sampled off %.1f ns, level off %.1f ns,"
+                    + " logged %.1f ns%n", none, sampled, gated, logged);
+            assertThat(sampled).isLessThan(logged);
+        }
+        logger.setLevel(null);
+        logger.setUseParentHandlers(true);
+    }
+
+    private static double measure(BookService service) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += service.getById(1L).getId();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            sink += service.getById(1L).getId();
+        }
+        double perCall = (double) (System.nanoTime() - start) / CALLS;
+        assertThat(sink).isPositive();
+        return perCall;
+    }
+
+    private static BookService proxy(BookService target, MethodLoggingProperties properties) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new LoggerAspect(properties));
+        return factory.getProxy();
+    }
+
+    private static BookService bookService() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        Book book = new Book("Dune", new ArrayList<>(), 412);
+        book.setId(1L);
+        when(bookRepository.findWithAuthorsById(1L)).thenReturn(Optional.of(book));
+        CacheHolder cacheHolder = new CacheConfig().cacheHolder(new CacheProperties());
+        return new BookService(bookRepository, mock(CommentRepository.class), new BookMapper(),
+                cacheHolder, new CacheInvalidationService(cacheHolder),
+                new PaginationService(new PaginationProperties()),
+                mock(CommentCountService.class), mock(BulkService.class));
+    }
+}
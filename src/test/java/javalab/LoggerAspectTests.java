@@ -0,0 +1,125 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+import javalab.config.MethodLoggingProperties;
+import javalab.logger.LoggerAspect;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+class LoggerAspectTests {
+    private final Logger logger = Logger.getLogger(LoggerAspect.class.getName());
+    private final List<LogRecord> records = new ArrayList<>();
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord logRecord) {
+            records.add(logRecord);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @BeforeEach
+    void setUp() {
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        logger.setLevel(Level.ALL);
+    }
+
+    @AfterEach
+    void tearDown() {
+        logger.removeHandler(handler);
+        logger.setUseParentHandlers(true);
+        logger.setLevel(null);
+    }
+
+    @Test
+    void logsCallsWithCappedLazyResults() {
+        MethodLoggingProperties properties = new MethodLoggingProperties();
+        properties.setMaxResultLength(40);
+        properties.setMaxResultElements(3);
+        Greeter greeter = proxy(properties);
+
+        greeter.numbers(1000);
+
+        assertThat(records).hasSize(2);
+        assertThat(records.get(0).getParameters()).containsExactly("Greeter.numbers(..)");
+        String rendered = records.get(1).getParameters()[1].toString();
+        assertThat(rendered).isEqualTo("ArrayList(size=1000)[0, 1, 2, ...]");
+        greeter.text(500);
+        assertThat(records.get(3).getParameters()[1].toString())
+                .hasSize(40 + "... (500 chars)".length()).endsWith("... (500 chars)");
+    }
+
+    @Test
+    void sampledOffCallsAreOnlyLoggedWhenTheyFail() {
+        MethodLoggingProperties properties = new MethodLoggingProperties();
+        properties.setSampleRate(0);
+        Greeter greeter = proxy(properties);
+
+        for (int i = 0; i < 100; i++) {
+            greeter.text(1);
+        }
+        assertThat(records).isEmpty();
+        assertThatThrownBy(greeter::fail).isInstanceOf(IllegalStateException.class);
+
+        assertThat(records).singleElement().satisfies(logRecord ->
+                assertThat(logRecord.getMessage()).startsWith("Exception in"));
+    }
+
+    @Test
+    void honoursTheLongestMatchingRuleAndTheLevel() {
+        MethodLoggingProperties properties = new MethodLoggingProperties();
+        properties.setExclude(List.of("javalab"));
+        properties.setInclude(List.of(Greeter.class.getName()));
+        proxy(properties).text(1);
+        assertThat(records).hasSize(2);
+
+        records.clear();
+        properties.setInclude(List.of("javalab"));
+        properties.setExclude(List.of(LoggerAspectTests.class.getName()));
+        proxy(properties).text(1);
+        assertThat(records).isEmpty();
+
+        properties.setExclude(List.of());
+        logger.setLevel(Level.WARNING);
+        proxy(properties).text(1);
+        assertThat(records).isEmpty();
+    }
+
+    private static Greeter proxy(MethodLoggingProperties properties) {
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Greeter());
+        factory.addAspect(new LoggerAspect(properties));
+        return factory.getProxy();
+    }
+
+    public static class Greeter {
+        public List<Integer> numbers(int count) {
+            return new ArrayList<>(IntStream.range(0, count).boxed().toList());
+        }
+
+        public String text(int length) {
+            return "x".repeat(length);
+        }
+
+        public void fail() {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
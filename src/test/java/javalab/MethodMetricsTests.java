@@ -0,0 +1,131 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import javalab.config.MethodMetricsExporter;
+import javalab.dto.MethodLatencyDto;
+import javalab.exception.BadRequestException;
+import javalab.logger.MethodMetricsAspect;
+import javalab.service.MethodMetricsService;
+import javalab.utility.LatencyHistogram;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+class MethodMetricsTests {
+
+    @Test
+    void percentilesAreWithinTheBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value);
+        }
+
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat(histogram.getMax()).isEqualTo(100_000);
+        assertThat(histogram.getMean()).isCloseTo(50_000.5, within(0.01));
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(50_000, within(1600.0));
+        assertThat((double) histogram.getValueAtPercentile(99)).isCloseTo(99_000, within(3100.0));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(100_000);
+        assertThat(new LatencyHistogram().getValueAtPercentile(99)).isZero();
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(i);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            histogram.record(i * 7919L);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertThat(allocated).isLessThan(1024);
+    }
+
+    @Test
+    void aspectRecordsLatencyAndErrorsPerMethod() {
+        MethodMetricsService service = new MethodMetricsService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Worker());
+        factory.addAspect(new MethodMetricsAspect(service));
+        Worker worker = factory.getProxy();
+
+        for (int i = 0; i < 20; i++) {
+            worker.quick();
+        }
+        worker.slow();
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(worker::fail).isInstanceOf(IllegalStateException.class);
+        }
+
+        List<MethodLatencyDto> byP99 = service.getLatencies("p99", 10);
+        assertThat(byP99).extracting(MethodLatencyDto::getMethod)
+                .first().isEqualTo("Worker.slow()");
+        assertThat(byP99.get(0).getP99Micros()).isGreaterThanOrEqualTo(5000);
+        assertThat(service.getLatencies("count", 1)).singleElement().satisfies(dto -> {
+            assertThat(dto.getMethod()).isEqualTo("Worker.quick()");
+            assertThat(dto.getCount()).isEqualTo(20);
+        });
+        assertThat(service.getLatencies("errors", 1).get(0).getErrors()).isEqualTo(3);
+        assertThat(service.getSlowestMethods()).hasSize(3);
+        assertThatThrownBy(() -> service.getLatencies("median", 1))
+                .isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.getLatencies("p99", -1))
+                .isInstanceOf(BadRequestException.class);
+
+        service.reset();
+        assertThat(service.getLatencies("p99", 10)).isEmpty();
+    }
+
+    @Test
+    void methodMetricsAreExportedOverJmx() throws Exception {
+        MethodMetricsService service = new MethodMetricsService();
+        AspectJProxyFactory factory = new AspectJProxyFactory(new Worker());
+        factory.addAspect(new MethodMetricsAspect(service));
+        Worker worker = factory.getProxy();
+        worker.quick();
+        MethodMetricsExporter exporter = new MethodMetricsExporter(service);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("javalab:type=MethodMetrics");
+
+        exporter.register();
+        try {
+            assertThat(server.getAttribute(name, "MethodCount")).isEqualTo(1);
+            assertThat((String[]) server.getAttribute(name, "SlowestMethods")).singleElement()
+                    .asString().startsWith("Worker.quick() count=1");
+            server.invoke(name, "reset", null, null);
+            assertThat(service.getLatencies("p99", 10)).isEmpty();
+        } finally {
+            exporter.unregister();
+        }
+        assertThat(server.isRegistered(name)).isFalse();
+    }
+
+    public static class Worker {
+        public void quick() {
+            // nothing to do
+        }
+
+        public void slow() {
+            try {
+                Thread.sleep(5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public void fail() {
+            throw new IllegalStateException("broken");
+        }
+    }
+}
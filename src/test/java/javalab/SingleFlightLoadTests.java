@@ -0,0 +1,159 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javalab.config.CacheConfig;
+import javalab.config.CacheHolder;
+import javalab.config.CacheProperties;
+import javalab.config.PaginationProperties;
+import javalab.dto.BookDto;
+import javalab.exception.NotFoundException;
+import javalab.mapper.BookMapper;
+import javalab.model.Book;
+import javalab.repository.BookRepository;
+import javalab.repository.CommentRepository;
+import javalab.service.BookService;
+import javalab.service.BulkService;
+import javalab.service.CacheInvalidationService;
+import javalab.service.CommentCountService;
+import javalab.service.PaginationService;
+import javalab.utility.Cache;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightLoadTests {
+    private static final int THREADS = 16;
+
+    @Test
+    void concurrentMissesShareOneRepositoryCall() throws Exception {
+        BookRepository bookRepository = mock(BookRepository.class);
+        CacheHolder cacheHolder = new CacheConfig().cacheHolder(new CacheProperties());
+        BookService bookService = new BookService(bookRepository, mock(CommentRepository.class),
+                new BookMapper(), cacheHolder, new CacheInvalidationService(cacheHolder),
+                new PaginationService(new PaginationProperties()),
+                mock(CommentCountService.class), mock(BulkService.class));
+        Cache<Long, BookDto> cache = cacheHolder.getBookCache();
+
+        Book book = new Book("Dune", new ArrayList<>(), 412);
+        book.setId(1L);
+        when(bookRepository.findWithAuthorsById(1L)).thenAnswer(inv -> {
+            // Hold the load until every other caller has joined it.
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (cache.stats().getDeduplicatedLoads() < THREADS - 1
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            return Optional.of(book);
+        });
+
+        List<BookDto> results = runConcurrently(() -> bookService.getById(1L));
+
+        verify(bookRepository, times(1)).findWithAuthorsById(1L);
+        assertThat(results).hasSize(THREADS)
+                .allSatisfy(dto -> assertThat(dto).isSameAs(results.get(0)));
+        assertThat(cache.stats().getLoads()).isEqualTo(1);
+        assertThat(cache.stats().getDeduplicatedLoads()).isEqualTo(THREADS - 1);
+    }
+
+    @Test
+    void failedLoadIsReportedToAllWaitersAndNotCached() throws Exception {
+        BookRepository bookRepository = mock(BookRepository.class);
+        CacheHolder cacheHolder = new CacheConfig().cacheHolder(new CacheProperties());
+        BookService bookService = new BookService(bookRepository, mock(CommentRepository.class),
+                new BookMapper(), cacheHolder, new CacheInvalidationService(cacheHolder),
+                new PaginationService(new PaginationProperties()),
+                mock(CommentCountService.class), mock(BulkService.class));
+        Cache<Long, BookDto> cache = cacheHolder.getBookCache();
+
+        when(bookRepository.findWithAuthorsById(2L)).thenAnswer(inv -> {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (cache.stats().getDeduplicatedLoads() < THREADS - 1
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(1);
+            }
+            return Optional.empty();
+        });
+
+        List<Object> results = runConcurrently(() -> {
+            try {
+                return bookService.getById(2L);
+            } catch (NotFoundException e) {
+                return e;
+            }
+        });
+
+        verify(bookRepository, times(1)).findWithAuthorsById(2L);
+        assertThat(results).allSatisfy(result -> assertThat(result)
+                .isInstanceOf(NotFoundException.class));
+        assertThat(cache.containsKey(2L)).isFalse();
+    }
+
+    @Test
+    void errorInLoadIsReportedToAllWaiters() throws Exception {
+        Cache<Long, String> cache = new Cache<>(16);
+
+        List<Object> results = runConcurrently(() -> {
+            try {
+                return cache.getOrLoad(3L, key -> {
+                    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                    while (cache.stats().getDeduplicatedLoads() < THREADS - 1
+                            && System.nanoTime() < deadline) {
+                        Thread.onSpinWait();
+                    }
+                    throw new AssertionError("broken loader");
+                });
+            } catch (AssertionError e) {
+                return e;
+            }
+        });
+
+        assertThat(results).allSatisfy(result -> assertThat(result)
+                .isInstanceOf(AssertionError.class));
+        assertThat(cache.stats().getLoadFailures()).isEqualTo(1);
+        assertThat(cache.containsKey(3L)).isFalse();
+    }
+
+    @Test
+    void loadRacingWithRemovalIsNotCached() {
+        Cache<Long, String> cache = new Cache<>(16);
+
+        String value = cache.getOrLoad(1L, key -> {
+            cache.remove(key);
+            return "stale";
+        });
+
+        assertThat(value).isEqualTo("stale");
+        assertThat(cache.containsKey(1L)).isFalse();
+    }
+
+    private static <T> List<T> runConcurrently(Callable<T> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<T> results = new ArrayList<>();
+        for (Future<T> future : futures) {
+            results.add(future.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return results;
+    }
+}
@@ -0,0 +1,201 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javalab.config.VisitAnalyticsInterceptor;
+import javalab.config.VisitAnalyticsProperties;
+import javalab.dto.HeavyHitterDto;
+import javalab.dto.PeriodCountDto;
+import javalab.exception.BadRequestException;
+import javalab.service.VisitAnalyticsService;
+import javalab.utility.SlidingWindowCounter;
+import javalab.utility.SpaceSaving;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+class VisitAnalyticsTests {
+
+    @Test
+    void windowCountsRollOverAndForgetOldPeriods() {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 3);
+        counter.increment(10_000);
+        counter.increment(10_999);
+        counter.increment(11_500);
+
+        assertThat(counter.counts(11_500)).containsExactly(0, 2, 1);
+        assertThat(counter.windowStartMillis(11_500)).isEqualTo(9_000);
+        counter.increment(13_000);
+        assertThat(counter.counts(13_000)).containsExactly(1, 0, 1);
+        // A slot unused for a whole lap must not show the count of the period it held.
+        assertThat(counter.counts(14_000)).containsExactly(0, 1, 0);
+        assertThat(counter.counts(20_000)).containsExactly(0, 0, 0);
+    }
+
+    @Test
+    void concurrentIncrementsAreAllCounted() throws Exception {
+        SlidingWindowCounter counter = new SlidingWindowCounter(1000, 4);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 20_000; i++) {
+                    counter.increment(5_000 + i % 2 * 1000);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(counter.counts(6_000)).containsExactly(0, 0, 40_000, 40_000);
+    }
+
+    @Test
+    void spaceSavingFindsTheHeavyHittersWithinTheErrorBound() {
+        SpaceSaving<String> sketch = new SpaceSaving<>(10);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add(i % 4 == 0 ? "hot" : i % 10 == 1 ? "warm" : "cold-" + i);
+        }
+
+        List<SpaceSaving.Estimate<String>> top = sketch.top(2);
+        assertThat(top).extracting(SpaceSaving.Estimate::getKey).containsExactly("hot", "warm");
+        assertThat(top.get(0).getCount()).isBetween(2500L, 2500L + top.get(0).getError());
+        assertThat(top.get(0).getCount() - top.get(0).getError()).isLessThanOrEqualTo(2500);
+        assertThat(top.get(1).getCount() - top.get(1).getError()).isLessThanOrEqualTo(1000);
+        assertThat(top.get(1).getCount()).isGreaterThanOrEqualTo(1000);
+        assertThat(sketch.top(100)).hasSize(10);
+        assertThat(sketch.getTotal()).isEqualTo(10_000);
+    }
+
+    @Test
+    void serviceReportsPeriodsAndTopLists() {
+        MutableClock clock = new MutableClock(Instant.parse("2025-03-10T14:05:30Z"));
+        VisitAnalyticsProperties properties = new VisitAnalyticsProperties();
+        properties.setMinutes(3);
+        properties.setHours(2);
+        properties.setTopCapacity(5);
+        VisitAnalyticsService service = new VisitAnalyticsService(properties, clock);
+
+        service.recordVisit("GET /books/{id}", 7L);
+        clock.advance(60_000);
+        service.recordVisit("GET /books/{id}", 7L);
+        service.recordVisit("GET /books", null);
+
+        assertThat(service.getMinuteCounts())
+                .extracting(PeriodCountDto::getStart, PeriodCountDto::getCount)
+                .containsExactly(
+                        tuple(
+                                LocalDateTime.parse("2025-03-10T14:04:00"), 0L),
+                        tuple(
+                                LocalDateTime.parse("2025-03-10T14:05:00"), 1L),
+                        tuple(
+                                LocalDateTime.parse("2025-03-10T14:06:00"), 2L));
+        assertThat(service.getHourCounts()).extracting(PeriodCountDto::getCount)
+                .containsExactly(0L, 3L);
+        assertThat(service.getTopEndpoints(1)).singleElement().satisfies(hitter -> {
+            assertThat(hitter.getKey()).isEqualTo("GET /books/{id}");
+            assertThat(hitter.getCount()).isEqualTo(2);
+        });
+        assertThat(service.getTopBooks(5)).extracting(HeavyHitterDto::getKey).containsExactly("7");
+        assertThatThrownBy(() -> service.getTopBooks(6)).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    void visitsBeyondTheQueueAreCountedButLeftOutOfTheTopLists() {
+        VisitAnalyticsProperties properties = new VisitAnalyticsProperties();
+        properties.setQueueSize(4);
+        VisitAnalyticsService service = new VisitAnalyticsService(properties);
+
+        for (int i = 0; i < 10; i++) {
+            service.recordVisit("GET /books", null);
+        }
+        assertThat(service.getTopEndpoints(1)).singleElement()
+                .extracting(HeavyHitterDto::getCount).isEqualTo(4L);
+        service.recordVisit("GET /books", null);
+        service.drain();
+
+        assertThat(service.getTopEndpoints(1)).singleElement()
+                .extracting(HeavyHitterDto::getCount).isEqualTo(5L);
+        assertThat(service.getHourCounts()).last().extracting(PeriodCountDto::getCount)
+                .isEqualTo(11L);
+    }
+
+    @Test
+    void interceptorRecordsMappingPatternsAndBookIds() throws Exception {
+        VisitAnalyticsService service = new VisitAnalyticsService(new VisitAnalyticsProperties());
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new BooksController())
+                .addInterceptors(new VisitAnalyticsInterceptor(service)).build();
+
+        mockMvc.perform(get("/books/3")).andExpect(status().isOk());
+        mockMvc.perform(get("/books/3/comments")).andExpect(status().isOk());
+        mockMvc.perform(get("/books/4")).andExpect(status().isOk());
+        mockMvc.perform(get("/missing")).andExpect(status().isNotFound());
+
+        assertThat(service.getTopEndpoints(10)).extracting(HeavyHitterDto::getKey)
+                .containsExactly("GET /books/{id}", "GET /books/{id}/comments");
+        assertThat(service.getTopBooks(10))
+                .extracting(HeavyHitterDto::getKey, HeavyHitterDto::getCount)
+                .containsExactly(tuple("3", 2L),
+                        tuple("4", 1L));
+    }
+
+    @RestController
+    static class BooksController {
+        @GetMapping("/books/{id}")
+        public String book(@PathVariable Long id) {
+            return "book " + id;
+        }
+
+        @GetMapping("/books/{id}/comments")
+        public String comments(@PathVariable Long id) {
+            return "comments of " + id;
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(long millis) {
+            now = now.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
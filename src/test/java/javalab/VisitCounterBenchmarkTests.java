@@ -0,0 +1,67 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javalab.config.VisitCounterProperties;
+import javalab.repository.VisitCounterRepository;
+import javalab.service.VisitCounterService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/**Increment throughput of {@link VisitCounterService} against the previous single
+ * {@code AtomicLong}, from 1 to 64 threads. Run with {@code -Dbenchmark=true}.*/
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VisitCounterBenchmarkTests {
+    private static final long DURATION_MS = 1000;
+
+    @Test
+    void compareScaling() throws InterruptedException {
+        for (int threads : new int[]{1, 2, 4, 8, 16, 32, 64}) {
+            AtomicLong single = new AtomicLong();
+            long atomic = measure(single::incrementAndGet, threads);
+            VisitCounterService service = new VisitCounterService(
+                    mock(VisitCounterRepository.class), mock(PlatformTransactionManager.class),
+                    new VisitCounterProperties());
+            long striped = measure(service::increment, threads);
+            System.out.printf("threads=%d atomic=%,d ops/s striped=%,d ops/s%n",
+                    threads, atomic, striped);
+            assertThat(service.getCount()).isPositive();
+        }
+    }
+
+    private long measure(Runnable increment, int threads) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        LongAdder operations = new LongAdder();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        for (int t = 0; t < threads; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long done = 0;
+                while (System.nanoTime() < deadline) {
+                    for (int i = 0; i < 100; i++) {
+                        increment.run();
+                    }
+                    done += 100;
+                }
+                operations.add(done);
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        executor.awaitTermination(DURATION_MS * 10, TimeUnit.MILLISECONDS);
+        return operations.sum() * 1000 / DURATION_MS;
+    }
+}
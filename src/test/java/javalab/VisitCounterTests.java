@@ -0,0 +1,184 @@
+package javalab;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import javalab.config.VisitCounterProperties;
+import javalab.exception.BadRequestException;
+import javalab.model.VisitCounter;
+import javalab.repository.VisitCounterRepository;
+import javalab.service.VisitCounterService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false"
+})
+class VisitCounterTests {
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private VisitCounterRepository visitCounterRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void concurrentIncrementsAreAllCounted() throws Exception {
+        VisitCounterService service = newService();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            String key = t % 2 == 0 ? "even" : "odd";
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    service.increment();
+                    service.increment(key);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(service.getCount()).isEqualTo(80_000);
+        assertThat(service.getCounts())
+                .containsExactly(Map.entry("even", 40_000L), Map.entry("odd", 40_000L),
+                        Map.entry("visits", 80_000L));
+    }
+
+    @Test
+    void flushedTotalsSurviveARestart() {
+        VisitCounterService before = newService();
+        for (int i = 0; i < 5; i++) {
+            before.increment();
+        }
+        before.increment("books");
+        assertThat(before.flush()).isEqualTo(2);
+        before.increment();
+        before.increment();
+        assertThat(before.flush()).isEqualTo(1);
+        assertThat(before.flush()).isZero();
+
+        // A restart starts from an empty persistence context.
+        entityManager.flush();
+        entityManager.clear();
+        VisitCounterService after = newService();
+
+        assertThat(after.getCount()).isEqualTo(7);
+        assertThat(after.getCount("books")).isEqualTo(1);
+        assertThat(visitCounterRepository.findById("visits"))
+                .hasValueSatisfying(row -> assertThat(row.getTotal()).isEqualTo(7));
+    }
+
+    /**Commits, so it deletes its rows at the end.*/
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void concurrentFlushesOfNewCountersPersistEveryIncrement() throws Exception {
+        VisitCounterService service = newService();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        service.increment("page-" + i % 50);
+                        service.flush();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            // Every increment was flushed by its own thread or by a flush it waited for.
+            Map<String, Long> stored = new TreeMap<>();
+            visitCounterRepository.findAll()
+                    .forEach(row -> stored.put(row.getKey(), row.getTotal()));
+            assertThat(stored).hasSize(50).isEqualTo(service.getCounts());
+        } finally {
+            executor.shutdown();
+            visitCounterRepository.deleteAll();
+        }
+    }
+
+    @Test
+    void failedFlushKeepsTheIncrements() {
+        VisitCounterRepository failing = mock(VisitCounterRepository.class);
+        when(failing.findAll()).thenReturn(List.of(new VisitCounter("visits", 10)));
+        when(failing.addToTotal(anyString(), anyLong()))
+                .thenThrow(new QueryTimeoutException("down"))
+                .thenReturn(1);
+        VisitCounterService service = new VisitCounterService(failing, transactionManager,
+                new VisitCounterProperties());
+        service.load();
+        service.increment();
+        service.increment();
+
+        assertThat(service.flush()).isZero();
+        assertThat(service.getCount()).isEqualTo(12);
+        assertThat(service.flush()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsBadOrTooManyKeys() {
+        VisitCounterProperties properties = new VisitCounterProperties();
+        properties.setMaxKeys(2);
+        properties.setMaxKeyLength(5);
+        VisitCounterService service = new VisitCounterService(visitCounterRepository,
+                transactionManager, properties);
+
+        service.increment("a");
+        service.increment("b");
+        service.increment("a");
+
+        assertThatThrownBy(() -> service.increment("c")).isInstanceOf(BadRequestException.class);
+        assertThatThrownBy(() -> service.increment("toolong"))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(service.getCount("a")).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsTheKeyOfTheListing() {
+        VisitCounterService service = newService();
+
+        assertThatThrownBy(() -> service.increment(VisitCounterService.ALL_KEY))
+                .isInstanceOf(BadRequestException.class);
+        assertThat(service.getCounts()).doesNotContainKey(VisitCounterService.ALL_KEY);
+    }
+
+    @Test
+    void keysLongerThanTheColumnCannotBeConfigured() {
+        VisitCounterProperties properties = new VisitCounterProperties();
+        properties.setMaxKeyLength(VisitCounter.KEY_LENGTH + 1);
+
+        assertThatThrownBy(() -> new VisitCounterService(visitCounterRepository,
+                transactionManager, properties)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private VisitCounterService newService() {
+        VisitCounterService service = new VisitCounterService(visitCounterRepository,
+                transactionManager, new VisitCounterProperties());
+        service.load();
+        return service;
+    }
+}